@@ -0,0 +1,240 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.cli;
+
+import com.google.common.base.Splitter;
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.corpus.TaggedToken;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.tagger.AStarDecoder;
+import eu.danieldk.nlp.jitar.tagger.BiGramDecoder;
+import eu.danieldk.nlp.jitar.tagger.CoarseToFineDecoder;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+import eu.danieldk.nlp.jitar.tagger.GreedyDecoder;
+import eu.danieldk.nlp.jitar.tagger.DenseDecoder;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compare the throughput and accuracy of tagging methods on a tagged corpus.
+ * The first method is used as the reference for agreement.
+ */
+public class Benchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = null;
+        try {
+            options = Options.parse(args, "batch-size", "constrain", "methods", "rounds");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        List<String> arguments = options.arguments();
+        if (arguments.size() != 3) {
+            System.out.println("Benchmark [--batch-size=N] [--constrain=PERCENT] [--methods=a,b] [--rounds=N] [brown/conll/compiled] model corpus");
+            System.exit(1);
+        }
+
+        int batchSize = options.getInt("batch-size", 256);
+        int rounds = options.getInt("rounds", 3);
+        int constrainPercentage = options.getInt("constrain", 20);
+
+        Model model = Model.readModel(new File(arguments.get(1)));
+        WordHandler wordHandler = Util.newWordHandler(model, null);
+        LinearInterpolationLM languageModel = Util.newLanguageModel(model, null);
+        HMMTagger tagger = new HMMTagger(model, wordHandler, languageModel, Util.BEAM_FACTOR);
+        DenseDecoder denseDecoder = new DenseDecoder(model, wordHandler, new DenseLanguageModel(languageModel),
+                Util.BEAM_FACTOR);
+
+        List<List<String>> sentences = new ArrayList<>();
+        List<List<String>> goldTags = new ArrayList<>();
+        int nTokens = 0;
+        try (CorpusReader corpusReader = Util.newCorpusReader(arguments.get(0), new File(arguments.get(2)))) {
+            List<TaggedToken> sentence;
+            while ((sentence = corpusReader.readSentence()) != null) {
+                List<String> words = new ArrayList<>(sentence.size());
+                List<String> tags = new ArrayList<>(sentence.size());
+                for (TaggedToken token : sentence) {
+                    words.add(token.word());
+                    tags.add(token.tag());
+                }
+
+                sentences.add(words);
+                goldTags.add(tags);
+                nTokens += sentence.size();
+            }
+        }
+
+        // Simulate partially pre-annotated input, by fixing the gold tag of a
+        // deterministic subset of the tokens. Tags that the model does not know
+        // cannot be used as a constraint, those tokens are left unconstrained.
+        Random random = new Random(42);
+        List<List<Set<String>>> constraints = new ArrayList<>(sentences.size());
+        for (List<String> tags : goldTags) {
+            List<Set<String>> sentenceConstraints = new ArrayList<>(tags.size());
+            for (String tag : tags)
+                sentenceConstraints.add(random.nextInt(100) < constrainPercentage && isKnownTag(model, tag) ?
+                        Collections.singleton(tag) : null);
+            constraints.add(sentenceConstraints);
+        }
+
+        AStarDecoder aStarDecoder = new AStarDecoder(model, wordHandler, languageModel);
+
+        BiGramDecoder biGramDecoder = new BiGramDecoder(model, wordHandler, new DenseLanguageModel(languageModel),
+                Util.BEAM_FACTOR);
+
+        GreedyDecoder greedyDecoder = new GreedyDecoder(model, wordHandler, new DenseLanguageModel(languageModel),
+                Util.DEFAULT_LOOKAHEAD);
+
+        Map<String, Method> methods = methods(tagger, denseDecoder, aStarDecoder, biGramDecoder, greedyDecoder,
+                constraints, batchSize);
+
+        List<String> selected = new ArrayList<>(methods.keySet());
+        if (options.has("methods"))
+            selected = Splitter.on(',').omitEmptyStrings().splitToList(options.get("methods", ""));
+
+        System.out.println(String.format("Sentences: %d, tokens: %d, tags: %d", sentences.size(), nTokens,
+                model.numberTags().size()));
+        System.out.println(String.format("%-16s %12s %12s %10s %10s", "method", "sentences/s", "tokens/s",
+                "accuracy", "agreement"));
+
+        // Warm up all methods before measuring, so that no method benefits from
+        // the compilation triggered by another method.
+        for (String name : selected) {
+            Method method = methods.get(name);
+            if (method == null) {
+                System.out.println(String.format("Unknown method: %s", name));
+                System.exit(1);
+            }
+
+            method.tag(sentences);
+        }
+
+        List<List<String>> reference = null;
+        for (String name : selected) {
+            Method method = methods.get(name);
+
+            List<List<String>> predicted = null;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; ++i)
+                predicted = method.tag(sentences);
+            double seconds = (System.nanoTime() - start) / 1e9 / rounds;
+
+            if (reference == null)
+                reference = predicted;
+
+            System.out.println(String.format("%-16s %12.0f %12.0f %10.2f %10.2f", name, sentences.size() / seconds,
+                    nTokens / seconds, agreement(predicted, goldTags) * 100., agreement(predicted, reference) * 100.));
+        }
+    }
+
+    private static Map<String, Method> methods(final HMMTagger tagger, final DenseDecoder denseDecoder,
+                                               final AStarDecoder aStarDecoder, final BiGramDecoder biGramDecoder,
+                                               final GreedyDecoder greedyDecoder,
+                                               final List<List<Set<String>>> constraints, final int batchSize) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+
+        methods.put("sentence", decoderMethod(tagger));
+
+        methods.put("batch", new Method() {
+            @Override
+            public List<List<String>> tag(List<List<String>> sentences) {
+                List<List<String>> tags = new ArrayList<>(sentences.size());
+                for (int i = 0; i < sentences.size(); i += batchSize)
+                    for (HMMTagger.Sequence sequence :
+                            tagger.tagBatch(sentences.subList(i, Math.min(i + batchSize, sentences.size()))))
+                        tags.add(sequence.sequence());
+                return tags;
+            }
+        });
+
+        methods.put("dense", decoderMethod(denseDecoder));
+
+        methods.put("astar", decoderMethod(aStarDecoder));
+
+        methods.put("bigram", decoderMethod(biGramDecoder));
+
+        methods.put("greedy", decoderMethod(greedyDecoder));
+
+        methods.put("constrained", new Method() {
+            @Override
+            public List<List<String>> tag(List<List<String>> sentences) {
+                List<List<String>> tags = new ArrayList<>(sentences.size());
+                for (int i = 0; i < sentences.size(); ++i)
+                    tags.add(HMMTagger.highestProbabilitySequence(
+                            tagger.tag(sentences.get(i), constraints.get(i)), tagger.model()).sequence());
+                return tags;
+            }
+        });
+
+        methods.put("coarse-to-fine", decoderMethod(new CoarseToFineDecoder(tagger)));
+
+        methods.put("segmented", new Method() {
+            @Override
+            public List<List<String>> tag(List<List<String>> sentences) {
+                List<List<String>> tags = new ArrayList<>(sentences.size());
+                for (List<String> sentence : sentences)
+                    tags.add(tagger.decodeSegmented(sentence).sequence());
+                return tags;
+            }
+        });
+
+        return methods;
+    }
+
+    private static Method decoderMethod(final Decoder decoder) {
+        return new Method() {
+            @Override
+            public List<List<String>> tag(List<List<String>> sentences) {
+                List<List<String>> tags = new ArrayList<>(sentences.size());
+                for (List<String> sentence : sentences)
+                    tags.add(decoder.decode(sentence).sequence());
+                return tags;
+            }
+        };
+    }
+
+    private static double agreement(List<List<String>> predicted, List<List<String>> reference) {
+        int good = 0;
+        int total = 0;
+        for (int i = 0; i < predicted.size(); ++i) {
+            List<String> predictedTags = predicted.get(i);
+            List<String> referenceTags = reference.get(i);
+            for (int j = 0; j < referenceTags.size(); ++j) {
+                if (predictedTags.get(j).equals(referenceTags.get(j)))
+                    ++good;
+                ++total;
+            }
+        }
+
+        return total == 0 ? 1.0 : good / (double) total;
+    }
+
+    private static boolean isKnownTag(Model model, String tag) {
+        return model.tagNumbers().containsKey("c-" + tag) || model.tagNumbers().containsKey("n-" + tag);
+    }
+
+    private interface Method {
+        List<List<String>> tag(List<List<String>> sentences) throws InterruptedException;
+    }
+}
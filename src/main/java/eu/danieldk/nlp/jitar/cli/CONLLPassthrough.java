@@ -0,0 +1,248 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tag CoNLL-X input without parsing it into tokens. The lines of a sentence
+ * are kept as bytes, only the word form is decoded to a string. The predicted
+ * tag is then spliced into the POS column of each line, all other columns and
+ * blank lines are copied unchanged.
+ */
+final class CONLLPassthrough {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int FORM_COLUMN = 1;
+
+    private static final int POS_COLUMN = 4;
+
+    private final InputStream d_in;
+
+    private final TagWriter d_writer;
+
+    private final Charset d_charset;
+
+    private final byte[] d_buffer;
+
+    private int d_pos;
+
+    private int d_limit;
+
+    // Whether the last line that was read ended with a line terminator.
+    private boolean d_terminated;
+
+    // The lines of the current sentence, without line terminators.
+    private byte[] d_lines;
+
+    private int d_nBytes;
+
+    private int[] d_lineStarts;
+
+    private int[] d_posStarts;
+
+    private int[] d_posEnds;
+
+    private final List<String> d_forms;
+
+    /**
+     * Construct a passthrough tagger.
+     *
+     * @param in      The CoNLL-X input.
+     * @param writer  The writer for the output, which is flushed before the
+     *                tagger blocks on input.
+     * @param charset The character encoding of the input, should be ASCII-compatible.
+     */
+    CONLLPassthrough(InputStream in, TagWriter writer, Charset charset) {
+        this(in, writer, charset, BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a passthrough tagger with the given input buffer size.
+     *
+     * @param in         The CoNLL-X input.
+     * @param writer     The writer for the output, which is flushed before the
+     *                   tagger blocks on input.
+     * @param charset    The character encoding of the input, should be ASCII-compatible.
+     * @param bufferSize The input buffer size in bytes.
+     */
+    CONLLPassthrough(InputStream in, TagWriter writer, Charset charset, int bufferSize) {
+        d_in = in;
+        d_writer = writer;
+        d_charset = charset;
+        d_buffer = new byte[bufferSize];
+        d_lines = new byte[bufferSize];
+        d_lineStarts = new int[64];
+        d_posStarts = new int[64];
+        d_posEnds = new int[64];
+        d_forms = new ArrayList<>();
+    }
+
+    /**
+     * Tag all sentences of the input.
+     *
+     * @param decoder The decoder.
+     * @throws IOException The input could not be read or is not valid CoNLL-X.
+     */
+    void tag(Decoder decoder) throws IOException {
+        int lineStart;
+        while ((lineStart = readLine()) != -1) {
+            int lineEnd = d_nBytes;
+            if (!isBlank(lineStart, lineEnd)) {
+                addToken(lineStart, lineEnd);
+                continue;
+            }
+
+            // A blank line ends the sentence, it is copied as-is.
+            writeSentence(decoder, lineStart, true);
+            d_writer.write(d_lines, lineStart, lineEnd - lineStart);
+            if (d_terminated)
+                d_writer.write((byte) '\n');
+            d_nBytes = 0;
+        }
+
+        // The input does not end with a blank line.
+        writeSentence(decoder, d_nBytes, d_terminated);
+    }
+
+    private void addToken(int start, int end) throws IOException {
+        int column = 0;
+        int formStart = -1, formEnd = -1, posStart = -1, posEnd = -1;
+        for (int columnStart = start; columnStart <= end && column <= POS_COLUMN; ++column) {
+            int columnEnd = columnStart;
+            while (columnEnd < end && d_lines[columnEnd] != '\t')
+                ++columnEnd;
+
+            if (column == FORM_COLUMN) {
+                formStart = columnStart;
+                formEnd = columnEnd;
+            } else if (column == POS_COLUMN) {
+                posStart = columnStart;
+                posEnd = columnEnd;
+            }
+
+            columnStart = columnEnd + 1;
+        }
+
+        if (posStart == -1)
+            throw new IOException(String.format("Line has fewer than five columns: %s",
+                    new String(d_lines, start, end - start, d_charset)));
+
+        int token = d_forms.size();
+        if (token == d_lineStarts.length) {
+            d_lineStarts = Arrays.copyOf(d_lineStarts, token * 2);
+            d_posStarts = Arrays.copyOf(d_posStarts, token * 2);
+            d_posEnds = Arrays.copyOf(d_posEnds, token * 2);
+        }
+
+        d_lineStarts[token] = start;
+        d_posStarts[token] = posStart;
+        d_posEnds[token] = posEnd;
+        d_forms.add(new String(d_lines, formStart, formEnd - formStart, d_charset));
+    }
+
+    private void writeSentence(Decoder decoder, int sentenceEnd, boolean terminated) throws IOException {
+        if (d_forms.isEmpty())
+            return;
+
+        List<Integer> tagNumbers = decoder.decode(d_forms).tagNumbers();
+
+        int nStartMarkers = Common.DEFAULT_START_MARKER_TOKENS.size();
+        for (int token = 0; token < d_forms.size(); ++token) {
+            int lineStart = d_lineStarts[token];
+            int lineEnd = token + 1 < d_forms.size() ? d_lineStarts[token + 1] : sentenceEnd;
+
+            d_writer.write(d_lines, lineStart, d_posStarts[token] - lineStart);
+            d_writer.writeTag(tagNumbers.get(token + nStartMarkers));
+            d_writer.write(d_lines, d_posEnds[token], lineEnd - d_posEnds[token]);
+            if (token + 1 < d_forms.size() || terminated)
+                d_writer.write((byte) '\n');
+        }
+
+        d_forms.clear();
+    }
+
+    /**
+     * Append the next line, without its terminator, to the lines of the
+     * sentence.
+     *
+     * @return The start of the line, or -1 if the input is exhausted.
+     */
+    private int readLine() throws IOException {
+        int start = d_nBytes;
+        boolean read = false;
+        while (true) {
+            if (d_pos == d_limit && !fill()) {
+                if (!read)
+                    return -1;
+
+                d_terminated = false;
+                return start;
+            }
+
+            read = true;
+
+            int end = d_pos;
+            while (end < d_limit && d_buffer[end] != '\n')
+                ++end;
+
+            int length = end - d_pos;
+            if (d_nBytes + length > d_lines.length)
+                d_lines = Arrays.copyOf(d_lines, Math.max(d_nBytes + length, d_lines.length * 2));
+            System.arraycopy(d_buffer, d_pos, d_lines, d_nBytes, length);
+            d_nBytes += length;
+
+            if (end < d_limit) {
+                d_pos = end + 1;
+                d_terminated = true;
+                return start;
+            }
+
+            d_pos = end;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (d_in.available() == 0)
+            d_writer.flush();
+
+        int n = d_in.read(d_buffer);
+        if (n == -1)
+            return false;
+
+        d_pos = 0;
+        d_limit = n;
+        return true;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; ++i)
+            if (d_lines[i] != ' ' && d_lines[i] != '\t' && d_lines[i] != '\r')
+                return false;
+
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.corpus.CompiledCorpus;
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compile a corpus to the binary format of {@link CompiledCorpus}. The
+ * compiled corpus can be used with the <tt>compiled</tt> corpus type.
+ */
+public class CompileCorpus {
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("CompileCorpus [brown/conll] corpus compiled");
+            System.exit(1);
+        }
+
+        try (CorpusReader corpusReader = Util.newCorpusReader(args[0], new File(args[1]))) {
+            CompiledCorpus.compile(corpusReader, new File(args[2]));
+        } catch (IOException e) {
+            System.err.println(String.format("Error compiling corpus: %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+}
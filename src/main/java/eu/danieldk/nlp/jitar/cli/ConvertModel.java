@@ -0,0 +1,84 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.TextModelReader;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Convert a serialized model to the text format (lexicon and n-gram files),
+ * or with <tt>--from-text</tt>, convert a text model to a serialized model.
+ */
+public class ConvertModel {
+    public static void main(String[] args) {
+        Options options = null;
+        try {
+            options = Options.parse(args, "from-text", "threads");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        List<String> arguments = options.arguments();
+        if (arguments.size() != 3) {
+            System.out.println("ConvertModel model lexicon ngrams");
+            System.out.println("ConvertModel --from-text [--threads=N] lexicon ngrams model");
+            System.exit(1);
+        }
+
+        int nThreads = 1;
+        try {
+            nThreads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            if (options.has("from-text"))
+                fromText(arguments, nThreads);
+            else
+                toText(arguments);
+        } catch (IOException e) {
+            System.err.println(String.format("Could not convert model: %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    private static void fromText(List<String> arguments, int nThreads) throws IOException {
+        Model model = TextModelReader.read(new File(arguments.get(0)), new File(arguments.get(1)), nThreads);
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(arguments.get(2)))) {
+            oos.writeObject(model);
+        }
+    }
+
+    private static void toText(List<String> arguments) throws IOException {
+        Model model = Model.readModel(new File(arguments.get(0)));
+
+        try (Writer lexiconWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(arguments.get(1)), "UTF-8"));
+             Writer nGramWriter = new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(arguments.get(2)), "UTF-8"))) {
+            model.writeModel(lexiconWriter, nGramWriter);
+        }
+    }
+}
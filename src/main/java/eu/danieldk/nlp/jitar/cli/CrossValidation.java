@@ -20,13 +20,8 @@ import eu.danieldk.nlp.jitar.corpus.CorpusReader;
 import eu.danieldk.nlp.jitar.corpus.SplittingCorpusReader;
 import eu.danieldk.nlp.jitar.data.Model;
 import eu.danieldk.nlp.jitar.evaluation.Evaluator;
-import eu.danieldk.nlp.jitar.languagemodel.LanguageModel;
-import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
 import eu.danieldk.nlp.jitar.tagger.HMMTagger;
 import eu.danieldk.nlp.jitar.training.FrequenciesCollector;
-import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
 
 import java.io.File;
 import java.io.IOException;
@@ -67,11 +62,7 @@ public class CrossValidation {
             try (CorpusReader evalCorpusReader = new SplittingCorpusReader(
                     Util.newCorpusReader(corpusType, new File(corpusFilename)), N_FOLDS, evalFolds)) {
 
-                SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
-                WordHandler wh = new LexiconWordHandler(model.lexicon(), model.uniGrams(), swh);
-                LanguageModel lm = new LinearInterpolationLM(model.uniGrams(),
-                        model.biGrams(), model.triGrams());
-                HMMTagger tagger = new HMMTagger(model, wh, lm, 1000.0);
+                HMMTagger tagger = Util.newTagger(model, null);
 
                 Evaluator evaluator = new Evaluator(tagger, model);
                 evaluator.process(evalCorpusReader);
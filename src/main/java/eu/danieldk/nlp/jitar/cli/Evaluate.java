@@ -18,55 +18,117 @@ package eu.danieldk.nlp.jitar.cli;
 
 import eu.danieldk.nlp.jitar.corpus.CorpusReader;
 import eu.danieldk.nlp.jitar.data.Model;
-import eu.danieldk.nlp.jitar.evaluation.Evaluator;
-import eu.danieldk.nlp.jitar.languagemodel.LanguageModel;
-import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
-import eu.danieldk.nlp.jitar.tagger.HMMTagger;
-import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+import eu.danieldk.nlp.jitar.evaluation.EvaluationResult;
+import eu.danieldk.nlp.jitar.evaluation.ParallelEvaluator;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 public class Evaluate {
-    public static void main(String[] args) throws IOException {
-        if (args.length != 3) {
-            System.out.println("Evaluate [brown/conll] model corpus");
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = null;
+        try {
+            options = Options.parse(args, "confusion", "decoder", "metrics", "per-tag", "threads");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        List<String> arguments = options.arguments();
+        if (arguments.size() != 3) {
+            System.out.println(String.format("Evaluate [--confusion] [--decoder=%s] [--metrics] [--per-tag] [--threads=N] [brown/conll/compiled] model corpus",
+                    Util.DECODERS));
+            System.exit(1);
+        }
+
+        int nThreads = 1;
+        try {
+            nThreads = options.getInt("threads", 1);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
             System.exit(1);
         }
 
         Model model = null;
 
         try {
-            model = Model.readModel(new File(args[1]));
+            model = Model.readModel(new File(arguments.get(1)));
         } catch (IOException e) {
             System.out.println("Unable to read training data!");
             e.printStackTrace();
             System.exit(1);
         }
 
-        SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
-        WordHandler wh = new LexiconWordHandler(model.lexicon(), model.uniGrams(), swh);
-        LanguageModel lm = new LinearInterpolationLM(model.uniGrams(),
-                model.biGrams(), model.triGrams());
+        TaggerMetrics metrics = options.has("metrics") ? Util.newMetrics() : null;
 
-        HMMTagger tagger = new HMMTagger(model, wh, lm, 1000.0);
+        Decoder decoder = null;
+        try {
+            decoder = Util.newDecoder(options.get("decoder", Util.DEFAULT_DECODER), model, metrics);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
 
-        Evaluator evaluator = new Evaluator(tagger, model);
+        ParallelEvaluator evaluator = new ParallelEvaluator(decoder, model, nThreads);
 
-        try (CorpusReader corpusReader = Util.newCorpusReader(args[0], new File(args[2]))) {
-            evaluator.process(corpusReader);
+        EvaluationResult result = null;
+        try (CorpusReader corpusReader = Util.newCorpusReader(arguments.get(0), new File(arguments.get(2)))) {
+            result = evaluator.process(corpusReader);
         } catch (IOException e) {
             System.err.println(String.format("Error reading corpus: %s", e.getMessage()));
             System.exit(1);
         }
 
-        System.out.println(String.format("Overall accuracy: %.2f", (double) evaluator.overallGood() /
-                (evaluator.overallGood() + evaluator.overallBad()) * 100.));
-        System.out.println(String.format("Known word accuracy: %.2f", (double) evaluator.knownGood() /
-                (evaluator.knownBad() + evaluator.knownGood()) * 100.));
-        System.out.println(String.format("Unknown word accuracy: %.2f", (double) evaluator.unknownGood() /
-                (evaluator.unknownBad() + evaluator.unknownGood()) * 100.));
+        System.out.println(String.format("Overall accuracy: %.2f", (double) result.overallGood() /
+                (result.overallGood() + result.overallBad()) * 100.));
+        System.out.println(String.format("Known word accuracy: %.2f", (double) result.knownGood() /
+                (result.knownBad() + result.knownGood()) * 100.));
+        System.out.println(String.format("Unknown word accuracy: %.2f", (double) result.unknownGood() /
+                (result.unknownBad() + result.unknownGood()) * 100.));
+        System.out.println(String.format("Tokens per second: %.0f", result.tokensPerSecond()));
+
+        if (options.has("per-tag")) {
+            System.out.println(String.format("%-10s %10s %10s", "tag", "precision", "recall"));
+            for (int i = 0; i < result.tags().size(); ++i) {
+                if (!Double.isNaN(result.recall(i)) || !Double.isNaN(result.precision(i)))
+                    System.out.println(String.format("%-10s %10.2f %10.2f", result.tags().get(i),
+                            result.precision(i) * 100., result.recall(i) * 100.));
+            }
+        }
+
+        if (options.has("confusion")) {
+            // Print the non-zero cells outside the diagonal, most frequent confusions first.
+            List<long[]> confusions = new ArrayList<>();
+            for (int gold = 0; gold <= result.tags().size(); ++gold)
+                for (int predicted = 0; predicted <= result.tags().size(); ++predicted)
+                    if (gold != predicted && result.confusion(gold, predicted) != 0)
+                        confusions.add(new long[]{result.confusion(gold, predicted), gold, predicted});
+
+            Collections.sort(confusions, new Comparator<long[]>() {
+                @Override
+                public int compare(long[] o1, long[] o2) {
+                    return Long.compare(o2[0], o1[0]);
+                }
+            });
+
+            System.out.println(String.format("%-10s %-10s %10s", "gold", "predicted", "count"));
+            for (long[] confusion : confusions)
+                System.out.println(String.format("%-10s %-10s %10d", tagName(result, (int) confusion[1]),
+                        tagName(result, (int) confusion[2]), confusion[0]));
+        }
+
+        if (metrics != null)
+            metrics.dump(System.out);
+    }
+
+    private static String tagName(EvaluationResult result, int tag) {
+        // The last index is shared by tags that are not in the model.
+        return tag < result.tags().size() ? result.tags().get(tag) : "?";
     }
 }
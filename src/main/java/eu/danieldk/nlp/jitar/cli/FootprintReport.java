@@ -0,0 +1,89 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.util.Footprint;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map.Entry;
+
+/**
+ * Report the estimated memory footprint of the model and of the word handlers
+ * and language model that are constructed from it. The heap usage that is
+ * measured after loading the model and after constructing the tagger
+ * components is printed as well, to check the estimates.
+ */
+public class FootprintReport {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("FootprintReport model");
+            System.exit(1);
+        }
+
+        long baseline = Util.usedHeap();
+        Model model = Model.readModel(new File(args[0]));
+        long modelHeap = Util.usedHeap();
+
+        LinearInterpolationLM languageModel = Util.newLanguageModel(model, null);
+        DenseLanguageModel denseLanguageModel = new DenseLanguageModel(languageModel);
+        SuffixWordHandler suffixWordHandler = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
+        LexiconWordHandler lexiconWordHandler = new LexiconWordHandler(model.lexicon(), model.uniGrams(),
+                suffixWordHandler);
+        long componentsHeap = Util.usedHeap();
+
+        System.out.println(String.format("%-24s %12s %12s", "structure", "entries", "bytes"));
+        print(model.footprint(), 0);
+        print(lexiconWordHandler.footprint(), 0);
+        print(suffixWordHandler.footprint(), 0);
+        print(languageModel.footprint(), 0);
+        print(new Footprint("dense language model", denseLanguageModel.numberOfTags(),
+                denseLanguageModel.bytes()), 0);
+
+        System.out.println();
+        System.out.println(String.format("Measured heap, model: %d bytes", modelHeap - baseline));
+        System.out.println(String.format("Measured heap, tagger components: %d bytes", componentsHeap - modelHeap));
+
+        System.out.println();
+        System.out.println("Suffix tree nodes per depth:");
+        for (Entry<String, int[]> entry : suffixWordHandler.depthHistograms().entrySet()) {
+            StringBuilder sb = new StringBuilder(String.format("%-10s", entry.getKey()));
+            for (int count : entry.getValue())
+                sb.append(String.format(" %8d", count));
+            System.out.println(sb.toString());
+        }
+    }
+
+    private static void print(Footprint footprint, int depth) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < depth; ++i)
+            name.append("  ");
+        name.append(footprint.name());
+
+        System.out.println(String.format("%-24s %12d %12d", name.toString(), footprint.entries(),
+                footprint.bytes()));
+
+        for (Footprint part : footprint.parts())
+            print(part, depth + 1);
+    }
+}
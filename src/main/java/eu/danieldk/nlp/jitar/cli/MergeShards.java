@@ -0,0 +1,60 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.training.CountShard;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merge count shards, written by <tt>Train --shard</tt>, into a model.
+ */
+public class MergeShards {
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("MergeShards model shard [shard ...]");
+            System.exit(1);
+        }
+
+        List<File> shards = new ArrayList<>();
+        for (int i = 1; i < args.length; ++i)
+            shards.add(new File(args[i]));
+
+        Model model = null;
+        try {
+            model = CountShard.merge(shards);
+        } catch (IOException e) {
+            System.err.println(String.format("Error reading count shards: %s", e.getMessage()));
+            System.exit(1);
+        }
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(args[0]))) {
+            oos.writeObject(model);
+        } catch (IOException e) {
+            System.out.println("Could not write model!");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
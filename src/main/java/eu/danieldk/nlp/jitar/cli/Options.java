@@ -0,0 +1,97 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.cli;
+
+import java.util.*;
+
+/**
+ * Minimal command-line option parsing. Options have the form
+ * <tt>--name</tt> or <tt>--name=value</tt>, all other arguments
+ * are positional.
+ */
+final class Options {
+    private final Map<String, String> d_options;
+
+    private final List<String> d_arguments;
+
+    private Options(Map<String, String> options, List<String> arguments) {
+        d_options = options;
+        d_arguments = arguments;
+    }
+
+    /**
+     * Parse command-line arguments.
+     *
+     * @param args  The arguments.
+     * @param known The names of the options that are accepted.
+     * @return The parsed options.
+     * @throws IllegalArgumentException An option is not known.
+     */
+    public static Options parse(String[] args, String... known) {
+        Set<String> knownOptions = new HashSet<>(Arrays.asList(known));
+        Map<String, String> options = new HashMap<>();
+        List<String> arguments = new ArrayList<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                arguments.add(arg);
+                continue;
+            }
+
+            int sepIndex = arg.indexOf('=');
+            String name = sepIndex == -1 ? arg.substring(2) : arg.substring(2, sepIndex);
+            String value = sepIndex == -1 ? "" : arg.substring(sepIndex + 1);
+
+            if (!knownOptions.contains(name))
+                throw new IllegalArgumentException(String.format("Unknown option: --%s", name));
+
+            options.put(name, value);
+        }
+
+        return new Options(options, arguments);
+    }
+
+    /**
+     * Return the positional arguments.
+     *
+     * @return The positional arguments.
+     */
+    public List<String> arguments() {
+        return d_arguments;
+    }
+
+    public boolean has(String name) {
+        return d_options.containsKey(name);
+    }
+
+    public String get(String name, String defaultValue) {
+        String value = d_options.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = d_options.get(name);
+        if (value == null)
+            return defaultValue;
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Option --%s expects an integer: %s", name, value));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.util.Precision;
+import eu.danieldk.nlp.jitar.evaluation.EvaluationResult;
+import eu.danieldk.nlp.jitar.evaluation.ParallelEvaluator;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.tagger.DenseDecoder;
+import eu.danieldk.nlp.jitar.wordhandler.CompactLexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Evaluate a model with probability tables stored in each {@link Precision},
+ * and report the size of the tables next to the accuracy. The size of the
+ * tables is a proxy for the number of cache misses, which cannot be measured
+ * from within the JVM.
+ */
+public class PrecisionReport {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 3) {
+            System.out.println("PrecisionReport [brown/conll/compiled] model corpus");
+            System.exit(1);
+        }
+
+        Model model = Model.readModel(new File(args[1]));
+        LinearInterpolationLM lm = Util.newLanguageModel(model, null);
+        SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
+
+        System.out.println(String.format("%-8s %12s %12s %8s %10s %10s %10s %10s", "table", "lm bytes",
+                "lex bytes", "ratio", "overall", "known", "unknown", "delta"));
+
+        long referenceBytes = 0;
+        double referenceAccuracy = 0;
+        for (Precision precision : Precision.values()) {
+            DenseLanguageModel denseLM = new DenseLanguageModel(lm, precision);
+            CompactLexiconWordHandler wordHandler = new CompactLexiconWordHandler(model.lexicon(),
+                    model.uniGrams(), swh, precision);
+            DenseDecoder decoder = new DenseDecoder(model, wordHandler, denseLM, Util.BEAM_FACTOR);
+
+            ParallelEvaluator evaluator = new ParallelEvaluator(decoder, model, 1);
+            EvaluationResult result;
+            try (CorpusReader corpusReader = Util.newCorpusReader(args[0], new File(args[2]))) {
+                result = evaluator.process(corpusReader);
+            }
+
+            long bytes = denseLM.bytes() + wordHandler.bytes();
+            double accuracy = percentage(result.overallGood(), result.overallBad());
+            if (precision == Precision.DOUBLE) {
+                referenceBytes = bytes;
+                referenceAccuracy = accuracy;
+            }
+
+            System.out.println(String.format("%-8s %12d %12d %8.2f %10.2f %10.2f %10.2f %+10.2f",
+                    precision.name().toLowerCase(), denseLM.bytes(), wordHandler.bytes(),
+                    bytes / (double) referenceBytes, accuracy,
+                    percentage(result.knownGood(), result.knownBad()),
+                    percentage(result.unknownGood(), result.unknownBad()),
+                    accuracy - referenceAccuracy));
+        }
+    }
+
+    private static double percentage(long good, long bad) {
+        return good + bad == 0 ? 100. : good / (double) (good + bad) * 100.;
+    }
+}
@@ -0,0 +1,157 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read sentences, one per line, from a byte stream. Lines are split into
+ * tokens on ASCII whitespace directly in the byte buffer, so that only the
+ * tokens themselves are decoded to strings. This requires an ASCII-compatible
+ * character encoding, such as UTF-8 or ISO-8859-1.
+ */
+final class SentenceReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream d_in;
+
+    private final Flushable d_output;
+
+    private final Charset d_charset;
+
+    private byte[] d_buffer;
+
+    private int d_pos;
+
+    private int d_limit;
+
+    /**
+     * Construct a sentence reader.
+     *
+     * @param in      The input stream.
+     * @param output  An output that is flushed before the reader blocks on input,
+     *                so that interactive use is not stalled. May be <tt>null</tt>.
+     * @param charset The character encoding of the input.
+     */
+    SentenceReader(InputStream in, Flushable output, Charset charset) {
+        this(in, output, charset, BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a sentence reader with the given initial buffer size. The
+     * buffer grows when a token does not fit.
+     *
+     * @param in         The input stream.
+     * @param output     An output that is flushed before the reader blocks on input.
+     *                   May be <tt>null</tt>.
+     * @param charset    The character encoding of the input.
+     * @param bufferSize The initial buffer size in bytes.
+     */
+    SentenceReader(InputStream in, Flushable output, Charset charset, int bufferSize) {
+        d_in = in;
+        d_output = output;
+        d_charset = charset;
+        d_buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Read the tokens of the next line.
+     *
+     * @return The tokens, or <tt>null</tt> if the input is exhausted.
+     * @throws IOException The input could not be read.
+     */
+    List<String> readSentence() throws IOException {
+        if (d_pos == d_limit && !fill(d_pos))
+            return null;
+
+        List<String> tokens = new ArrayList<>();
+        while (true) {
+            // Skip whitespace until the next token or the end of the line.
+            while (true) {
+                if (d_pos == d_limit && !fill(d_pos))
+                    return tokens;
+
+                byte b = d_buffer[d_pos];
+                if (b == '\n') {
+                    ++d_pos;
+                    return tokens;
+                }
+
+                if (!isSpace(b))
+                    break;
+
+                ++d_pos;
+            }
+
+            int start = d_pos;
+            while (true) {
+                if (d_pos == d_limit) {
+                    boolean more = fill(start);
+                    start = 0;
+                    if (!more)
+                        break;
+                }
+
+                byte b = d_buffer[d_pos];
+                if (b == '\n' || isSpace(b))
+                    break;
+
+                ++d_pos;
+            }
+
+            tokens.add(new String(d_buffer, start, d_pos - start, d_charset));
+        }
+    }
+
+    /**
+     * Read more input, keeping the bytes from the given index. The kept bytes
+     * are moved to the start of the buffer.
+     *
+     * @return <tt>false</tt> if the input is exhausted.
+     */
+    private boolean fill(int keepFrom) throws IOException {
+        int kept = d_limit - keepFrom;
+        if (keepFrom > 0)
+            System.arraycopy(d_buffer, keepFrom, d_buffer, 0, kept);
+        else if (kept == d_buffer.length)
+            d_buffer = Arrays.copyOf(d_buffer, d_buffer.length * 2);
+
+        d_pos -= keepFrom;
+        d_limit = kept;
+
+        if (d_output != null && d_in.available() == 0)
+            d_output.flush();
+
+        int n = d_in.read(d_buffer, d_limit, d_buffer.length - d_limit);
+        if (n == -1)
+            return false;
+
+        d_limit += n;
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0b;
+    }
+}
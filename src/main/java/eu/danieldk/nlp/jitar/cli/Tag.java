@@ -16,65 +16,186 @@
 
 package eu.danieldk.nlp.jitar.cli;
 
-import com.google.common.base.Joiner;
 import eu.danieldk.nlp.jitar.data.Model;
-import eu.danieldk.nlp.jitar.languagemodel.LanguageModel;
-import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
 import eu.danieldk.nlp.jitar.tagger.HMMTagger;
-import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+import eu.danieldk.nlp.jitar.tagger.ParallelTagger;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Tag {
+    private static final int BATCH_SIZE = 4096;
+
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("tag model");
+        Options options = null;
+        try {
+            options = Options.parse(args, "budget", "decoder", "heap", "metrics", "segment", "threads",
+                    "warm-up");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        if (options.arguments().size() != 1) {
+            System.out.println(String.format("tag [--budget=MS] [--decoder=%s] [--heap] [--metrics] [--segment] [--threads=N] [--warm-up[=SECONDS]] model",
+                    Util.DECODERS));
+            System.exit(1);
+        }
+
+        int nThreads = 1;
+        int budget = 0;
+        int warmUpSeconds = 0;
+        try {
+            nThreads = options.getInt("threads", 1);
+            budget = options.getInt("budget", 0);
+            warmUpSeconds = Util.warmUpSeconds(options);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
             System.exit(1);
         }
 
         // Load the model.
         Model model = null;
         try {
-            model = Model.readModel(new File(args[0]));
+            model = Model.readModel(new File(options.arguments().get(0)));
         } catch (IOException e) {
             System.out.println("Unable to read training data!");
             e.printStackTrace();
             System.exit(1);
         }
 
-        // Set up word handlers. The suffix word handler is used as a fallback of the
-        // known word handler.
-        SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
-        WordHandler wh = new LexiconWordHandler(model.lexicon(), model.uniGrams(), swh);
+        boolean heap = options.has("heap");
+        if (heap)
+            reportHeap("model loaded");
+
+        String decoderName = options.get("decoder", Util.DEFAULT_DECODER);
+        boolean segment = options.has("segment");
+        if (!decoderName.equals(Util.DEFAULT_DECODER) && (segment || nThreads > 1 || budget > 0)) {
+            System.out.println(String.format("--budget, --segment and --threads require the %s decoder",
+                    Util.DEFAULT_DECODER));
+            System.exit(1);
+        }
+
+        if (budget > 0 && (segment || nThreads > 1)) {
+            System.out.println("--budget cannot be combined with --segment or --threads");
+            System.exit(1);
+        }
 
-        // Create an n-gram language model.
-        LanguageModel lm = new LinearInterpolationLM(model.uniGrams(),
-                model.biGrams(), model.triGrams());
+        TaggerMetrics metrics = options.has("metrics") ? Util.newMetrics() : null;
 
-        // Initialize a tagger with a beam of 1000.0.
-        HMMTagger tagger = new HMMTagger(model, wh, lm, 1000.0);
+        Decoder decoder = null;
+        try {
+            decoder = Util.newDecoder(decoderName, model, metrics);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
 
-        // Read from the standard input, and print tags for the input to the standard
-        // output.
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String tokens[] = line.split("\\s+");
+        if (heap)
+            reportHeap("decoder constructed");
 
-                List<String> tags =
-                        HMMTagger.highestProbabilitySequence(tagger.tag(Arrays.asList(tokens)),
-                                model).sequence();
+        // Set up tagging first, so that warm-up uses the same code paths.
+        ParallelTagger parallelTagger = null;
+        if (nThreads > 1)
+            parallelTagger = new ParallelTagger((HMMTagger) decoder, nThreads, segment);
+        else if (segment)
+            decoder = segmentedDecoder((HMMTagger) decoder);
+        else if (budget > 0)
+            decoder = budgetDecoder((HMMTagger) decoder, budget * 1000000L);
 
-                System.out.println(Joiner.on(' ').join(tags));
+        try {
+            if (warmUpSeconds > 0) {
+                if (parallelTagger != null)
+                    Util.warmUp(parallelTagger, model, warmUpSeconds, metrics);
+                else
+                    Util.warmUp(decoder, model, warmUpSeconds, metrics);
             }
+
+            TagWriter writer = new TagWriter(System.out, model.numberTags(), Charset.defaultCharset());
+
+            // The decoder does not need the frequencies of the model anymore.
+            model = null;
+
+            if (heap)
+                reportHeap("model released");
+
+            // Read from the standard input, and print tags for the input to the standard
+            // output.
+            SentenceReader reader = new SentenceReader(System.in, writer, Charset.defaultCharset());
+            if (parallelTagger != null)
+                tagParallel(parallelTagger, reader, writer);
+            else
+                tagSequential(decoder, reader, writer);
+
+            writer.flush();
         } catch (IOException ignored) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (parallelTagger != null)
+                parallelTagger.close();
+        }
+
+        if (metrics != null)
+            metrics.dump(System.err);
+    }
+
+    /**
+     * Print the heap usage after garbage collection to the standard error.
+     */
+    private static void reportHeap(String stage) {
+        System.err.println(String.format("Heap after %s: %.1f MB", stage, Util.usedHeap() / (1024. * 1024.)));
+    }
+
+    private static Decoder segmentedDecoder(final HMMTagger tagger) {
+        return new Decoder() {
+            @Override
+            public HMMTagger.Sequence decode(List<String> sentence) {
+                return tagger.decodeSegmented(sentence);
+            }
+        };
+    }
+
+    private static Decoder budgetDecoder(final HMMTagger tagger, final long budgetNanos) {
+        return new Decoder() {
+            @Override
+            public HMMTagger.Sequence decode(List<String> sentence) {
+                return tagger.decode(sentence, budgetNanos);
+            }
+        };
+    }
+
+    static void tagSequential(Decoder decoder, SentenceReader reader, TagWriter writer)
+            throws IOException {
+        List<String> sentence;
+        while ((sentence = reader.readSentence()) != null)
+            writer.write(decoder.decode(sentence));
+    }
+
+    private static void tagParallel(ParallelTagger parallelTagger, SentenceReader reader, TagWriter writer)
+            throws IOException, InterruptedException {
+        List<List<String>> batch = new ArrayList<>(BATCH_SIZE);
+
+        List<String> sentence;
+        while ((sentence = reader.readSentence()) != null) {
+            batch.add(sentence);
+
+            if (batch.size() == BATCH_SIZE) {
+                writeSequences(parallelTagger.tag(batch), writer);
+                batch.clear();
+            }
         }
+
+        writeSequences(parallelTagger.tag(batch), writer);
+    }
+
+    private static void writeSequences(List<HMMTagger.Sequence> sequences, TagWriter writer) throws IOException {
+        for (HMMTagger.Sequence sequence : sequences)
+            writer.write(sequence);
     }
 }
@@ -0,0 +1,102 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Tag the standard input using a running {@link TagServer}. The client has
+ * the same contract as {@link Tag}, but does not load a model itself.
+ */
+public class TagClient {
+    public static void main(String[] args) {
+        Options options = null;
+        try {
+            options = Options.parse(args, "port");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        if (options.arguments().size() != 0) {
+            System.out.println("jitar-tag-client [--port=N]");
+            System.exit(1);
+        }
+
+        int port = TagServer.DEFAULT_PORT;
+        try {
+            port = options.getInt("port", TagServer.DEFAULT_PORT);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        } catch (IOException e) {
+            System.err.println(String.format("Could not connect to a tagger server on port %d: %s", port,
+                    e.getMessage()));
+            System.exit(1);
+            return;
+        }
+
+        try (Socket s = socket) {
+            tag(s, System.in, System.out);
+        } catch (IOException e) {
+            System.err.println(String.format("Error while receiving tags: %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Send sentences to a tagger server and copy the tags that it returns.
+     *
+     * @param socket The connection to the server.
+     * @param in     The sentences, one per line.
+     * @param out    The output for the tags.
+     * @throws IOException The tags could not be received or written.
+     */
+    static void tag(final Socket socket, final InputStream in, OutputStream out) throws IOException {
+        // Send the input from a separate thread, so that tags are received
+        // while the input is still being sent.
+        final OutputStream socketOut = socket.getOutputStream();
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ByteStreams.copy(in, socketOut);
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    System.err.println(String.format("Error while sending input: %s", e.getMessage()));
+                }
+            }
+        });
+        sender.setDaemon(true);
+        sender.start();
+
+        ByteStreams.copy(socket.getInputStream(), out);
+        out.flush();
+    }
+}
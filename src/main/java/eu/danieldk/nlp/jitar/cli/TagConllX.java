@@ -26,69 +26,79 @@ import eu.danieldk.nlp.conllx.Token;
 import eu.danieldk.nlp.conllx.reader.CONLLReader;
 import eu.danieldk.nlp.conllx.writer.CONLLWriter;
 import eu.danieldk.nlp.jitar.data.Model;
-import eu.danieldk.nlp.jitar.languagemodel.LanguageModel;
-import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
-import eu.danieldk.nlp.jitar.tagger.HMMTagger;
-import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
-import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class TagConllX {
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("jitar-tag-conlx model");
+        Options options = null;
+        try {
+            options = Options.parse(args, "decoder", "metrics", "passthrough");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        if (options.arguments().size() != 1) {
+            System.out.println(String.format("jitar-tag-conlx [--decoder=%s] [--metrics] [--passthrough] model", Util.DECODERS));
             System.exit(1);
         }
 
         // Load the model.
         Model model = null;
         try {
-            model = Model.readModel(new File(args[0]));
+            model = Model.readModel(new File(options.arguments().get(0)));
         } catch (IOException e) {
             System.out.println("Unable to read training data!");
             e.printStackTrace();
             System.exit(1);
         }
 
-        // Set up word handlers. The suffix word handler is used as a fallback of the
-        // known word handler.
-        SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
-        WordHandler wh = new LexiconWordHandler(model.lexicon(), model.uniGrams(), swh);
-
-        // Create an n-gram language model.
-        LanguageModel lm = new LinearInterpolationLM(model.uniGrams(),
-                model.biGrams(), model.triGrams());
-
-        // Initialize a tagger with a beam of 1000.0.
-        HMMTagger tagger = new HMMTagger(model, wh, lm, 1000.0);
-
-        try (CONLLReader reader = new CONLLReader(new BufferedReader(new InputStreamReader(System.in)))) {
-            try (CONLLWriter writer = new CONLLWriter(new BufferedWriter(new OutputStreamWriter(System.out)))) {
-                Sentence sentence;
-                while ((sentence = reader.readSentence()) != null) {
-                    List<String> tokens = new ArrayList<>(sentence.getTokens().size());
-                    for (Token token : sentence.getTokens()) {
-                        tokens.add(token.getForm().or("_"));
-                    }
-
-                    List<String> tags = HMMTagger.highestProbabilitySequence(tagger.tag(tokens), model).sequence();
+        TaggerMetrics metrics = options.has("metrics") ? Util.newMetrics() : null;
 
-                    ImmutableList.Builder<Token> taggedtokens = ImmutableList.builder();
+        Decoder decoder = null;
+        try {
+            decoder = Util.newDecoder(options.get("decoder", Util.DEFAULT_DECODER), model, metrics);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
 
-                    for (int i = 0; i < tags.size(); i++) {
-                        Token origToken = sentence.getTokens().get(i);
-                        Token newToken = new CONLLToken(origToken.getID(), origToken.getForm(), origToken.getLemma(),
-                                origToken.getCoarsePOSTag(), Optional.of(tags.get(i)), origToken.getFeatures(),
-                                origToken.getHead(), origToken.getDepRel(), origToken.getPHead(), origToken.getPDepRel());
-                        taggedtokens.add(newToken);
+        if (options.has("passthrough")) {
+            // Only replace the POS column of the input lines.
+            TagWriter writer = new TagWriter(System.out, model.numberTags(), Charset.defaultCharset());
+            new CONLLPassthrough(System.in, writer, Charset.defaultCharset()).tag(decoder);
+            writer.flush();
+        } else {
+            try (CONLLReader reader = new CONLLReader(new BufferedReader(new InputStreamReader(System.in)))) {
+                try (CONLLWriter writer = new CONLLWriter(new BufferedWriter(new OutputStreamWriter(System.out)))) {
+                    Sentence sentence;
+                    while ((sentence = reader.readSentence()) != null) {
+                        List<String> tokens = new ArrayList<>(sentence.getTokens().size());
+                        for (Token token : sentence.getTokens()) {
+                            tokens.add(token.getForm().or("_"));
+                        }
+
+                        List<String> tags = decoder.decode(tokens).sequence();
+
+                        ImmutableList.Builder<Token> taggedtokens = ImmutableList.builder();
+
+                        for (int i = 0; i < tags.size(); i++) {
+                            Token origToken = sentence.getTokens().get(i);
+                            Token newToken = new CONLLToken(origToken.getID(), origToken.getForm(), origToken.getLemma(),
+                                    origToken.getCoarsePOSTag(), Optional.of(tags.get(i)), origToken.getFeatures(),
+                                    origToken.getHead(), origToken.getDepRel(), origToken.getPHead(), origToken.getPDepRel());
+                            taggedtokens.add(newToken);
+                        }
+
+                        writer.write(new SimpleSentence(taggedtokens.build()));
                     }
-
-                    writer.write(new SimpleSentence(taggedtokens.build()));
                 }
             }
         }
@@ -100,13 +110,14 @@ public class TagConllX {
             while ((line = reader.readLine()) != null) {
                 String tokens[] = line.split("\\s+");
 
-                List<String> tags =
-                        HMMTagger.highestProbabilitySequence(tagger.tag(Arrays.asList(tokens)),
-                                model).sequence();
+                List<String> tags = decoder.decode(Arrays.asList(tokens)).sequence();
 
                 System.out.println(Joiner.on(' ').join(tags));
             }
         } catch (IOException ignored) {
         }
+
+        if (metrics != null)
+            metrics.dump(System.err);
     }
 }
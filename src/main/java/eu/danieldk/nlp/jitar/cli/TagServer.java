@@ -0,0 +1,162 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keep a tagger resident, so that short tagging jobs do not pay for JVM
+ * startup and model loading. The server listens on a port of the loopback
+ * interface. Each connection follows the same contract as {@link Tag}: one
+ * sentence per line is read, and a line of tags is written for each sentence.
+ * The output of a connection is complete when the client closes its side
+ * of the connection. Connections are served concurrently, sharing the same
+ * decoder.
+ * <p>
+ * {@link TagClient} can be used to tag the standard input with a running server.
+ * With <tt>--warm-up</tt>, the decoder is warmed up (see
+ * {@link eu.danieldk.nlp.jitar.tagger.WarmUp}) before the server starts listening.
+ */
+public class TagServer {
+    public static final int DEFAULT_PORT = 4712;
+
+    private static final int DEFAULT_THREADS = 4;
+
+    public static void main(String[] args) {
+        Options options = null;
+        try {
+            options = Options.parse(args, "decoder", "port", "threads", "warm-up");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        if (options.arguments().size() != 1) {
+            System.out.println(String.format("jitar-tag-server [--decoder=%s] [--port=N] [--threads=N] [--warm-up[=SECONDS]] model",
+                    Util.DECODERS));
+            System.exit(1);
+        }
+
+        int port = DEFAULT_PORT;
+        int nThreads = DEFAULT_THREADS;
+        int warmUpSeconds = 0;
+        try {
+            warmUpSeconds = Util.warmUpSeconds(options);
+            port = options.getInt("port", DEFAULT_PORT);
+            nThreads = options.getInt("threads", DEFAULT_THREADS);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        Model model = null;
+        try {
+            model = Model.readModel(new File(options.arguments().get(0)));
+        } catch (IOException e) {
+            System.out.println("Unable to read training data!");
+            e.printStackTrace();
+            System.exit(1);
+        }
+
+        Decoder decoder = null;
+        try {
+            decoder = Util.newDecoder(options.get("decoder", Util.DEFAULT_DECODER), model, null);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        // Warm up before listening, so that the port only accepts connections
+        // once the tagger is ready.
+        if (warmUpSeconds > 0)
+            Util.warmUp(decoder, model, warmUpSeconds, null);
+
+        Map<Integer, String> numberTags = model.numberTags();
+
+        // The decoder does not need the frequencies of the model anymore.
+        model = null;
+
+        ServerSocket serverSocket = null;
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            System.out.println(String.format("Could not listen on port %d: %s", port, e.getMessage()));
+            System.exit(1);
+        }
+
+        try (ServerSocket s = serverSocket) {
+            System.err.println(String.format("Listening on %s:%d", s.getInetAddress().getHostAddress(),
+                    s.getLocalPort()));
+            serve(s, decoder, numberTags, nThreads);
+        } catch (IOException e) {
+            System.err.println(String.format("Could not accept connection: %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Tag the sentences of each connection that is accepted, until accepting
+     * a connection fails, for instance because the server socket is closed.
+     *
+     * @param serverSocket The server socket.
+     * @param decoder      The decoder.
+     * @param numberTags   The tags of the model, by tag number.
+     * @param nThreads     The number of connections that are served concurrently.
+     * @throws IOException A connection could not be accepted.
+     */
+    static void serve(ServerSocket serverSocket, final Decoder decoder,
+                      final Map<Integer, String> numberTags, int nThreads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        tagConnection(socket, decoder, numberTags);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void tagConnection(Socket socket, Decoder decoder, Map<Integer, String> numberTags) {
+        try (Socket s = socket) {
+            TagWriter writer = new TagWriter(s.getOutputStream(), numberTags, Charset.defaultCharset());
+            SentenceReader reader = new SentenceReader(s.getInputStream(), writer, Charset.defaultCharset());
+            Tag.tagSequential(decoder, reader, writer);
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            System.err.println(String.format("Error while tagging for %s: %s", socket.getRemoteSocketAddress(),
+                    e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write tag sequences, one sentence per line, to a byte stream. The tags are
+ * encoded once, when the writer is constructed, and output is collected in
+ * a large buffer.
+ */
+final class TagWriter implements Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream d_out;
+
+    private final byte[][] d_tags;
+
+    private final byte[] d_newline;
+
+    private final byte[] d_buffer;
+
+    private int d_pos;
+
+    /**
+     * Construct a tag writer.
+     *
+     * @param out        The output stream.
+     * @param numberTags The tags of the model, by tag number.
+     * @param charset    The character encoding of the output.
+     */
+    TagWriter(OutputStream out, Map<Integer, String> numberTags, Charset charset) {
+        this(out, numberTags, charset, BUFFER_SIZE);
+    }
+
+    /**
+     * Construct a tag writer with the given buffer size.
+     *
+     * @param out        The output stream.
+     * @param numberTags The tags of the model, by tag number.
+     * @param charset    The character encoding of the output.
+     * @param bufferSize The buffer size in bytes.
+     */
+    TagWriter(OutputStream out, Map<Integer, String> numberTags, Charset charset, int bufferSize) {
+        d_out = out;
+
+        int maxTag = -1;
+        for (Integer tag : numberTags.keySet())
+            maxTag = Math.max(maxTag, tag);
+
+        // Tags are stored without capitalization information.
+        d_tags = new byte[maxTag + 1][];
+        for (Map.Entry<Integer, String> entry : numberTags.entrySet())
+            d_tags[entry.getKey()] = entry.getValue().substring(2).getBytes(charset);
+
+        d_newline = System.lineSeparator().getBytes(charset);
+        d_buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Write the tags of a sequence as a line.
+     *
+     * @param sequence The sequence.
+     * @throws IOException The output could not be written.
+     */
+    void write(HMMTagger.Sequence sequence) throws IOException {
+        List<Integer> tagNumbers = sequence.tagNumbers();
+
+        int start = Common.DEFAULT_START_MARKER_TOKENS.size();
+        int end = tagNumbers.size() - Common.DEFAULT_END_MARKER_TOKENS.size();
+        for (int i = start; i < end; ++i) {
+            if (i != start)
+                write((byte) ' ');
+            writeTag(tagNumbers.get(i));
+        }
+
+        write(d_newline, 0, d_newline.length);
+    }
+
+    /**
+     * Write a tag, without capitalization information.
+     *
+     * @param tagNumber The tag number.
+     * @throws IOException The output could not be written.
+     */
+    void writeTag(int tagNumber) throws IOException {
+        byte[] tag = d_tags[tagNumber];
+        write(tag, 0, tag.length);
+    }
+
+    /**
+     * Write bytes unchanged.
+     *
+     * @param bytes  The array with the bytes to write.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @throws IOException The output could not be written.
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        if (d_pos + length > d_buffer.length)
+            drain();
+
+        if (length > d_buffer.length)
+            d_out.write(bytes, offset, length);
+        else {
+            System.arraycopy(bytes, offset, d_buffer, d_pos, length);
+            d_pos += length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        d_out.write(d_buffer, 0, d_pos);
+        d_pos = 0;
+        d_out.flush();
+    }
+
+    /**
+     * Write a single byte unchanged.
+     *
+     * @param b The byte.
+     * @throws IOException The output could not be written.
+     */
+    void write(byte b) throws IOException {
+        if (d_pos == d_buffer.length)
+            drain();
+
+        d_buffer[d_pos++] = b;
+    }
+
+    private void drain() throws IOException {
+        d_out.write(d_buffer, 0, d_pos);
+        d_pos = 0;
+    }
+}
@@ -17,36 +17,67 @@
 package eu.danieldk.nlp.jitar.cli;
 
 import eu.danieldk.nlp.jitar.corpus.CorpusReader;
-import eu.danieldk.nlp.jitar.corpus.TaggedToken;
 import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.training.CountShard;
+import eu.danieldk.nlp.jitar.training.ExternalFrequenciesCollector;
 import eu.danieldk.nlp.jitar.training.FrequenciesCollector;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 public class Train {
     public static void main(String[] args) throws IOException {
-        if (args.length != 3) {
-            System.out.println("Train [brown/conll] corpus model");
+        Options options = null;
+        try {
+            options = Options.parse(args, "shard", "spill", "temp-dir");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
             System.exit(1);
         }
 
-        FrequenciesCollector frequenciesCollector = new FrequenciesCollector();
+        List<String> arguments = options.arguments();
+        if (arguments.size() != 3) {
+            System.out.println("Train [--shard] [--spill=ENTRIES] [--temp-dir=DIR] [brown/conll/compiled] corpus model");
+            System.exit(1);
+        }
 
-        try (CorpusReader corpusReader = Util.newCorpusReader(args[0], new File(args[1]))) {
-            frequenciesCollector.process(corpusReader);
+        int maxEntries = 0;
+        try {
+            maxEntries = options.getInt("spill", 0);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+
+        Model model = null;
+        try {
+            model = maxEntries > 0 ?
+                    trainExternal(arguments, maxEntries, options.has("temp-dir") ?
+                            new File(options.get("temp-dir", "")) : null) :
+                    train(arguments);
         } catch (IOException e) {
             System.err.println(String.format("Error reading corpus: %s", e.getMessage()));
             System.exit(1);
         }
 
-        Model model = frequenciesCollector.model();
+        // With --shard, the frequencies are written as a count shard, to be merged
+        // with other shards by MergeShards.
+        if (options.has("shard")) {
+            try {
+                CountShard.write(model, new File(arguments.get(2)));
+            } catch (IOException e) {
+                System.out.println("Could not write count shard!");
+                e.printStackTrace();
+                System.exit(1);
+            }
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(args[2]))) {
+            return;
+        }
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(arguments.get(2)))) {
             oos.writeObject(model);
         } catch (IOException e) {
             System.out.println("Could not write model!");
@@ -54,4 +85,30 @@ public class Train {
             System.exit(1);
         }
     }
+
+    private static Model train(List<String> arguments) throws IOException {
+        FrequenciesCollector frequenciesCollector = new FrequenciesCollector();
+
+        try (CorpusReader corpusReader = Util.newCorpusReader(arguments.get(0), new File(arguments.get(1)))) {
+            frequenciesCollector.process(corpusReader);
+        }
+
+        return frequenciesCollector.model();
+    }
+
+    /**
+     * Train without keeping all frequencies in memory while the corpus is read,
+     * entries are written to runs in the temporary directory when more than
+     * <i>maxEntries</i> are buffered.
+     */
+    private static Model trainExternal(List<String> arguments, int maxEntries, File tempDir) throws IOException {
+        try (ExternalFrequenciesCollector frequenciesCollector =
+                     new ExternalFrequenciesCollector(tempDir, maxEntries)) {
+            try (CorpusReader corpusReader = Util.newCorpusReader(arguments.get(0), new File(arguments.get(1)))) {
+                frequenciesCollector.process(corpusReader);
+            }
+
+            return frequenciesCollector.model();
+        }
+    }
 }
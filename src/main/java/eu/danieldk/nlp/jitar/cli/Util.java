@@ -18,12 +18,23 @@ package eu.danieldk.nlp.jitar.cli;
 
 import eu.danieldk.nlp.jitar.corpus.BrownCorpusReader;
 import eu.danieldk.nlp.jitar.corpus.CONLLCorpusReader;
+import eu.danieldk.nlp.jitar.corpus.Codecs;
+import eu.danieldk.nlp.jitar.corpus.CompiledCorpus;
 import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
+import eu.danieldk.nlp.jitar.tagger.*;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
 
+import javax.management.JMException;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 
 /**
  * Some helpful methods.
@@ -31,8 +42,35 @@ import java.io.IOException;
  * @author Daniël de Kok &lt;me@danieldk.eu&gt;
  */
 class Util {
+    public static final double BEAM_FACTOR = 1000.0;
+
+    /**
+     * The decoder that is used when no decoder is specified.
+     */
+    public static final String DEFAULT_DECODER = "trigram";
+
+    /**
+     * Names of the decoders that can be constructed with {@link #newDecoder(String, Model, TaggerMetrics)}.
+     */
+    public static final String DECODERS = "trigram|bigram|dense|astar|coarse-to-fine|greedy[:N]";
+
+    /**
+     * The lookahead of the greedy decoder when it is not specified.
+     */
+    public static final int DEFAULT_LOOKAHEAD = 1;
+
+    /**
+     * The maximum warm-up time when <tt>--warm-up</tt> is given without a value.
+     */
+    public static final int DEFAULT_WARM_UP_SECONDS = 30;
+
     public static CorpusReader newCorpusReader(String corpusType, File corpus) throws IOException {
-        return newCorpusReader(corpusType, new BufferedReader(new FileReader(corpus)));
+        // Compiled corpora are memory-mapped rather than read as text.
+        if (corpusType.equals("compiled"))
+            return CompiledCorpus.open(corpus).reader();
+
+        // Compressed corpora are decompressed on a separate thread.
+        return newCorpusReader(corpusType, new BufferedReader(new InputStreamReader(Codecs.open(corpus))));
     }
 
     public static CorpusReader newCorpusReader(String corpusType, BufferedReader reader) throws IOException {
@@ -50,6 +88,188 @@ class Util {
         return corpusReader;
     }
 
+    /**
+     * Construct a tagger with the default settings.
+     *
+     * @param model   The model.
+     * @param metrics Metrics to record tagging statistics in, may be <tt>null</tt>.
+     * @return The tagger.
+     */
+    public static HMMTagger newTagger(Model model, TaggerMetrics metrics) {
+        // Initialize a tagger with a beam of 1000.0.
+        return new HMMTagger(model, newWordHandler(model, metrics), newLanguageModel(model, metrics),
+                BEAM_FACTOR, metrics);
+    }
+
+    /**
+     * Construct a tagger with the default settings, that does not retain the
+     * lexicon and n-gram frequencies of the model. The frequencies can be
+     * garbage collected when the caller drops its reference to the model.
+     *
+     * @param model   The model.
+     * @param metrics Metrics to record tagging statistics in, may be <tt>null</tt>.
+     * @return The tagger.
+     */
+    public static HMMTagger newRuntimeTagger(Model model, TaggerMetrics metrics) {
+        return new HMMTagger(model.withoutCounts(), newWordHandler(model, metrics), newLanguageModel(model, metrics),
+                BEAM_FACTOR, metrics);
+    }
+
+    /**
+     * Construct a decoder with the default settings. Only the word handler
+     * records metrics, unless the trigram decoder is used. The lookahead of
+     * the greedy decoder can be given as <tt>greedy:N</tt>. Except for the
+     * coarse-to-fine decoder, the decoders do not retain the frequencies of
+     * the model.
+     *
+     * @param name    The name of the decoder, one of {@link #DECODERS}.
+     * @param model   The model.
+     * @param metrics Metrics to record tagging statistics in, may be <tt>null</tt>.
+     * @return The decoder.
+     * @throws IllegalArgumentException The decoder is not known.
+     */
+    public static Decoder newDecoder(String name, Model model, TaggerMetrics metrics) {
+        if (name.equals("greedy") || name.startsWith("greedy:")) {
+            int lookahead = DEFAULT_LOOKAHEAD;
+            if (name.startsWith("greedy:")) {
+                try {
+                    lookahead = Integer.parseInt(name.substring("greedy:".length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid lookahead: %s", name));
+                }
+            }
+
+            return new GreedyDecoder(model.withoutCounts(), newWordHandler(model, metrics),
+                    new DenseLanguageModel(newLanguageModel(model, null)), lookahead);
+        }
+
+        switch (name) {
+            case "trigram":
+                return newRuntimeTagger(model, metrics);
+            case "bigram":
+                return new BiGramDecoder(model.withoutCounts(), newWordHandler(model, metrics),
+                        new DenseLanguageModel(newLanguageModel(model, null)), BEAM_FACTOR);
+            case "dense":
+                return new DenseDecoder(model.withoutCounts(), newWordHandler(model, metrics),
+                        new DenseLanguageModel(newLanguageModel(model, null)), BEAM_FACTOR);
+            case "astar":
+                return new AStarDecoder(model.withoutCounts(), newWordHandler(model, metrics), newLanguageModel(model, null));
+            case "coarse-to-fine":
+                return new CoarseToFineDecoder(newTagger(model, metrics));
+            default:
+                throw new IllegalArgumentException(String.format("Unknown decoder: %s", name));
+        }
+    }
+
+    /**
+     * Construct the word handler with the default settings.
+     *
+     * @param model   The model.
+     * @param metrics Metrics to record lookups in, may be <tt>null</tt>.
+     * @return The word handler.
+     */
+    public static WordHandler newWordHandler(Model model, TaggerMetrics metrics) {
+        // Set up word handlers. The suffix word handler is used as a fallback of the
+        // known word handler.
+        SuffixWordHandler swh = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
+        return new LexiconWordHandler(model.lexicon(), model.uniGrams(), swh, metrics);
+    }
+
+    /**
+     * Construct an n-gram language model.
+     *
+     * @param model   The model.
+     * @param metrics Metrics to record lookups in, may be <tt>null</tt>.
+     * @return The language model.
+     */
+    public static LinearInterpolationLM newLanguageModel(Model model, TaggerMetrics metrics) {
+        return new LinearInterpolationLM(model.uniGrams(), model.biGrams(), model.triGrams(), metrics);
+    }
+
+    /**
+     * Create tagging metrics and make them available through JMX.
+     *
+     * @return The metrics.
+     */
+    public static TaggerMetrics newMetrics() {
+        TaggerMetrics metrics = new TaggerMetrics();
+
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            System.err.println(String.format("Could not register metrics with JMX: %s", e.getMessage()));
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Measure the heap usage. Garbage collection is requested a few times first,
+     * so that the result approximates the size of the reachable objects.
+     *
+     * @return The used heap in bytes.
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Get the maximum warm-up time from the <tt>--warm-up[=SECONDS]</tt> option.
+     *
+     * @param options The command-line options.
+     * @return The maximum warm-up time in seconds, 0 if warm-up was not requested.
+     */
+    public static int warmUpSeconds(Options options) {
+        if (!options.has("warm-up"))
+            return 0;
+
+        if (options.get("warm-up", "").isEmpty())
+            return DEFAULT_WARM_UP_SECONDS;
+
+        return options.getInt("warm-up", DEFAULT_WARM_UP_SECONDS);
+    }
+
+    /**
+     * Warm up a decoder, see {@link WarmUp}, and report readiness to the
+     * standard error.
+     *
+     * @param decoder    The decoder.
+     * @param model      The model to draw warm-up sentences from.
+     * @param maxSeconds The maximum warm-up time in seconds.
+     * @param metrics    Metrics that are reset after the warm-up, may be <tt>null</tt>.
+     */
+    public static void warmUp(Decoder decoder, Model model, int maxSeconds, TaggerMetrics metrics) {
+        reportWarmUp(new WarmUp(model).run(decoder, maxSeconds * 1000000000L), metrics);
+    }
+
+    /**
+     * Warm up a parallel tagger, see {@link WarmUp}, and report readiness to
+     * the standard error.
+     *
+     * @param tagger     The parallel tagger.
+     * @param model      The model to draw warm-up sentences from.
+     * @param maxSeconds The maximum warm-up time in seconds.
+     * @param metrics    Metrics that are reset after the warm-up, may be <tt>null</tt>.
+     * @throws InterruptedException The thread was interrupted while waiting for the tagger.
+     */
+    public static void warmUp(ParallelTagger tagger, Model model, int maxSeconds, TaggerMetrics metrics)
+            throws InterruptedException {
+        reportWarmUp(new WarmUp(model).run(tagger, maxSeconds * 1000000000L), metrics);
+    }
+
+    private static void reportWarmUp(WarmUp.Result result, TaggerMetrics metrics) {
+        if (metrics != null)
+            metrics.reset();
+
+        System.err.println(String.format("%s after %d warm-up rounds (%.1f s), %.0f tokens/s",
+                result.isSteady() ? "Ready" : "Throughput not steady", result.rounds(), result.nanos() / 1e9,
+                result.tokensPerSecond()));
+    }
+
     private Util() {
     }
 }
@@ -25,10 +25,18 @@ import java.util.List;
 /**
  * This class implements a corpus reader for Brown-style corpera that are
  * stored in a single file.
+ * <p>
+ * Tags are interned in a tag table, so that all tokens with the same tag
+ * share the same string. Sentences can also be read into a {@link TokenBuffer},
+ * which does not allocate strings for words and tags.
  */
-public class BrownCorpusReader implements CorpusReader {
+public class BrownCorpusReader implements FlyweightCorpusReader {
     private final BufferedReader reader;
 
+    private final StringTable tagTable;
+
+    private final TokenBuffer buffer;
+
     boolean decapitalizeFirstWord;
 
     /**
@@ -38,16 +46,21 @@ public class BrownCorpusReader implements CorpusReader {
      * @param decapitalizeFirstWord If true, the first word of each sentence is decapitalized.
      */
     public BrownCorpusReader(BufferedReader reader, boolean decapitalizeFirstWord) {
-        this.reader = reader;
-        this.decapitalizeFirstWord = decapitalizeFirstWord;
+        this(reader, decapitalizeFirstWord, new StringTable());
     }
 
-    private static String replaceCharAt(String str, int pos, char c) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(str.substring(0, pos));
-        sb.append(c);
-        sb.append(str.substring(pos + 1));
-        return sb.toString();
+    /**
+     * Construct a Brown-style corpus reader that interns tags in the given table.
+     *
+     * @param reader                Reader over the corpus.
+     * @param decapitalizeFirstWord If true, the first word of each sentence is decapitalized.
+     * @param tagTable              The tag table.
+     */
+    public BrownCorpusReader(BufferedReader reader, boolean decapitalizeFirstWord, StringTable tagTable) {
+        this.reader = reader;
+        this.decapitalizeFirstWord = decapitalizeFirstWord;
+        this.tagTable = tagTable;
+        this.buffer = new TokenBuffer();
     }
 
     @Override
@@ -57,43 +70,82 @@ public class BrownCorpusReader implements CorpusReader {
 
     @Override
     public List<TaggedToken> readSentence() throws IOException {
+        if (!readSentence(buffer))
+            return null;
+
+        List<TaggedToken> sentence = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); ++i)
+            sentence.add(new TaggedToken(buffer.wordString(i), tagTable.string(buffer.tag(i))));
+
+        return sentence;
+    }
+
+    @Override
+    public boolean readSentence(TokenBuffer buffer) throws IOException {
         String line;
         while ((line = reader.readLine()) != null) {
-            line = line.trim();
-
-            if (line.length() == 0)
+            buffer.clear();
+            int start = buffer.append(line);
+            int end = start + line.length();
+            char[] chars = buffer.chars();
+
+            // Trim the line, as String.trim() does.
+            while (start < end && chars[start] <= ' ')
+                ++start;
+            while (end > start && chars[end - 1] <= ' ')
+                --end;
+
+            if (start == end)
                 continue;
 
-            List<TaggedToken> sentence = new ArrayList<>();
+            while (start < end) {
+                int tokenEnd = start;
+                while (tokenEnd < end && !isSeparator(chars[tokenEnd]))
+                    ++tokenEnd;
 
-            String[] lineParts = line.split("\\s+");
-            for (int i = 0; i < lineParts.length; ++i) {
-                String wordTag = lineParts[i];
+                addToken(buffer, chars, start, tokenEnd);
+
+                start = tokenEnd;
+                while (start < end && isSeparator(chars[start]))
+                    ++start;
+            }
 
-                // Get the word and tag.
-                int sepIndex = wordTag.lastIndexOf('/');
+            return true;
+        }
+
+        return false;
+    }
 
-                if (sepIndex == -1)
-                    throw new IOException(String.format("Tag is missing in '%s'", wordTag));
+    @Override
+    public StringTable tagTable() {
+        return tagTable;
+    }
 
-                String word = wordTag.substring(0, sepIndex);
-                String tag = wordTag.substring(sepIndex + 1);
+    private void addToken(TokenBuffer buffer, char[] chars, int start, int end) throws IOException {
+        // Get the word and tag.
+        int sepIndex = end - 1;
+        while (sepIndex >= start && chars[sepIndex] != '/')
+            --sepIndex;
 
-                if (word.length() == 0)
-                    throw new IOException(String.format("Zero-length word in '%s'", wordTag));
+        if (sepIndex < start)
+            throw new IOException(String.format("Tag is missing in '%s'", new String(chars, start, end - start)));
 
-                if (tag.length() == 0)
-                    throw new IOException(String.format("Zero-length tag in '%s'", wordTag));
+        if (sepIndex == start)
+            throw new IOException(String.format("Zero-length word in '%s'", new String(chars, start, end - start)));
 
-                if (decapitalizeFirstWord && i == 0)
-                    word = replaceCharAt(word, 0, Character.toLowerCase(word.charAt(0)));
+        if (sepIndex == end - 1)
+            throw new IOException(String.format("Zero-length tag in '%s'", new String(chars, start, end - start)));
 
-                sentence.add(new TaggedToken(word, tag));
-            }
+        if (decapitalizeFirstWord && buffer.size() == 0)
+            chars[start] = Character.toLowerCase(chars[start]);
 
-            return sentence;
-        }
+        buffer.add(start, sepIndex, tagTable.id(chars, sepIndex + 1, end));
+    }
 
-        return null;
+    /**
+     * Whitespace, as matched by <i>\\s</i> in regular expressions.
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
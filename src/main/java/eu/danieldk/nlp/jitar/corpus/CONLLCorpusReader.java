@@ -16,18 +16,26 @@
 
 package eu.danieldk.nlp.jitar.corpus;
 
-import com.google.common.base.Splitter;
+import com.google.common.base.CharMatcher;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class CONLLCorpusReader implements CorpusReader {
-    private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults().omitEmptyStrings();
+public class CONLLCorpusReader implements FlyweightCorpusReader {
+    private static final CharMatcher WHITESPACE = CharMatcher.WHITESPACE;
+
+    private static final int WORD_COLUMN = 1;
+
+    private static final int TAG_COLUMN = 4;
 
     private final BufferedReader reader;
 
+    private final StringTable tagTable;
+
+    private final TokenBuffer buffer;
+
     boolean decapitalizeFirstWord;
 
     /**
@@ -37,16 +45,21 @@ public class CONLLCorpusReader implements CorpusReader {
      * @param decapitalizeFirstWord If true, the first word of each sentence is decapitalized.
      */
     public CONLLCorpusReader(BufferedReader reader, boolean decapitalizeFirstWord) {
-        this.reader = reader;
-        this.decapitalizeFirstWord = decapitalizeFirstWord;
+        this(reader, decapitalizeFirstWord, new StringTable());
     }
 
-    private static String replaceCharAt(String str, int pos, char c) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(str.substring(0, pos));
-        sb.append(c);
-        sb.append(str.substring(pos + 1));
-        return sb.toString();
+    /**
+     * Construct a CONLL corpus reader that interns tags in the given table.
+     *
+     * @param reader                Reader over the corpus.
+     * @param decapitalizeFirstWord If true, the first word of each sentence is decapitalized.
+     * @param tagTable              The tag table.
+     */
+    public CONLLCorpusReader(BufferedReader reader, boolean decapitalizeFirstWord, StringTable tagTable) {
+        this.reader = reader;
+        this.decapitalizeFirstWord = decapitalizeFirstWord;
+        this.tagTable = tagTable;
+        this.buffer = new TokenBuffer();
     }
 
     @Override
@@ -56,32 +69,74 @@ public class CONLLCorpusReader implements CorpusReader {
 
     @Override
     public List<TaggedToken> readSentence() throws IOException {
-        List<TaggedToken> sentence = new ArrayList<>();
+        if (!readSentence(buffer))
+            return null;
+
+        List<TaggedToken> sentence = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); ++i)
+            sentence.add(new TaggedToken(buffer.wordString(i), tagTable.string(buffer.tag(i))));
+
+        return sentence;
+    }
+
+    @Override
+    public boolean readSentence(TokenBuffer buffer) throws IOException {
+        buffer.clear();
 
         String line;
         while ((line = reader.readLine()) != null) {
-            List<String> parts = TAB_SPLITTER.splitToList(line);
+            int offset = buffer.append(line);
+            int end = offset + line.length();
+            char[] chars = buffer.chars();
+
+            // Split on tabs, trimming columns and skipping empty columns.
+            int nColumns = 0;
+            int wordStart = 0, wordEnd = 0, tagStart = 0, tagEnd = 0;
+            for (int columnStart = offset; columnStart <= end; ) {
+                int columnEnd = columnStart;
+                while (columnEnd < end && chars[columnEnd] != '\t')
+                    ++columnEnd;
+
+                int start = columnStart, stop = columnEnd;
+                while (start < stop && WHITESPACE.matches(chars[start]))
+                    ++start;
+                while (stop > start && WHITESPACE.matches(chars[stop - 1]))
+                    --stop;
+
+                if (start != stop) {
+                    if (nColumns == WORD_COLUMN) {
+                        wordStart = start;
+                        wordEnd = stop;
+                    } else if (nColumns == TAG_COLUMN) {
+                        tagStart = start;
+                        tagEnd = stop;
+                    }
+
+                    ++nColumns;
+                }
+
+                columnStart = columnEnd + 1;
+            }
 
             // We are done with this sentence.
-            if (parts.size() == 0) {
-                return sentence;
-            }
+            if (nColumns == 0)
+                return true;
 
-            if (parts.size() < 5)
+            if (nColumns < 5)
                 throw new IOException(String.format("Line has fewer than five columns: %s", line));
 
-            String word = parts.get(1);
-            if (decapitalizeFirstWord && sentence.isEmpty())
-                word = replaceCharAt(word, 0, Character.toLowerCase(word.charAt(0)));
+            if (decapitalizeFirstWord && buffer.size() == 0)
+                chars[wordStart] = Character.toLowerCase(chars[wordStart]);
 
-            sentence.add(new TaggedToken(word, parts.get(4)));
+            buffer.add(wordStart, wordEnd, tagTable.id(chars, tagStart, tagEnd));
         }
 
         // If the the file does not end with a blank line, we have left-overs.
-        if (!sentence.isEmpty()) {
-            return sentence;
-        }
+        return buffer.size() != 0;
+    }
 
-        return null;
+    @Override
+    public StringTable tagTable() {
+        return tagTable;
     }
 }
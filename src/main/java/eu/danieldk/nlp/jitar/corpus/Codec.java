@@ -0,0 +1,45 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A decompression codec for corpus files. Codecs other than gzip can be
+ * added by registering an implementation as a {@link java.util.ServiceLoader}
+ * service in <tt>META-INF/services/eu.danieldk.nlp.jitar.corpus.Codec</tt>.
+ */
+public interface Codec {
+    /**
+     * Return the file name extension of files compressed with this codec,
+     * including the dot, e.g. <tt>.gz</tt>.
+     *
+     * @return The extension.
+     */
+    public String extension();
+
+    /**
+     * Wrap a stream of compressed data.
+     *
+     * @param in The compressed stream.
+     * @return The decompressed stream.
+     * @throws IOException The stream could not be opened.
+     */
+    public InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,101 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens corpus files, decompressing them when their extension matches a
+ * {@link Codec}. Decompression is done on a separate thread, see
+ * {@link PrefetchInputStream}, so that it overlaps with parsing.
+ */
+public final class Codecs {
+    /**
+     * The gzip codec, which is always available.
+     */
+    public static final Codec GZIP = new Codec() {
+        @Override
+        public String extension() {
+            return ".gz";
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BLOCK_SIZE);
+        }
+    };
+
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private static final int N_BLOCKS = 16;
+
+    private static final List<Codec> s_codecs = loadCodecs();
+
+    private Codecs() {
+    }
+
+    /**
+     * Return the codec for a file, based on its extension.
+     *
+     * @param file The file.
+     * @return The codec, or <tt>null</tt> if the file is not compressed with a known codec.
+     */
+    public static Codec forFile(File file) {
+        for (Codec codec : s_codecs)
+            if (file.getName().endsWith(codec.extension()))
+                return codec;
+
+        return null;
+    }
+
+    /**
+     * Open a file, decompressing it on a separate thread when it is
+     * compressed with a known codec.
+     *
+     * @param file The file.
+     * @return The (decompressed) contents of the file.
+     * @throws IOException The file could not be opened.
+     */
+    public static InputStream open(File file) throws IOException {
+        Codec codec = forFile(file);
+        if (codec == null)
+            return new FileInputStream(file);
+
+        InputStream in = new FileInputStream(file);
+        try {
+            return new PrefetchInputStream(codec.decompress(new BufferedInputStream(in, BLOCK_SIZE)),
+                    BLOCK_SIZE, N_BLOCKS);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static List<Codec> loadCodecs() {
+        List<Codec> codecs = new ArrayList<>();
+        codecs.add(GZIP);
+        for (Codec codec : ServiceLoader.load(Codec.class))
+            codecs.add(codec);
+        return Collections.unmodifiableList(codecs);
+    }
+}
@@ -0,0 +1,299 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * A corpus that is compiled to a binary file, so that it can be read
+ * repeatedly without parsing. Words and tags are stored as numbers, the
+ * strings are stored once in a string table.
+ * <p>
+ * The file consists of a header, the word and tag numbers of all tokens,
+ * the offsets of the sentences in the token section, and the string tables.
+ * The token and offset sections are memory-mapped and can be iterated over
+ * with the primitive methods of this class, such as {@link #word(int)} and
+ * {@link #tag(int)}. {@link #reader()} provides a {@link CorpusReader} that
+ * reuses the strings of the string table.
+ */
+public class CompiledCorpus {
+    private static final int MAGIC = 0x4a434331;
+
+    private static final int HEADER_SIZE = 5 * 4 + 2 * 8;
+
+    private static final int MAX_TOKENS = Integer.MAX_VALUE / 8;
+
+    private final IntBuffer d_tokens;
+
+    private final IntBuffer d_offsets;
+
+    private final int d_nSentences;
+
+    private final String[] d_words;
+
+    private final String[] d_tags;
+
+    private CompiledCorpus(IntBuffer tokens, IntBuffer offsets, int nSentences, String[] words, String[] tags) {
+        d_tokens = tokens;
+        d_offsets = offsets;
+        d_nSentences = nSentences;
+        d_words = words;
+        d_tags = tags;
+    }
+
+    /**
+     * Compile a corpus.
+     *
+     * @param reader The corpus reader.
+     * @param file   The file to write the compiled corpus to.
+     * @throws IOException The corpus could not be read or written.
+     */
+    public static void compile(CorpusReader reader, File file) throws IOException {
+        Map<String, Integer> wordNumbers = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        Map<String, Integer> tagNumbers = new HashMap<>();
+        List<String> tags = new ArrayList<>();
+
+        int[] offsets = new int[1024];
+        int nSentences = 0;
+        int nTokens = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            // The header is written when the sizes of the sections are known.
+            out.write(new byte[HEADER_SIZE]);
+
+            List<TaggedToken> sentence;
+            while ((sentence = reader.readSentence()) != null) {
+                if (nTokens + (long) sentence.size() > MAX_TOKENS)
+                    throw new IOException(String.format("Corpus has more than %d tokens", MAX_TOKENS));
+
+                for (TaggedToken token : sentence) {
+                    out.writeInt(number(token.word(), wordNumbers, words));
+                    out.writeInt(number(token.tag(), tagNumbers, tags));
+                }
+
+                nTokens += sentence.size();
+                ++nSentences;
+
+                if (nSentences == offsets.length)
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                offsets[nSentences] = nTokens;
+            }
+
+            for (int i = 0; i <= nSentences; ++i)
+                out.writeInt(offsets[i]);
+
+            for (String word : words)
+                out.writeUTF(word);
+            for (String tag : tags)
+                out.writeUTF(tag);
+        }
+
+        long offsetsPosition = HEADER_SIZE + 8L * nTokens;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(MAGIC);
+            raf.writeInt(nSentences);
+            raf.writeInt(nTokens);
+            raf.writeInt(words.size());
+            raf.writeInt(tags.size());
+            raf.writeLong(offsetsPosition);
+            raf.writeLong(offsetsPosition + 4L * (nSentences + 1));
+        }
+    }
+
+    /**
+     * Open a compiled corpus.
+     *
+     * @param file The compiled corpus.
+     * @return The corpus.
+     * @throws IOException The corpus could not be read.
+     */
+    public static CompiledCorpus open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC)
+                throw new IOException(String.format("Not a compiled corpus: %s", file));
+
+            int nSentences = raf.readInt();
+            int nTokens = raf.readInt();
+            int nWords = raf.readInt();
+            int nTags = raf.readInt();
+            long offsetsPosition = raf.readLong();
+            long stringsPosition = raf.readLong();
+
+            FileChannel channel = raf.getChannel();
+            IntBuffer tokens = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8L * nTokens).asIntBuffer();
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, offsetsPosition,
+                    4L * (nSentences + 1)).asIntBuffer();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(stringsPosition))));
+            String[] words = new String[nWords];
+            for (int i = 0; i < nWords; ++i)
+                words[i] = in.readUTF();
+            String[] tags = new String[nTags];
+            for (int i = 0; i < nTags; ++i)
+                tags[i] = in.readUTF();
+
+            return new CompiledCorpus(tokens, offsets, nSentences, words, tags);
+        }
+    }
+
+    private static int number(String s, Map<String, Integer> numbers, List<String> strings) {
+        Integer number = numbers.get(s);
+        if (number == null) {
+            number = strings.size();
+            numbers.put(s, number);
+            strings.add(s);
+        }
+
+        return number;
+    }
+
+    /**
+     * Return the number of sentences.
+     *
+     * @return The number of sentences.
+     */
+    public int numberOfSentences() {
+        return d_nSentences;
+    }
+
+    /**
+     * Return the number of tokens.
+     *
+     * @return The number of tokens.
+     */
+    public int numberOfTokens() {
+        return d_offsets.get(d_nSentences);
+    }
+
+    /**
+     * Return the index of the first token of a sentence.
+     *
+     * @param sentence The sentence number.
+     * @return The token index.
+     */
+    public int sentenceStart(int sentence) {
+        return d_offsets.get(sentence);
+    }
+
+    /**
+     * Return the index after the last token of a sentence.
+     *
+     * @param sentence The sentence number.
+     * @return The token index.
+     */
+    public int sentenceEnd(int sentence) {
+        return d_offsets.get(sentence + 1);
+    }
+
+    /**
+     * Return the word number of a token.
+     *
+     * @param token The token index.
+     * @return The word number.
+     */
+    public int word(int token) {
+        return d_tokens.get(2 * token);
+    }
+
+    /**
+     * Return the tag number of a token.
+     *
+     * @param token The token index.
+     * @return The tag number.
+     */
+    public int tag(int token) {
+        return d_tokens.get(2 * token + 1);
+    }
+
+    /**
+     * Return the string of a word number.
+     *
+     * @param word The word number.
+     * @return The word.
+     */
+    public String wordString(int word) {
+        return d_words[word];
+    }
+
+    /**
+     * Return the string of a tag number.
+     *
+     * @param tag The tag number.
+     * @return The tag.
+     */
+    public String tagString(int tag) {
+        return d_tags[tag];
+    }
+
+    /**
+     * Return the number of distinct words.
+     *
+     * @return The number of words.
+     */
+    public int numberOfWords() {
+        return d_words.length;
+    }
+
+    /**
+     * Return the number of distinct tags.
+     *
+     * @return The number of tags.
+     */
+    public int numberOfTags() {
+        return d_tags.length;
+    }
+
+    /**
+     * Return a reader over the sentences of the corpus. Readers are
+     * independent, so the corpus can be read multiple times, also
+     * concurrently.
+     *
+     * @return The reader.
+     */
+    public CorpusReader reader() {
+        return new CorpusReader() {
+            private int d_sentence = 0;
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public List<TaggedToken> readSentence() {
+                if (d_sentence == d_nSentences)
+                    return null;
+
+                int start = sentenceStart(d_sentence);
+                int end = sentenceEnd(d_sentence);
+                ++d_sentence;
+
+                List<TaggedToken> sentence = new ArrayList<>(end - start);
+                for (int token = start; token < end; ++token)
+                    sentence.add(new TaggedToken(d_words[word(token)], d_tags[tag(token)]));
+
+                return sentence;
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.io.IOException;
+
+/**
+ * A corpus reader that can read sentences into a reusable {@link TokenBuffer},
+ * without allocating strings for the words and tags of the tokens.
+ */
+public interface FlyweightCorpusReader extends CorpusReader {
+    /**
+     * Read a sentence into a buffer.
+     *
+     * @param buffer The buffer, its previous contents are discarded.
+     * @return <tt>false</tt> if the reader is exhausted.
+     * @throws IOException A problem occured while reading the sentence.
+     */
+    public boolean readSentence(TokenBuffer buffer) throws IOException;
+
+    /**
+     * Return the table of the tag numbers that are used in token buffers.
+     *
+     * @return The tag table.
+     */
+    public StringTable tagTable();
+}
@@ -0,0 +1,176 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An input stream that reads from another stream on a separate thread.
+ * Blocks that are read ahead are passed through a bounded queue, so that
+ * an expensive stream, such as a decompressing stream, can be read while
+ * the consumer processes earlier blocks.
+ */
+public class PrefetchInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> d_blocks;
+
+    private final Thread d_thread;
+
+    private volatile Throwable d_failure;
+
+    private byte[] d_block;
+
+    private int d_position;
+
+    private boolean d_eof;
+
+    /**
+     * Construct a prefetching stream. The underlying stream is closed by
+     * the reading thread when it is exhausted or when this stream is closed.
+     *
+     * @param in        The stream to read from.
+     * @param blockSize The size of the blocks that are read ahead.
+     * @param nBlocks   The maximum number of blocks that are read ahead.
+     */
+    public PrefetchInputStream(final InputStream in, final int blockSize, int nBlocks) {
+        d_blocks = new ArrayBlockingQueue<>(nBlocks);
+        d_block = END;
+
+        d_thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int n;
+                    do {
+                        byte[] block = new byte[blockSize];
+                        n = readBlock(in, block);
+                        if (n > 0)
+                            d_blocks.put(n == blockSize ? block : Arrays.copyOf(block, n));
+                    } while (n == blockSize);
+                } catch (InterruptedException e) {
+                    // The stream was closed.
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    // Any failure, including runtime exceptions and errors from
+                    // codecs, is passed on to the consumer.
+                    d_failure = e;
+                } finally {
+                    try {
+                        in.close();
+                    } catch (Throwable e) {
+                        if (d_failure == null)
+                            d_failure = e;
+                    }
+
+                    // Always signal the end of the stream, so that the consumer
+                    // never waits for blocks that will not come.
+                    if (!Thread.currentThread().isInterrupted()) {
+                        try {
+                            d_blocks.put(END);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                }
+            }
+        }, "jitar-prefetch");
+        d_thread.setDaemon(true);
+        d_thread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill())
+            return -1;
+
+        return d_block[d_position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+
+        if (!fill())
+            return -1;
+
+        int n = Math.min(len, d_block.length - d_position);
+        System.arraycopy(d_block, d_position, b, off, n);
+        d_position += n;
+
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return d_block.length - d_position;
+    }
+
+    @Override
+    public void close() {
+        d_eof = true;
+        d_thread.interrupt();
+        d_blocks.clear();
+    }
+
+    /**
+     * Make sure that the current block has remaining data, returns <tt>false</tt>
+     * at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        while (d_position == d_block.length) {
+            if (d_eof)
+                return false;
+
+            try {
+                d_block = d_blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            }
+            d_position = 0;
+
+            if (d_block == END) {
+                d_eof = true;
+                if (d_failure instanceof IOException)
+                    throw (IOException) d_failure;
+                if (d_failure != null)
+                    throw new IOException("Error while reading ahead", d_failure);
+            }
+        }
+
+        return true;
+    }
+
+    private static int readBlock(InputStream in, byte[] block) throws IOException {
+        int n = 0;
+        while (n < block.length) {
+            int r = in.read(block, n, block.length - n);
+            if (r == -1)
+                break;
+            n += r;
+        }
+
+        return n;
+    }
+}
@@ -0,0 +1,171 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.util.Arrays;
+
+/**
+ * A table that interns strings and assigns them consecutive numbers. Strings
+ * can be looked up by any {@link CharSequence}, so that a string is only
+ * constructed the first time that it is seen. A table is not thread-safe.
+ */
+public class StringTable {
+    private String[] d_strings;
+
+    private int[] d_slots;
+
+    private int d_size;
+
+    public StringTable() {
+        d_strings = new String[16];
+        d_slots = new int[32];
+    }
+
+    /**
+     * Get the number of a string, adding it to the table if it is not known.
+     *
+     * @param s The string.
+     * @return The number of the string.
+     */
+    public int id(CharSequence s) {
+        int hash = hash(s);
+        int mask = d_slots.length - 1;
+        int i = hash & mask;
+        for (; d_slots[i] != 0; i = (i + 1) & mask)
+            if (equals(d_strings[d_slots[i] - 1], s))
+                return d_slots[i] - 1;
+
+        return add(i, s.toString());
+    }
+
+    /**
+     * Get the number of the string that is stored in <i>[start, end)</i> of
+     * a character array, adding it to the table if it is not known.
+     *
+     * @param chars The character array.
+     * @param start The start of the string.
+     * @param end   The end of the string (exclusive).
+     * @return The number of the string.
+     */
+    public int id(char[] chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        int mask = d_slots.length - 1;
+        int i = hash & mask;
+        for (; d_slots[i] != 0; i = (i + 1) & mask)
+            if (equals(d_strings[d_slots[i] - 1], chars, start, end))
+                return d_slots[i] - 1;
+
+        return add(i, new String(chars, start, end - start));
+    }
+
+    /**
+     * Get the number of a string.
+     *
+     * @param s The string.
+     * @return The number of the string, or -1 if it is not in the table.
+     */
+    public int find(CharSequence s) {
+        int mask = d_slots.length - 1;
+        for (int i = hash(s) & mask; d_slots[i] != 0; i = (i + 1) & mask)
+            if (equals(d_strings[d_slots[i] - 1], s))
+                return d_slots[i] - 1;
+
+        return -1;
+    }
+
+    /**
+     * Get the string with the given number.
+     *
+     * @param id The number.
+     * @return The string.
+     */
+    public String string(int id) {
+        if (id >= d_size)
+            throw new IndexOutOfBoundsException(String.format("Unknown string number: %d", id));
+
+        return d_strings[id];
+    }
+
+    /**
+     * Return the number of strings in the table.
+     *
+     * @return The number of strings.
+     */
+    public int size() {
+        return d_size;
+    }
+
+    private int add(int slot, String s) {
+        if (d_size == d_strings.length)
+            d_strings = Arrays.copyOf(d_strings, d_size * 2);
+        d_strings[d_size] = s;
+        d_slots[slot] = ++d_size;
+
+        if (d_size * 2 > d_slots.length)
+            rehash();
+
+        return d_size - 1;
+    }
+
+    private void rehash() {
+        d_slots = new int[d_slots.length * 2];
+        int mask = d_slots.length - 1;
+        for (int id = 0; id < d_size; ++id) {
+            int i = hash(d_strings[id]) & mask;
+            while (d_slots[i] != 0)
+                i = (i + 1) & mask;
+            d_slots[i] = id + 1;
+        }
+    }
+
+    private static boolean equals(String string, CharSequence s) {
+        if (string.length() != s.length())
+            return false;
+
+        for (int i = 0; i < string.length(); ++i)
+            if (string.charAt(i) != s.charAt(i))
+                return false;
+
+        return true;
+    }
+
+    private static boolean equals(String string, char[] chars, int start, int end) {
+        if (string.length() != end - start)
+            return false;
+
+        for (int i = 0; i < string.length(); ++i)
+            if (string.charAt(i) != chars[start + i])
+                return false;
+
+        return true;
+    }
+
+    private static int hash(char[] chars, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; ++i)
+            h = 31 * h + chars[i];
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(CharSequence s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); ++i)
+            h = 31 * h + s.charAt(i);
+        return h ^ (h >>> 16);
+    }
+}
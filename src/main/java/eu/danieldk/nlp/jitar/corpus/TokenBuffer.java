@@ -0,0 +1,179 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer that holds the tokens of a sentence, filled by a
+ * {@link FlyweightCorpusReader}. Words are views on the characters of the
+ * buffer and tags are numbers in the tag table of the reader, so reading a
+ * sentence into a buffer does not allocate strings for the tokens.
+ * <p>
+ * The words are only valid until the next sentence is read into the buffer.
+ */
+public class TokenBuffer {
+    private char[] d_chars = new char[256];
+
+    private int d_nChars;
+
+    private int[] d_starts = new int[32];
+
+    private int[] d_ends = new int[32];
+
+    private int[] d_tags = new int[32];
+
+    private CharView[] d_views = new CharView[0];
+
+    private int d_size;
+
+    /**
+     * Return the number of tokens in the sentence.
+     *
+     * @return The number of tokens.
+     */
+    public int size() {
+        return d_size;
+    }
+
+    /**
+     * Return the word of a token. The returned view is reused and only valid
+     * until the next sentence is read.
+     *
+     * @param token The token index.
+     * @return The word.
+     */
+    public CharSequence word(int token) {
+        checkIndex(token);
+
+        if (d_views.length <= token) {
+            int oldLength = d_views.length;
+            d_views = Arrays.copyOf(d_views, Math.max(token + 1, oldLength * 2));
+            for (int i = oldLength; i < d_views.length; ++i)
+                d_views[i] = new CharView(this, i);
+        }
+
+        return d_views[token];
+    }
+
+    /**
+     * Return the word of a token as a new string.
+     *
+     * @param token The token index.
+     * @return The word.
+     */
+    public String wordString(int token) {
+        checkIndex(token);
+        return new String(d_chars, d_starts[token], d_ends[token] - d_starts[token]);
+    }
+
+    /**
+     * Return the tag number of a token.
+     *
+     * @param token The token index.
+     * @return The tag number.
+     */
+    public int tag(int token) {
+        checkIndex(token);
+        return d_tags[token];
+    }
+
+    /**
+     * Remove all tokens and characters from the buffer.
+     */
+    void clear() {
+        d_size = 0;
+        d_nChars = 0;
+    }
+
+    /**
+     * Append a string to the characters of the buffer and return the offset
+     * at which it was stored.
+     */
+    int append(String s) {
+        if (d_nChars + s.length() > d_chars.length)
+            d_chars = Arrays.copyOf(d_chars, Math.max(d_nChars + s.length(), d_chars.length * 2));
+
+        int offset = d_nChars;
+        s.getChars(0, s.length(), d_chars, offset);
+        d_nChars += s.length();
+
+        return offset;
+    }
+
+    /**
+     * Return the characters of the buffer. The array is replaced when the
+     * buffer grows.
+     */
+    char[] chars() {
+        return d_chars;
+    }
+
+    /**
+     * Add a token, of which the word is stored at <i>[start, end)</i> in
+     * the character array.
+     */
+    void add(int start, int end, int tag) {
+        if (d_size == d_starts.length) {
+            d_starts = Arrays.copyOf(d_starts, d_size * 2);
+            d_ends = Arrays.copyOf(d_ends, d_size * 2);
+            d_tags = Arrays.copyOf(d_tags, d_size * 2);
+        }
+
+        d_starts[d_size] = start;
+        d_ends[d_size] = end;
+        d_tags[d_size] = tag;
+        ++d_size;
+    }
+
+    private void checkIndex(int token) {
+        if (token >= d_size)
+            throw new IndexOutOfBoundsException(String.format("Token %d, sentence length: %d", token, d_size));
+    }
+
+    private static class CharView implements CharSequence {
+        private final TokenBuffer d_buffer;
+
+        private final int d_token;
+
+        private CharView(TokenBuffer buffer, int token) {
+            d_buffer = buffer;
+            d_token = token;
+        }
+
+        @Override
+        public int length() {
+            return d_buffer.d_ends[d_token] - d_buffer.d_starts[d_token];
+        }
+
+        @Override
+        public char charAt(int index) {
+            return d_buffer.d_chars[d_buffer.d_starts[d_token] + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return d_buffer.wordString(d_token);
+        }
+    }
+}
@@ -16,9 +16,13 @@
 
 package eu.danieldk.nlp.jitar.data;
 
+import eu.danieldk.nlp.jitar.data.util.Footprint;
+
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -126,6 +130,54 @@ public class Model implements Serializable {
                 nGrams.uniGramFreqs, nGrams.biGramFreqs, nGrams.triGramFreqs);
     }
 
+    /**
+     * Write the model in the text format that is read by
+     * {@link #readModel(java.io.BufferedReader, java.io.BufferedReader)}. The
+     * unigrams are written first, in the order of the tag numbers, so that
+     * reading the model gives the same tag numbers. Entries are streamed to
+     * the writers, which are flushed but not closed.
+     *
+     * @param lexiconWriter The writer for the word/tag frequencies.
+     * @param nGramWriter   The writer for the n-gram frequencies.
+     * @throws IOException The model could not be written.
+     */
+    public void writeModel(Writer lexiconWriter, Writer nGramWriter) throws IOException {
+        for (Entry<String, Map<Integer, Integer>> wordEntry : d_wordTagFreqs.entrySet()) {
+            lexiconWriter.write(wordEntry.getKey());
+            for (Entry<Integer, Integer> tagEntry : wordEntry.getValue().entrySet()) {
+                lexiconWriter.write(' ');
+                lexiconWriter.write(d_numberTags.get(tagEntry.getKey()));
+                lexiconWriter.write(' ');
+                lexiconWriter.write(Integer.toString(tagEntry.getValue()));
+            }
+            lexiconWriter.write('\n');
+        }
+
+        for (int tag = 0; tag < d_numberTags.size(); ++tag) {
+            Integer freq = d_uniGramFreqs.get(new UniGram(tag));
+            writeNGram(nGramWriter, freq == null ? 0 : freq, tag);
+        }
+
+        for (Entry<BiGram, Integer> entry : d_biGramFreqs.entrySet())
+            writeNGram(nGramWriter, entry.getValue(), entry.getKey().t1(), entry.getKey().t2());
+
+        for (Entry<TriGram, Integer> entry : d_triGramFreqs.entrySet())
+            writeNGram(nGramWriter, entry.getValue(), entry.getKey().t1(), entry.getKey().t2(),
+                    entry.getKey().t3());
+
+        lexiconWriter.flush();
+        nGramWriter.flush();
+    }
+
+    private void writeNGram(Writer writer, int freq, int... tags) throws IOException {
+        for (int tag : tags) {
+            writer.write(d_numberTags.get(tag));
+            writer.write(' ');
+        }
+        writer.write(Integer.toString(freq));
+        writer.write('\n');
+    }
+
     private static NGrams readNGrams(BufferedReader reader) throws IOException {
         Map<String, Integer> tagNumbers = new HashMap<>();
         Map<Integer, String> numberTags = new HashMap<>();
@@ -179,6 +231,58 @@ public class Model implements Serializable {
         return wordTagFreqs;
     }
 
+    /**
+     * Return a copy of the model without the lexicon and n-gram frequencies. The
+     * copy shares the tag numbering with this model. Once the word handlers and
+     * language model are constructed, a tagger only needs the tag numbering, so
+     * the copy can be used to let the frequencies be garbage collected.
+     *
+     * @return The model without frequencies.
+     */
+    public Model withoutCounts() {
+        return new Model(new HashMap<String, Map<Integer, Integer>>(), d_tagNumbers, d_numberTags,
+                Collections.<UniGram, Integer>emptyMap(), Collections.<BiGram, Integer>emptyMap(),
+                Collections.<TriGram, Integer>emptyMap());
+    }
+
+    /**
+     * Estimate the memory footprint of the lexicon, tag tables and n-gram
+     * frequencies.
+     *
+     * @return The footprint.
+     */
+    public Footprint footprint() {
+        long lexiconBytes = Footprint.hashMap(d_wordTagFreqs.size());
+        for (Entry<String, Map<Integer, Integer>> wordEntry : d_wordTagFreqs.entrySet()) {
+            lexiconBytes += Footprint.string(wordEntry.getKey()) + Footprint.hashMap(wordEntry.getValue().size());
+            for (Entry<Integer, Integer> tagEntry : wordEntry.getValue().entrySet())
+                lexiconBytes += Footprint.integer(tagEntry.getKey()) + Footprint.integer(tagEntry.getValue());
+        }
+
+        long tagBytes = Footprint.hashMap(d_tagNumbers.size()) + Footprint.hashMap(d_numberTags.size());
+        for (Entry<String, Integer> entry : d_tagNumbers.entrySet())
+            tagBytes += Footprint.string(entry.getKey()) + Footprint.integer(entry.getValue());
+
+        List<Footprint> parts = new ArrayList<>();
+        parts.add(new Footprint("lexicon", d_wordTagFreqs.size(), lexiconBytes));
+        parts.add(new Footprint("tags", d_tagNumbers.size(), tagBytes));
+        parts.add(new Footprint("unigrams", d_uniGramFreqs.size(),
+                nGramBytes(d_uniGramFreqs, Footprint.object(4))));
+        parts.add(new Footprint("bigrams", d_biGramFreqs.size(),
+                nGramBytes(d_biGramFreqs, Footprint.object(8))));
+        parts.add(new Footprint("trigrams", d_triGramFreqs.size(),
+                nGramBytes(d_triGramFreqs, Footprint.object(12))));
+
+        return new Footprint("model", parts);
+    }
+
+    private static <T> long nGramBytes(Map<T, Integer> freqs, long nGramBytes) {
+        long bytes = Footprint.hashMap(freqs.size());
+        for (Integer freq : freqs.values())
+            bytes += nGramBytes + Footprint.integer(freq);
+        return bytes;
+    }
+
     /**
      * Returns the model bigram frequencies.
      *
@@ -0,0 +1,383 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A reader for models in the text format of
+ * {@link Model#readModel(java.io.BufferedReader, java.io.BufferedReader)}
+ * that is intended for large models. The files are memory-mapped and cut
+ * into chunks at line boundaries. The chunks are parsed in parallel, by
+ * splitting lines on bytes rather than with regular expressions, and tags
+ * are looked up without constructing strings.
+ * <p>
+ * The files should be encoded in UTF-8. Empty lines are skipped.
+ */
+public final class TextModelReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+    private TextModelReader() {
+    }
+
+    /**
+     * Read a model from text files.
+     *
+     * @param lexiconFile The word/tag frequency file.
+     * @param nGramFile   The n-gram frequency file.
+     * @param nThreads    The number of parsing threads.
+     * @return The model.
+     * @throws IOException The model could not be read.
+     */
+    public static Model read(File lexiconFile, File nGramFile, int nThreads) throws IOException {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("At least one thread is required.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            // Tag numbers are assigned in the order of the unigram lines, the lexicon
+            // can only be parsed once all tags are known.
+            Map<String, Integer> tagNumbers = new HashMap<>();
+            Map<Integer, String> numberTags = new HashMap<>();
+            Map<UniGram, Integer> uniGramFreqs = new HashMap<>();
+            Map<BiGram, Integer> biGramFreqs = new HashMap<>();
+            Map<TriGram, Integer> triGramFreqs = new HashMap<>();
+
+            List<NGramChunk> nGramChunks = new ArrayList<>();
+            for (ByteBuffer chunk : map(nGramFile, nThreads))
+                nGramChunks.add(new NGramChunk(chunk));
+            invokeAll(executor, nGramChunks);
+
+            for (NGramChunk chunk : nGramChunks)
+                for (int i = 0; i < chunk.d_freqs.size(); ++i) {
+                    String[] tags = chunk.d_tags.get(i);
+                    if (tags.length == 1) {
+                        int tagNumber = tagNumbers.size();
+                        tagNumbers.put(tags[0], tagNumber);
+                        numberTags.put(tagNumber, tags[0]);
+                        uniGramFreqs.put(new UniGram(tagNumber), chunk.d_freqs.get(i));
+                    }
+                }
+
+            for (NGramChunk chunk : nGramChunks)
+                for (int i = 0; i < chunk.d_freqs.size(); ++i) {
+                    String[] tags = chunk.d_tags.get(i);
+                    if (tags.length == 2)
+                        biGramFreqs.put(new BiGram(tagNumber(tagNumbers, tags[0]), tagNumber(tagNumbers, tags[1])),
+                                chunk.d_freqs.get(i));
+                    else if (tags.length == 3)
+                        triGramFreqs.put(new TriGram(tagNumber(tagNumbers, tags[0]), tagNumber(tagNumbers, tags[1]),
+                                tagNumber(tagNumbers, tags[2])), chunk.d_freqs.get(i));
+                }
+
+            TagIndex tagIndex = new TagIndex(numberTags);
+            List<LexiconChunk> lexiconChunks = new ArrayList<>();
+            for (ByteBuffer chunk : map(lexiconFile, nThreads))
+                lexiconChunks.add(new LexiconChunk(chunk, tagIndex));
+            invokeAll(executor, lexiconChunks);
+
+            int nWords = 0;
+            for (LexiconChunk chunk : lexiconChunks)
+                nWords += chunk.d_wordTagFreqs.size();
+
+            Map<String, Map<Integer, Integer>> wordTagFreqs = new HashMap<>(nWords * 4 / 3 + 1);
+            for (LexiconChunk chunk : lexiconChunks)
+                wordTagFreqs.putAll(chunk.d_wordTagFreqs);
+
+            return new Model(wordTagFreqs, tagNumbers, numberTags, uniGramFreqs, biGramFreqs, triGramFreqs);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int tagNumber(Map<String, Integer> tagNumbers, String tag) throws IOException {
+        Integer tagNumber = tagNumbers.get(tag);
+        if (tagNumber == null)
+            throw new IOException(String.format("N-gram with a tag without unigram frequency: %s", tag));
+        return tagNumber;
+    }
+
+    private static void invokeAll(ExecutorService executor, List<? extends Callable<Void>> tasks)
+            throws IOException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading model", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException("Error while reading model", e.getCause());
+        }
+    }
+
+    /**
+     * Map a file as chunks that end at line boundaries.
+     */
+    private static List<ByteBuffer> map(File file, int nThreads) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+
+            long chunkSize = Math.min(MAX_CHUNK_SIZE,
+                    Math.max(1, (size + nThreads * CHUNKS_PER_THREAD - 1) / (nThreads * CHUNKS_PER_THREAD)));
+
+            List<ByteBuffer> chunks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = lineEnd(channel, Math.min(size, start + chunkSize), size);
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                start = end;
+            }
+
+            // A mapping remains valid after its channel is closed.
+            return chunks;
+        }
+    }
+
+    /**
+     * Find the position after the first newline at or after <i>position</i>.
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0)
+            position = 1;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long blockStart = position - 1;
+        while (blockStart < size) {
+            buffer.clear();
+            int n = channel.read(buffer, blockStart);
+            if (n <= 0)
+                break;
+
+            for (int i = 0; i < n; ++i)
+                if (buffer.get(i) == '\n')
+                    return blockStart + i + 1;
+
+            blockStart += n;
+        }
+
+        return size;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static int parseInt(byte[] line, int start, int end) throws IOException {
+        if (start == end)
+            throw new IOException("Missing frequency");
+
+        int value = 0;
+        for (int i = start; i < end; ++i) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10)
+                throw new IOException(String.format("Invalid frequency: %s",
+                        new String(line, start, end - start, UTF_8)));
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses the lines of a chunk. Subclasses process the tokens of a line.
+     */
+    private static abstract class Chunk implements Callable<Void> {
+        private final ByteBuffer d_buffer;
+
+        private byte[] d_line = new byte[256];
+
+        private int[] d_starts = new int[16];
+
+        private int[] d_ends = new int[16];
+
+        private Chunk(ByteBuffer buffer) {
+            d_buffer = buffer;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            ByteBuffer buffer = d_buffer.duplicate();
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                int end = start;
+                while (end < buffer.limit() && buffer.get(end) != '\n')
+                    ++end;
+
+                int length = end - start;
+                if (d_line.length < length)
+                    d_line = new byte[Math.max(length, d_line.length * 2)];
+                buffer.get(d_line, 0, length);
+                if (buffer.hasRemaining())
+                    buffer.get();
+
+                int nTokens = tokenize(length);
+                if (nTokens != 0)
+                    line(d_line, d_starts, d_ends, nTokens);
+            }
+
+            return null;
+        }
+
+        private int tokenize(int length) {
+            int nTokens = 0;
+            int i = 0;
+            while (true) {
+                while (i < length && isSpace(d_line[i]))
+                    ++i;
+                if (i == length)
+                    return nTokens;
+
+                if (nTokens == d_starts.length) {
+                    d_starts = Arrays.copyOf(d_starts, nTokens * 2);
+                    d_ends = Arrays.copyOf(d_ends, nTokens * 2);
+                }
+
+                d_starts[nTokens] = i;
+                while (i < length && !isSpace(d_line[i]))
+                    ++i;
+                d_ends[nTokens] = i;
+                ++nTokens;
+            }
+        }
+
+        protected abstract void line(byte[] line, int[] starts, int[] ends, int nTokens) throws IOException;
+    }
+
+    private static class NGramChunk extends Chunk {
+        private final List<String[]> d_tags = new ArrayList<>();
+
+        private final List<Integer> d_freqs = new ArrayList<>();
+
+        private NGramChunk(ByteBuffer buffer) {
+            super(buffer);
+        }
+
+        @Override
+        protected void line(byte[] line, int[] starts, int[] ends, int nTokens) throws IOException {
+            if (nTokens < 2 || nTokens > 4)
+                return;
+
+            String[] tags = new String[nTokens - 1];
+            for (int i = 0; i < tags.length; ++i)
+                tags[i] = new String(line, starts[i], ends[i] - starts[i], UTF_8);
+
+            d_tags.add(tags);
+            d_freqs.add(parseInt(line, starts[nTokens - 1], ends[nTokens - 1]));
+        }
+    }
+
+    private static class LexiconChunk extends Chunk {
+        private final TagIndex d_tagIndex;
+
+        private final Map<String, Map<Integer, Integer>> d_wordTagFreqs = new HashMap<>();
+
+        private LexiconChunk(ByteBuffer buffer, TagIndex tagIndex) {
+            super(buffer);
+            d_tagIndex = tagIndex;
+        }
+
+        @Override
+        protected void line(byte[] line, int[] starts, int[] ends, int nTokens) throws IOException {
+            String word = new String(line, starts[0], ends[0] - starts[0], UTF_8);
+
+            Map<Integer, Integer> tagFreqs = new HashMap<>();
+            for (int i = 1; i + 1 < nTokens; i += 2) {
+                int tag = d_tagIndex.get(line, starts[i], ends[i]);
+                if (tag == -1)
+                    throw new IOException(String.format("Unknown tag in lexicon: %s",
+                            new String(line, starts[i], ends[i] - starts[i], UTF_8)));
+
+                tagFreqs.put(tag, parseInt(line, starts[i + 1], ends[i + 1]));
+            }
+
+            d_wordTagFreqs.put(word, tagFreqs);
+        }
+    }
+
+    /**
+     * An open-addressing table from UTF-8 encoded tag names to tag numbers.
+     */
+    private static class TagIndex {
+        private final byte[][] d_names;
+
+        private final int[] d_numbers;
+
+        private TagIndex(Map<Integer, String> numberTags) {
+            int capacity = 2;
+            while (capacity < numberTags.size() * 2)
+                capacity <<= 1;
+
+            d_names = new byte[capacity][];
+            d_numbers = new int[capacity];
+
+            for (Map.Entry<Integer, String> entry : numberTags.entrySet()) {
+                byte[] name = entry.getValue().getBytes(UTF_8);
+                int i = hash(name, 0, name.length) & (capacity - 1);
+                while (d_names[i] != null)
+                    i = (i + 1) & (capacity - 1);
+
+                d_names[i] = name;
+                d_numbers[i] = entry.getKey();
+            }
+        }
+
+        /**
+         * Get the number of a tag, -1 if the tag is not known.
+         */
+        private int get(byte[] bytes, int start, int end) {
+            int mask = d_names.length - 1;
+            for (int i = hash(bytes, start, end) & mask; d_names[i] != null; i = (i + 1) & mask)
+                if (equals(d_names[i], bytes, start, end))
+                    return d_numbers[i];
+
+            return -1;
+        }
+
+        private static boolean equals(byte[] name, byte[] bytes, int start, int end) {
+            if (name.length != end - start)
+                return false;
+
+            for (int i = 0; i < name.length; ++i)
+                if (name[i] != bytes[start + i])
+                    return false;
+
+            return true;
+        }
+
+        private static int hash(byte[] bytes, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; ++i)
+                h = 31 * h + bytes[i];
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data;
+
+import eu.danieldk.nlp.jitar.data.util.Footprint;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable table of unigram (tag) frequencies, indexed by tag number.
+ * It is much smaller than a map of unigrams, and can be shared by all
+ * components that need tag frequencies.
+ */
+public class UniGramTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] d_freqs;
+
+    /**
+     * Construct a table from unigram frequencies.
+     *
+     * @param uniGrams The unigram frequencies.
+     */
+    public UniGramTable(Map<UniGram, Integer> uniGrams) {
+        int nTags = 0;
+        for (UniGram uniGram : uniGrams.keySet())
+            nTags = Math.max(nTags, uniGram.t1() + 1);
+
+        d_freqs = new int[nTags];
+        for (Entry<UniGram, Integer> entry : uniGrams.entrySet())
+            d_freqs[entry.getKey().t1()] = entry.getValue();
+    }
+
+    /**
+     * Get the frequency of a tag.
+     *
+     * @param tag The tag number.
+     * @return The frequency, zero if the tag is not known.
+     */
+    public int frequency(int tag) {
+        return tag < d_freqs.length ? d_freqs[tag] : 0;
+    }
+
+    /**
+     * Return the number of bytes used by the frequency array.
+     *
+     * @return The number of bytes.
+     */
+    public long bytes() {
+        return Footprint.array(d_freqs.length, 4);
+    }
+
+    /**
+     * Return the number of tags. Tag numbers are in <i>[0, numberOfTags)</i>.
+     *
+     * @return The number of tags.
+     */
+    public int numberOfTags() {
+        return d_freqs.length;
+    }
+}
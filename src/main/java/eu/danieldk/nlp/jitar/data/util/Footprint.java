@@ -0,0 +1,199 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The estimated memory footprint of a data structure, possibly consisting of
+ * the footprints of its parts.
+ * <p>
+ * Estimates are for a 64-bit JVM with compressed object pointers, where object
+ * headers take 12 bytes and objects are aligned to 8 bytes. Objects that are
+ * shared between data structures, such as the word strings of a lexicon, are
+ * counted in every structure that refers to them.
+ */
+public class Footprint {
+    /**
+     * The size of a boxed <i>Double</i> or <i>Long</i>.
+     */
+    public static final long BOXED = 16;
+
+    private static final long HEADER = 12;
+
+    private static final long REFERENCE = 4;
+
+    private final String d_name;
+
+    private final long d_entries;
+
+    private final long d_bytes;
+
+    private final List<Footprint> d_parts;
+
+    /**
+     * Construct a footprint without parts.
+     *
+     * @param name    The name of the data structure.
+     * @param entries The number of entries (or nodes) in the data structure.
+     * @param bytes   The estimated number of bytes.
+     */
+    public Footprint(String name, long entries, long bytes) {
+        d_name = name;
+        d_entries = entries;
+        d_bytes = bytes;
+        d_parts = Collections.emptyList();
+    }
+
+    /**
+     * Construct a footprint from the footprints of the parts of a data structure.
+     * The number of entries and bytes are the sums over the parts.
+     *
+     * @param name  The name of the data structure.
+     * @param parts The footprints of the parts.
+     */
+    public Footprint(String name, List<Footprint> parts) {
+        long entries = 0;
+        long bytes = 0;
+        for (Footprint part : parts) {
+            entries += part.entries();
+            bytes += part.bytes();
+        }
+
+        d_name = name;
+        d_entries = entries;
+        d_bytes = bytes;
+        d_parts = Collections.unmodifiableList(new ArrayList<>(parts));
+    }
+
+    public String name() {
+        return d_name;
+    }
+
+    public long entries() {
+        return d_entries;
+    }
+
+    public long bytes() {
+        return d_bytes;
+    }
+
+    public List<Footprint> parts() {
+        return d_parts;
+    }
+
+    /**
+     * Estimate the size of an object.
+     *
+     * @param fieldBytes The number of bytes used by the fields of the object.
+     * @return The size in bytes.
+     */
+    public static long object(long fieldBytes) {
+        return align(HEADER + fieldBytes);
+    }
+
+    /**
+     * Estimate the size of an array.
+     *
+     * @param length       The length of the array.
+     * @param elementBytes The size of an element in bytes.
+     * @return The size in bytes.
+     */
+    public static long array(int length, int elementBytes) {
+        return align(HEADER + 4 + (long) length * elementBytes);
+    }
+
+    /**
+     * Estimate the size of a <i>HashMap</i>, excluding its keys and values.
+     *
+     * @param size The number of entries.
+     * @return The size in bytes.
+     */
+    public static long hashMap(int size) {
+        // Table, key set, values and entry set references, size, modification
+        // count, threshold and load factor.
+        long bytes = object(4 * REFERENCE + 4 * 4);
+
+        // The table is allocated on the first insertion.
+        if (size > 0) {
+            int capacity = 16;
+            while (capacity * 0.75 < size)
+                capacity <<= 1;
+            bytes += array(capacity, (int) REFERENCE);
+        }
+
+        // Entries hold a hash, key, value and next pointer.
+        return bytes + size * object(4 + 3 * REFERENCE);
+    }
+
+    /**
+     * Estimate the size of a Guava <i>ImmutableMap</i>, excluding its keys
+     * and values.
+     *
+     * @param size The number of entries.
+     * @return The size in bytes.
+     */
+    public static long immutableMap(int size) {
+        int capacity = 2;
+        while (capacity < size * 1.2)
+            capacity <<= 1;
+
+        // Entry array, hash table, and entries that hold a key, value and
+        // next pointer.
+        return object(3 * REFERENCE + 4) + array(size, (int) REFERENCE) + array(capacity, (int) REFERENCE) +
+                size * object(3 * REFERENCE);
+    }
+
+    /**
+     * Estimate the size of a boxed <i>Integer</i>. Small integers are cached
+     * and do not take additional memory.
+     *
+     * @param value The value.
+     * @return The size in bytes.
+     */
+    public static long integer(int value) {
+        return value >= -128 && value <= 127 ? 0 : object(4);
+    }
+
+    /**
+     * Estimate the size of a boxed <i>Character</i>. ASCII characters are
+     * cached and do not take additional memory.
+     *
+     * @param value The value.
+     * @return The size in bytes.
+     */
+    public static long character(char value) {
+        return value <= 127 ? 0 : object(2);
+    }
+
+    /**
+     * Estimate the size of a string.
+     *
+     * @param s The string.
+     * @return The size in bytes.
+     */
+    public static long string(String s) {
+        return object(REFERENCE + 4) + array(s.length(), 2);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
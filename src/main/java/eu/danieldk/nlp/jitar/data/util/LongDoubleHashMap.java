@@ -0,0 +1,147 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from non-negative <i>long</i> keys to
+ * <i>double</i> values. It does not box keys or values, which makes it
+ * much more compact and faster to query than a <i>HashMap</i> for n-gram
+ * tables with packed tag numbers as keys.
+ */
+public class LongDoubleHashMap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final long EMPTY = -1;
+
+    private long[] d_keys;
+
+    private double[] d_values;
+
+    private int d_size;
+
+    /**
+     * Construct a map.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public LongDoubleHashMap(int expectedSize) {
+        int capacity = 2;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+
+        allocate(capacity);
+    }
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key          The key.
+     * @param defaultValue The value to return when the key is not in the map.
+     * @return The value of the key or the default value.
+     */
+    public double get(long key, double defaultValue) {
+        int mask = d_keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long k = d_keys[i];
+            if (k == key)
+                return d_values[i];
+            if (k == EMPTY)
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @param key   The key, should be non-negative.
+     * @param value The value.
+     */
+    public void put(long key, double value) {
+        if (key < 0)
+            throw new IllegalArgumentException("Keys should be non-negative.");
+
+        if ((d_size + 1) * 2 > d_keys.length)
+            resize();
+
+        int mask = d_keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (d_keys[i] == EMPTY) {
+                d_keys[i] = key;
+                d_values[i] = value;
+                ++d_size;
+                return;
+            }
+
+            if (d_keys[i] == key) {
+                d_values[i] = value;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Return the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return d_size;
+    }
+
+    /**
+     * Return the number of slots in the table.
+     *
+     * @return The table capacity.
+     */
+    public int capacity() {
+        return d_keys.length;
+    }
+
+    long[] keys() {
+        return d_keys;
+    }
+
+    double[] values() {
+        return d_values;
+    }
+
+    private void allocate(int capacity) {
+        d_keys = new long[capacity];
+        Arrays.fill(d_keys, EMPTY);
+        d_values = new double[capacity];
+    }
+
+    private void resize() {
+        long[] keys = d_keys;
+        double[] values = d_values;
+
+        allocate(keys.length * 2);
+        d_size = 0;
+
+        for (int i = 0; i < keys.length; ++i)
+            if (keys[i] != EMPTY)
+                put(keys[i], values[i]);
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
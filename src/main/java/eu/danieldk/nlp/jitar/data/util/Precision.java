@@ -0,0 +1,58 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+/**
+ * The precision with which probabilities are stored.
+ */
+public enum Precision {
+    /**
+     * 64-bit floating point.
+     */
+    DOUBLE(8),
+
+    /**
+     * 32-bit floating point.
+     */
+    FLOAT(4),
+
+    /**
+     * 16-bit codes, linearly quantized between the smallest and largest value.
+     */
+    SHORT(2),
+
+    /**
+     * 8-bit codes, linearly quantized between the smallest and largest value.
+     */
+    BYTE(1);
+
+    private final int d_bytes;
+
+    Precision(int bytes) {
+        d_bytes = bytes;
+    }
+
+    /**
+     * Return the number of bytes that is used to store a probability.
+     *
+     * @return The number of bytes.
+     */
+    public int bytes() {
+        return d_bytes;
+    }
+}
@@ -0,0 +1,237 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import java.io.Serializable;
+
+/**
+ * An immutable array of log-probabilities, stored with a given {@link Precision}.
+ * Quantized arrays store codes in <i>[0, 2^bits)</i> and map them linearly to
+ * the range of finite values in the array, using a per-array offset and scale.
+ * Non-finite values are mapped to the smallest finite value.
+ */
+public abstract class ProbabilityArray implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Construct an array with the given precision.
+     *
+     * @param values    The log-probabilities.
+     * @param precision The precision to store the log-probabilities with.
+     * @return The array.
+     */
+    public static ProbabilityArray create(double[] values, Precision precision) {
+        switch (precision) {
+            case DOUBLE:
+                return new DoubleArray(values);
+            case FLOAT:
+                return new FloatArray(values);
+            case SHORT:
+                return new ShortArray(values);
+            case BYTE:
+                return new ByteArray(values);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown precision: %s", precision));
+        }
+    }
+
+    /**
+     * Get the log-probability at an index.
+     *
+     * @param index The index.
+     * @return The (dequantized) log-probability.
+     */
+    public abstract double get(int index);
+
+    /**
+     * Return the number of log-probabilities in the array.
+     *
+     * @return The length of the array.
+     */
+    public abstract int size();
+
+    /**
+     * Return the precision of the array.
+     *
+     * @return The precision.
+     */
+    public abstract Precision precision();
+
+    /**
+     * Return the number of bytes used by the log-probabilities.
+     *
+     * @return The number of bytes.
+     */
+    public long bytes() {
+        return (long) size() * precision().bytes();
+    }
+
+    private static final class DoubleArray extends ProbabilityArray {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] d_values;
+
+        private DoubleArray(double[] values) {
+            d_values = values.clone();
+        }
+
+        @Override
+        public double get(int index) {
+            return d_values[index];
+        }
+
+        @Override
+        public int size() {
+            return d_values.length;
+        }
+
+        @Override
+        public Precision precision() {
+            return Precision.DOUBLE;
+        }
+    }
+
+    private static final class FloatArray extends ProbabilityArray {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] d_values;
+
+        private FloatArray(double[] values) {
+            d_values = new float[values.length];
+            for (int i = 0; i < values.length; ++i)
+                d_values[i] = (float) values[i];
+        }
+
+        @Override
+        public double get(int index) {
+            return d_values[index];
+        }
+
+        @Override
+        public int size() {
+            return d_values.length;
+        }
+
+        @Override
+        public Precision precision() {
+            return Precision.FLOAT;
+        }
+    }
+
+    private static final class ShortArray extends ProbabilityArray {
+        private static final long serialVersionUID = 1L;
+
+        private final short[] d_codes;
+
+        private final Quantizer d_quantizer;
+
+        private ShortArray(double[] values) {
+            d_quantizer = new Quantizer(values, 0xffff);
+            d_codes = new short[values.length];
+            for (int i = 0; i < values.length; ++i)
+                d_codes[i] = (short) d_quantizer.encode(values[i]);
+        }
+
+        @Override
+        public double get(int index) {
+            return d_quantizer.decode(d_codes[index] & 0xffff);
+        }
+
+        @Override
+        public int size() {
+            return d_codes.length;
+        }
+
+        @Override
+        public Precision precision() {
+            return Precision.SHORT;
+        }
+    }
+
+    private static final class ByteArray extends ProbabilityArray {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] d_codes;
+
+        private final Quantizer d_quantizer;
+
+        private ByteArray(double[] values) {
+            d_quantizer = new Quantizer(values, 0xff);
+            d_codes = new byte[values.length];
+            for (int i = 0; i < values.length; ++i)
+                d_codes[i] = (byte) d_quantizer.encode(values[i]);
+        }
+
+        @Override
+        public double get(int index) {
+            return d_quantizer.decode(d_codes[index] & 0xff);
+        }
+
+        @Override
+        public int size() {
+            return d_codes.length;
+        }
+
+        @Override
+        public Precision precision() {
+            return Precision.BYTE;
+        }
+    }
+
+    /**
+     * Linear mapping between log-probabilities and codes in <i>[0, maxCode]</i>.
+     */
+    private static final class Quantizer implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final double d_offset;
+
+        private final double d_scale;
+
+        private final int d_maxCode;
+
+        private Quantizer(double[] values, int maxCode) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (double value : values)
+                if (!Double.isInfinite(value) && !Double.isNaN(value)) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+
+            if (min > max)
+                min = max = 0.0;
+
+            d_offset = min;
+            d_scale = max > min ? (max - min) / maxCode : 1.0;
+            d_maxCode = maxCode;
+        }
+
+        private int encode(double value) {
+            if (Double.isInfinite(value) || Double.isNaN(value))
+                return 0;
+
+            long code = Math.round((value - d_offset) / d_scale);
+            return (int) Math.max(0, Math.min(d_maxCode, code));
+        }
+
+        private double decode(int code) {
+            return d_offset + code * d_scale;
+        }
+    }
+}
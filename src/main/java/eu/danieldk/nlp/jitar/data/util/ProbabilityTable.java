@@ -0,0 +1,89 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import java.io.Serializable;
+
+/**
+ * An immutable open-addressing hash table from non-negative <i>long</i> keys
+ * to log-probabilities, which are stored with a given {@link Precision}. The
+ * table is a frozen copy of a {@link LongDoubleHashMap}.
+ */
+public class ProbabilityTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] d_keys;
+
+    private final ProbabilityArray d_values;
+
+    private final int d_size;
+
+    /**
+     * Construct a table.
+     *
+     * @param map       The map to copy the keys and values from.
+     * @param precision The precision to store the values with.
+     */
+    public ProbabilityTable(LongDoubleHashMap map, Precision precision) {
+        d_keys = map.keys().clone();
+        d_size = map.size();
+
+        // Empty slots are set to NaN, so that they do not affect quantization.
+        double[] values = map.values().clone();
+        for (int i = 0; i < d_keys.length; ++i)
+            if (d_keys[i] == LongDoubleHashMap.EMPTY)
+                values[i] = Double.NaN;
+
+        d_values = ProbabilityArray.create(values, precision);
+    }
+
+    /**
+     * Get the log-probability of a key.
+     *
+     * @param key The key.
+     * @return The log-probability or <i>NaN</i> if the key is not in the table.
+     */
+    public double get(long key) {
+        int mask = d_keys.length - 1;
+        for (int i = LongDoubleHashMap.hash(key) & mask; ; i = (i + 1) & mask) {
+            long k = d_keys[i];
+            if (k == key)
+                return d_values.get(i);
+            if (k == LongDoubleHashMap.EMPTY)
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Return the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return d_size;
+    }
+
+    /**
+     * Return the number of bytes used by the keys and values of the table.
+     *
+     * @return The number of bytes.
+     */
+    public long bytes() {
+        return (long) d_keys.length * 8 + d_values.bytes();
+    }
+}
@@ -0,0 +1,165 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.evaluation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of an evaluation: known and unknown word accuracy, a confusion
+ * matrix of gold and predicted tags, and the tagging throughput. Tags are
+ * numbered by their position in {@link #tags()}; gold or predicted tags that
+ * are not in the model share the last row and column.
+ */
+public class EvaluationResult {
+    private final List<String> d_tags;
+
+    private final int d_nTags;
+
+    private final long[] d_confusion;
+
+    private long d_knownGood;
+
+    private long d_knownBad;
+
+    private long d_unknownGood;
+
+    private long d_unknownBad;
+
+    private long d_nanos;
+
+    EvaluationResult(List<String> tags) {
+        d_tags = Collections.unmodifiableList(tags);
+        d_nTags = tags.size() + 1;
+        d_confusion = new long[d_nTags * d_nTags];
+    }
+
+    void add(int gold, int predicted, boolean known) {
+        ++d_confusion[gold * d_nTags + predicted];
+
+        if (gold == predicted) {
+            if (known)
+                ++d_knownGood;
+            else
+                ++d_unknownGood;
+        } else {
+            if (known)
+                ++d_knownBad;
+            else
+                ++d_unknownBad;
+        }
+    }
+
+    void merge(EvaluationResult other) {
+        for (int i = 0; i < d_confusion.length; ++i)
+            d_confusion[i] += other.d_confusion[i];
+
+        d_knownGood += other.d_knownGood;
+        d_knownBad += other.d_knownBad;
+        d_unknownGood += other.d_unknownGood;
+        d_unknownBad += other.d_unknownBad;
+    }
+
+    void setNanos(long nanos) {
+        d_nanos = nanos;
+    }
+
+    /**
+     * Return the tags of the model, without capitalization prefix.
+     *
+     * @return The tags.
+     */
+    public List<String> tags() {
+        return d_tags;
+    }
+
+    /**
+     * Return how often a token with the gold tag was tagged with the predicted tag.
+     *
+     * @param gold      The index of the gold tag.
+     * @param predicted The index of the predicted tag.
+     * @return The number of tokens.
+     */
+    public long confusion(int gold, int predicted) {
+        return d_confusion[gold * d_nTags + predicted];
+    }
+
+    /**
+     * Return the precision of a tag: the fraction of tokens tagged with the
+     * tag that have the tag in the gold standard.
+     *
+     * @param tag The index of the tag.
+     * @return The precision, <i>NaN</i> if no token was tagged with the tag.
+     */
+    public double precision(int tag) {
+        long predicted = 0;
+        for (int gold = 0; gold < d_nTags; ++gold)
+            predicted += confusion(gold, tag);
+
+        return confusion(tag, tag) / (double) predicted;
+    }
+
+    /**
+     * Return the recall of a tag: the fraction of tokens with the tag in the
+     * gold standard that were tagged with the tag.
+     *
+     * @param tag The index of the tag.
+     * @return The recall, <i>NaN</i> if the tag does not occur in the gold standard.
+     */
+    public double recall(int tag) {
+        long gold = 0;
+        for (int predicted = 0; predicted < d_nTags; ++predicted)
+            gold += confusion(tag, predicted);
+
+        return confusion(tag, tag) / (double) gold;
+    }
+
+    public long knownBad() {
+        return d_knownBad;
+    }
+
+    public long knownGood() {
+        return d_knownGood;
+    }
+
+    public long unknownBad() {
+        return d_unknownBad;
+    }
+
+    public long unknownGood() {
+        return d_unknownGood;
+    }
+
+    public long overallBad() {
+        return d_knownBad + d_unknownBad;
+    }
+
+    public long overallGood() {
+        return d_knownGood + d_unknownGood;
+    }
+
+    /**
+     * Return the number of tokens per second, measured from the start of reading
+     * the corpus until all sentences were tagged.
+     *
+     * @return The throughput.
+     */
+    public double tokensPerSecond() {
+        return (overallGood() + overallBad()) / (d_nanos / 1e9);
+    }
+}
@@ -19,6 +19,7 @@ package eu.danieldk.nlp.jitar.evaluation;
 import eu.danieldk.nlp.jitar.corpus.CorpusReader;
 import eu.danieldk.nlp.jitar.corpus.TaggedToken;
 import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
 import eu.danieldk.nlp.jitar.tagger.HMMTagger;
 
 import java.io.IOException;
@@ -27,13 +28,11 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * This handler tags the provided sentences using an {@link HMMTagger} and compares the tags
- * against the tags in the test data.
+ * This handler tags the provided sentences using a {@link Decoder}, such as an
+ * {@link HMMTagger}, and compares the tags against the tags in the test data.
  */
 public class Evaluator {
-    private final HMMTagger d_tagger;
-
-    private final Model d_model;
+    private final Decoder d_decoder;
 
     private final Map<String, Map<Integer, Integer>> d_lexicon;
 
@@ -45,9 +44,8 @@ public class Evaluator {
 
     private int d_unknownBad = 0;
 
-    public Evaluator(HMMTagger tagger, Model model) {
-        d_tagger = tagger;
-        d_model = model;
+    public Evaluator(Decoder decoder, Model model) {
+        d_decoder = decoder;
         d_lexicon = model.lexicon();
     }
 
@@ -58,14 +56,10 @@ public class Evaluator {
             for (TaggedToken taggedWord : sentence)
                 sentenceWords.add(taggedWord.word());
 
-            List<String> tags = HMMTagger.highestProbabilitySequence(
-                    d_tagger.tag(sentenceWords), d_model).sequence();
+            List<String> tags = d_decoder.decode(sentenceWords).sequence();
 
             for (int i = 0; i < tags.size(); ++i) {
-                boolean inLexicon = false;
-                if (d_lexicon.containsKey(sentenceWords.get(i)) ||
-                        d_lexicon.containsKey(sentenceWords.get(i).toLowerCase()))
-                    inLexicon = true;
+                boolean inLexicon = isKnown(d_lexicon, sentenceWords.get(i));
 
                 if (tags.get(i).equals(sentence.get(i).tag())) {
                     if (inLexicon)
@@ -83,6 +77,18 @@ public class Evaluator {
         }
     }
 
+    /**
+     * Check whether a word is known. A word is known if it, or its lowercase
+     * form, is in the lexicon.
+     *
+     * @param lexicon The lexicon.
+     * @param word    The word.
+     * @return <tt>true</tt> if the word is known.
+     */
+    static boolean isKnown(Map<String, Map<Integer, Integer>> lexicon, String word) {
+        return lexicon.containsKey(word) || lexicon.containsKey(word.toLowerCase());
+    }
+
     public int knownBad() {
         return d_knownBad;
     }
@@ -0,0 +1,177 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.evaluation;
+
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.corpus.TaggedToken;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Evaluates a {@link Decoder} using multiple threads. The corpus is read on the
+ * calling thread and handed to the workers in chunks of sentences. Each worker
+ * has its own {@link EvaluationResult}, the results are merged when the corpus
+ * is exhausted. The decoder should be safe to use from multiple threads.
+ * <p>
+ * Words are counted as known or unknown in the same way as by {@link Evaluator}:
+ * a word is known if it, or its lowercase form, is in the lexicon.
+ */
+public class ParallelEvaluator {
+    private static final int CHUNK_SIZE = 64;
+
+    private static final List<List<TaggedToken>> END_OF_CORPUS = Collections.emptyList();
+
+    private final Decoder d_decoder;
+
+    private final Map<String, Map<Integer, Integer>> d_lexicon;
+
+    private final List<String> d_tags;
+
+    private final Map<String, Integer> d_tagIndices;
+
+    private final int d_nThreads;
+
+    /**
+     * Construct a parallel evaluator.
+     *
+     * @param decoder  The decoder to evaluate.
+     * @param model    The model, used to determine which words are known.
+     * @param nThreads The number of tagging threads.
+     */
+    public ParallelEvaluator(Decoder decoder, Model model, int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("At least one thread is required.");
+
+        d_decoder = decoder;
+        d_lexicon = model.lexicon();
+        d_nThreads = nThreads;
+
+        // Tags without capitalization prefix. The markers are included, because
+        // they have no prefix either.
+        SortedSet<String> tags = new TreeSet<>();
+        for (String tag : model.tagNumbers().keySet())
+            tags.add(tag.startsWith("c-") || tag.startsWith("n-") ? tag.substring(2) : tag);
+        d_tags = new ArrayList<>(tags);
+
+        d_tagIndices = new HashMap<>();
+        for (int i = 0; i < d_tags.size(); ++i)
+            d_tagIndices.put(d_tags.get(i), i);
+    }
+
+    /**
+     * Evaluate the decoder on a corpus.
+     *
+     * @param reader The corpus reader.
+     * @return The evaluation result.
+     * @throws IOException          The corpus could not be read.
+     * @throws InterruptedException The thread was interrupted while waiting for the workers.
+     */
+    public EvaluationResult process(CorpusReader reader) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        final BlockingQueue<List<List<TaggedToken>>> queue = new ArrayBlockingQueue<>(d_nThreads * 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(d_nThreads);
+        List<Future<EvaluationResult>> futures = new ArrayList<>(d_nThreads);
+        try {
+            for (int i = 0; i < d_nThreads; ++i)
+                futures.add(executor.submit(new Callable<EvaluationResult>() {
+                    @Override
+                    public EvaluationResult call() throws InterruptedException {
+                        EvaluationResult result = new EvaluationResult(d_tags);
+                        RuntimeException failure = null;
+
+                        // Keep taking chunks after a failure, so that the reader
+                        // does not block on a full queue.
+                        List<List<TaggedToken>> chunk;
+                        while ((chunk = queue.take()) != END_OF_CORPUS) {
+                            if (failure != null)
+                                continue;
+
+                            try {
+                                for (List<TaggedToken> sentence : chunk)
+                                    evaluate(sentence, result);
+                            } catch (RuntimeException e) {
+                                failure = e;
+                            }
+                        }
+
+                        if (failure != null)
+                            throw failure;
+
+                        return result;
+                    }
+                }));
+
+            try {
+                List<List<TaggedToken>> chunk = new ArrayList<>(CHUNK_SIZE);
+                List<TaggedToken> sentence;
+                while ((sentence = reader.readSentence()) != null) {
+                    chunk.add(sentence);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        queue.put(chunk);
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+
+                if (!chunk.isEmpty())
+                    queue.put(chunk);
+            } finally {
+                for (int i = 0; i < d_nThreads; ++i)
+                    queue.put(END_OF_CORPUS);
+            }
+
+            EvaluationResult result = new EvaluationResult(d_tags);
+            for (Future<EvaluationResult> future : futures) {
+                try {
+                    result.merge(future.get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Error while evaluating", e.getCause());
+                }
+            }
+
+            result.setNanos(System.nanoTime() - start);
+
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void evaluate(List<TaggedToken> sentence, EvaluationResult result) {
+        List<String> words = new ArrayList<>(sentence.size());
+        for (TaggedToken token : sentence)
+            words.add(token.word());
+
+        List<String> tags = d_decoder.decode(words).sequence();
+
+        for (int i = 0; i < tags.size(); ++i) {
+            boolean known = Evaluator.isKnown(d_lexicon, words.get(i));
+            result.add(tagIndex(sentence.get(i).tag()), tagIndex(tags.get(i)), known);
+        }
+    }
+
+    private int tagIndex(String tag) {
+        Integer index = d_tagIndices.get(tag);
+        return index == null ? d_tags.size() : index;
+    }
+}
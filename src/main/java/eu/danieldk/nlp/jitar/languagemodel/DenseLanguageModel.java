@@ -0,0 +1,150 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.languagemodel;
+
+import eu.danieldk.nlp.jitar.data.BiGram;
+import eu.danieldk.nlp.jitar.data.TriGram;
+import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.data.util.LongDoubleHashMap;
+import eu.danieldk.nlp.jitar.data.util.Precision;
+import eu.danieldk.nlp.jitar.data.util.ProbabilityArray;
+import eu.danieldk.nlp.jitar.data.util.ProbabilityTable;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+
+/**
+ * A copy of the tables of a {@link LinearInterpolationLM} that can be queried
+ * with tag numbers, without allocating n-gram objects. Unigram and bigram
+ * probabilities are stored in dense arrays, where missing bigrams already
+ * hold the unigram backoff. Trigrams are stored in a primitive hash table.
+ * <p>
+ * The bigram and trigram probabilities can be stored with a reduced
+ * {@link Precision} to make the model smaller. With double precision, the
+ * probabilities are identical to those of the original model.
+ */
+public class DenseLanguageModel implements LanguageModel {
+    private final int d_nTags;
+
+    private final double[] d_uniGramProbs;
+
+    private final ProbabilityArray d_biGramProbs;
+
+    private final ProbabilityTable d_triGramProbs;
+
+    /**
+     * Construct a dense model from a linear interpolation model.
+     *
+     * @param lm The model to copy the probabilities from.
+     */
+    public DenseLanguageModel(LinearInterpolationLM lm) {
+        this(lm, Precision.DOUBLE);
+    }
+
+    /**
+     * Construct a dense model from a linear interpolation model, storing
+     * bigram and trigram probabilities with the given precision.
+     *
+     * @param lm        The model to copy the probabilities from.
+     * @param precision The precision of the bigram and trigram tables.
+     */
+    public DenseLanguageModel(LinearInterpolationLM lm, Precision precision) {
+        int maxTag = -1;
+        for (UniGram uniGram : lm.uniGramProbs().keySet())
+            maxTag = Math.max(maxTag, uniGram.t1());
+        d_nTags = maxTag + 1;
+
+        d_uniGramProbs = new double[d_nTags];
+        Arrays.fill(d_uniGramProbs, Double.NaN);
+        for (Entry<UniGram, Double> entry : lm.uniGramProbs().entrySet())
+            d_uniGramProbs[entry.getKey().t1()] = entry.getValue();
+
+        double[] biGramProbs = new double[d_nTags * d_nTags];
+        for (int t1 = 0; t1 < d_nTags; ++t1)
+            System.arraycopy(d_uniGramProbs, 0, biGramProbs, t1 * d_nTags, d_nTags);
+        for (Entry<BiGram, Double> entry : lm.biGramProbs().entrySet())
+            biGramProbs[entry.getKey().t1() * d_nTags + entry.getKey().t2()] = entry.getValue();
+        d_biGramProbs = ProbabilityArray.create(biGramProbs, precision);
+
+        LongDoubleHashMap triGramProbs = new LongDoubleHashMap(lm.triGramProbs().size());
+        for (Entry<TriGram, Double> entry : lm.triGramProbs().entrySet()) {
+            TriGram triGram = entry.getKey();
+            triGramProbs.put(key(triGram.t1(), triGram.t2(), triGram.t3()), entry.getValue());
+        }
+        d_triGramProbs = new ProbabilityTable(triGramProbs, precision);
+    }
+
+    /**
+     * Return the number of bytes used by the probability tables.
+     *
+     * @return The number of bytes.
+     */
+    public long bytes() {
+        return (long) d_uniGramProbs.length * 8 + d_biGramProbs.bytes() + d_triGramProbs.bytes();
+    }
+
+    /**
+     * Return the number of tags. Tag numbers are in <i>[0, numberOfTags)</i>.
+     *
+     * @return The number of tags.
+     */
+    public int numberOfTags() {
+        return d_nTags;
+    }
+
+    @Override
+    public double triGramProb(TriGram triGram) {
+        return triGramProb(triGram.t1(), triGram.t2(), triGram.t3());
+    }
+
+    /**
+     * Estimate the probability of a trigram, p(t3|t1,t2), and return
+     * the logprob.
+     *
+     * @param t1 The first tag.
+     * @param t2 The second tag.
+     * @param t3 The third tag.
+     * @return The trigram probability.
+     */
+    public double triGramProb(int t1, int t2, int t3) {
+        double prob = d_triGramProbs.get(key(t1, t2, t3));
+        if (!Double.isNaN(prob))
+            return prob;
+
+        if (!Double.isNaN(d_uniGramProbs[t3]))
+            return d_biGramProbs.get(t2 * d_nTags + t3);
+
+        throw new RuntimeException(String.format("Unknown tag: %d", t3));
+    }
+
+    /**
+     * Estimate the probability of a bigram, p(t2|t1), and return the
+     * logprob. Falls back to the unigram probability if the bigram was
+     * not seen.
+     *
+     * @param t1 The first tag.
+     * @param t2 The second tag.
+     * @return The bigram probability.
+     */
+    public double biGramProb(int t1, int t2) {
+        return d_biGramProbs.get(t1 * d_nTags + t2);
+    }
+
+    private long key(int t1, int t2, int t3) {
+        return ((long) t1 * d_nTags + t2) * d_nTags + t3;
+    }
+}
@@ -16,6 +16,8 @@
 
 package eu.danieldk.nlp.jitar.languagemodel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -23,6 +25,8 @@ import com.google.common.collect.ImmutableMap;
 import eu.danieldk.nlp.jitar.data.BiGram;
 import eu.danieldk.nlp.jitar.data.TriGram;
 import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.data.util.Footprint;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
 
 /**
  * This model estimates trigram probabilities using linear interpolation
@@ -32,6 +36,7 @@ public class LinearInterpolationLM implements LanguageModel {
 	private final Map<UniGram, Double> d_uniGramProbs;
 	private final Map<BiGram, Double> d_biGramProbs;
 	private final Map<TriGram, Double> d_triGramProbs;
+	private final TaggerMetrics d_metrics;
 
 	/**
 	 * @param uniGramFreqs 1-gram frequencies
@@ -41,6 +46,19 @@ public class LinearInterpolationLM implements LanguageModel {
 	public LinearInterpolationLM(Map<UniGram, Integer> uniGramFreqs,
 			Map<BiGram, Integer> biGramFreqs,
 			Map<TriGram, Integer> triGramFreqs) {
+		this(uniGramFreqs, biGramFreqs, triGramFreqs, null);
+	}
+
+	/**
+	 * @param uniGramFreqs 1-gram frequencies
+	 * @param biGramFreqs 2-gram frequencies
+	 * @param triGramFreqs 3-gram frequencies
+	 * @param metrics metrics to record backoff levels in, may be <tt>null</tt>
+	 */
+	public LinearInterpolationLM(Map<UniGram, Integer> uniGramFreqs,
+			Map<BiGram, Integer> biGramFreqs,
+			Map<TriGram, Integer> triGramFreqs, TaggerMetrics metrics) {
+		d_metrics = metrics;
 
 		int corpusSize = calculateCorpusSize(uniGramFreqs);
         SmoothingParameters smoothingParameters = calculateLambdas(corpusSize, uniGramFreqs, biGramFreqs, triGramFreqs);
@@ -123,20 +141,77 @@ public class LinearInterpolationLM implements LanguageModel {
         return builder.build();
     }
 
+	/**
+	 * Return the interpolated unigram log-probabilities.
+	 *
+	 * @return Unigram log-probabilities.
+	 */
+	public Map<UniGram, Double> uniGramProbs() {
+		return d_uniGramProbs;
+	}
+
+	/**
+	 * Return the interpolated bigram log-probabilities, p(t2|t1).
+	 *
+	 * @return Bigram log-probabilities.
+	 */
+	public Map<BiGram, Double> biGramProbs() {
+		return d_biGramProbs;
+	}
+
+	/**
+	 * Return the interpolated trigram log-probabilities, p(t3|t1,t2).
+	 *
+	 * @return Trigram log-probabilities.
+	 */
+	public Map<TriGram, Double> triGramProbs() {
+		return d_triGramProbs;
+	}
+
+	/**
+	 * Estimate the memory footprint of the probability tables.
+	 *
+	 * @return The footprint.
+	 */
+	public Footprint footprint() {
+		List<Footprint> parts = new ArrayList<>();
+		parts.add(new Footprint("unigram probs", d_uniGramProbs.size(),
+				probsBytes(d_uniGramProbs.size(), Footprint.object(4))));
+		parts.add(new Footprint("bigram probs", d_biGramProbs.size(),
+				probsBytes(d_biGramProbs.size(), Footprint.object(8))));
+		parts.add(new Footprint("trigram probs", d_triGramProbs.size(),
+				probsBytes(d_triGramProbs.size(), Footprint.object(12))));
+
+		return new Footprint("language model", parts);
+	}
+
+	private static long probsBytes(int size, long nGramBytes) {
+		return Footprint.immutableMap(size) + size * (nGramBytes + Footprint.BOXED);
+	}
+
 	public double triGramProb(TriGram triGram) {
         Double prob = d_triGramProbs.get(triGram);
-        if (prob != null)
+        if (prob != null) {
+            if (d_metrics != null)
+                d_metrics.triGramLookup();
             return prob;
+        }
 
         BiGram biGram = new BiGram(triGram.t2(), triGram.t3());
         prob = d_biGramProbs.get(biGram);
-        if (prob != null)
+        if (prob != null) {
+            if (d_metrics != null)
+                d_metrics.biGramBackoff();
             return prob;
+        }
 
         UniGram uniGram = new UniGram(triGram.t3());
         prob = d_uniGramProbs.get(uniGram);
-        if (prob != null)
+        if (prob != null) {
+            if (d_metrics != null)
+                d_metrics.uniGramBackoff();
             return prob;
+        }
 
         throw new RuntimeException(String.format("Unknown tag: %d", uniGram.t1()));
 	}
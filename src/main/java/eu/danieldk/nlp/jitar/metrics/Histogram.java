@@ -0,0 +1,100 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.metrics;
+
+/**
+ * A histogram with power-of-two buckets. Bucket <i>i</i> counts values
+ * in <i>[2^(i-1), 2^i)</i>, the first bucket counts zero, and the last
+ * bucket counts all values that do not fit in the other buckets.
+ */
+public class Histogram {
+    private final StripedCounter[] d_buckets;
+
+    /**
+     * Construct a histogram.
+     *
+     * @param nBuckets The number of buckets.
+     */
+    public Histogram(int nBuckets) {
+        if (nBuckets < 2)
+            throw new IllegalArgumentException("A histogram should have at least two buckets.");
+
+        d_buckets = new StripedCounter[nBuckets];
+        for (int i = 0; i < nBuckets; ++i)
+            d_buckets[i] = new StripedCounter();
+    }
+
+    /**
+     * Add a value to the histogram.
+     *
+     * @param value The value, should be non-negative.
+     */
+    public void add(long value) {
+        int bucket = 64 - Long.numberOfLeadingZeros(value);
+        d_buckets[Math.min(bucket, d_buckets.length - 1)].increment();
+    }
+
+    /**
+     * Return the counts of the buckets.
+     *
+     * @return The bucket counts.
+     */
+    public long[] counts() {
+        long[] counts = new long[d_buckets.length];
+        for (int i = 0; i < d_buckets.length; ++i)
+            counts[i] = d_buckets[i].sum();
+        return counts;
+    }
+
+    /**
+     * Return the smallest value that is counted in a bucket.
+     *
+     * @param bucket The bucket.
+     * @return The lower bound (inclusive) of the bucket.
+     */
+    public static long lowerBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    /**
+     * Set the counts of all buckets to zero.
+     */
+    public void reset() {
+        for (StripedCounter bucket : d_buckets)
+            bucket.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        long[] counts = counts();
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] == 0)
+                continue;
+
+            if (sb.length() != 0)
+                sb.append(' ');
+
+            if (i == counts.length - 1)
+                sb.append(String.format(">=%d:%d", lowerBound(i), counts[i]));
+            else
+                sb.append(String.format("%d-%d:%d", lowerBound(i), lowerBound(i + 1) - 1, counts[i]));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads updates over a number of cells, so that threads
+ * that update the counter concurrently rarely contend on the same cache
+ * line. The value of the counter is the sum of the cells. This is similar
+ * to <i>LongAdder</i>, which is not available in Java 7.
+ */
+public class StripedCounter {
+    // Cells are spaced apart, so that they end up in different cache lines.
+    private static final int PADDING = 8;
+
+    private static final int N_STRIPES = stripes();
+
+    private final AtomicLongArray d_cells;
+
+    public StripedCounter() {
+        d_cells = new AtomicLongArray(N_STRIPES * PADDING);
+    }
+
+    /**
+     * Add a value to the counter.
+     *
+     * @param value The value to add.
+     */
+    public void add(long value) {
+        d_cells.getAndAdd(cell(), value);
+    }
+
+    /**
+     * Increment the counter by one.
+     */
+    public void increment() {
+        d_cells.getAndIncrement(cell());
+    }
+
+    /**
+     * Reset the counter to zero. Updates that happen concurrently with the
+     * reset may or may not be retained.
+     */
+    public void reset() {
+        for (int i = 0; i < N_STRIPES; ++i)
+            d_cells.set(i * PADDING, 0);
+    }
+
+    /**
+     * Return the current value of the counter. The sum is not an atomic
+     * snapshot when there are concurrent updates.
+     *
+     * @return The counter value.
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < N_STRIPES; ++i)
+            sum += d_cells.get(i * PADDING);
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    private static int cell() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return ((h >>> 16) & (N_STRIPES - 1)) * PADDING;
+    }
+
+    private static int stripes() {
+        // Round the number of processors up to a power of two.
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors())
+            n <<= 1;
+        return n;
+    }
+}
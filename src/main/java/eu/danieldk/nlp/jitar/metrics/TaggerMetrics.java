@@ -0,0 +1,276 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Counters for the stages of the tagging pipeline. An instance can be passed
+ * to the word handlers, the language model, and the tagger. Components that
+ * were constructed without metrics do not pay for any bookkeeping.
+ * <p>
+ * All counters can be updated concurrently by multiple tagging threads.
+ */
+public class TaggerMetrics implements TaggerMetricsMBean {
+    /**
+     * The name under which the metrics are registered with JMX by default.
+     */
+    public static final String DEFAULT_OBJECT_NAME = "eu.danieldk.nlp.jitar:type=TaggerMetrics";
+
+    private static final int N_HISTOGRAM_BUCKETS = 12;
+
+    private final StripedCounter d_lexiconHits = new StripedCounter();
+
+    private final StripedCounter d_lexiconNanos = new StripedCounter();
+
+    private final StripedCounter d_lowercaseHits = new StripedCounter();
+
+    private final StripedCounter d_lowercaseNanos = new StripedCounter();
+
+    private final StripedCounter d_suffixHits = new StripedCounter();
+
+    private final StripedCounter d_suffixNanos = new StripedCounter();
+
+    private final StripedCounter d_triGramLookups = new StripedCounter();
+
+    private final StripedCounter d_biGramBackoffs = new StripedCounter();
+
+    private final StripedCounter d_uniGramBackoffs = new StripedCounter();
+
+    private final StripedCounter d_columns = new StripedCounter();
+
+    private final StripedCounter d_statesCreated = new StripedCounter();
+
+    private final StripedCounter d_statesPruned = new StripedCounter();
+
+    private final Histogram d_statesPerColumn = new Histogram(N_HISTOGRAM_BUCKETS);
+
+    private final StripedCounter d_sentences = new StripedCounter();
+
+    private final Histogram d_sentenceLengths = new Histogram(N_HISTOGRAM_BUCKETS);
+
+    private final StripedCounter d_degradedSentences = new StripedCounter();
+
+    /**
+     * Record a word that was found in the lexicon.
+     *
+     * @param nanos The time spent on the lookup.
+     */
+    public void lexiconHit(long nanos) {
+        d_lexiconHits.increment();
+        d_lexiconNanos.add(nanos);
+    }
+
+    /**
+     * Record a word of which the lowercased form was found in the lexicon.
+     *
+     * @param nanos The time spent on the lookup.
+     */
+    public void lowercaseHit(long nanos) {
+        d_lowercaseHits.increment();
+        d_lowercaseNanos.add(nanos);
+    }
+
+    /**
+     * Record a word that was handled by the fallback (suffix) word handler.
+     *
+     * @param nanos The time spent on the lookup, including the fallback.
+     */
+    public void suffixHit(long nanos) {
+        d_suffixHits.increment();
+        d_suffixNanos.add(nanos);
+    }
+
+    /**
+     * Record a trigram probability that was found in the trigram table.
+     */
+    public void triGramLookup() {
+        d_triGramLookups.increment();
+    }
+
+    /**
+     * Record a trigram probability that backed off to the bigram table.
+     */
+    public void biGramBackoff() {
+        d_biGramBackoffs.increment();
+    }
+
+    /**
+     * Record a trigram probability that backed off to the unigram table.
+     */
+    public void uniGramBackoff() {
+        d_uniGramBackoffs.increment();
+    }
+
+    /**
+     * Record a trellis column.
+     *
+     * @param created The number of states that were created in the column.
+     * @param pruned  The number of states in the column that fall outside the beam.
+     */
+    public void column(int created, int pruned) {
+        d_columns.increment();
+        d_statesCreated.add(created);
+        d_statesPruned.add(pruned);
+        d_statesPerColumn.add(created);
+    }
+
+    /**
+     * Record a tagged sentence.
+     *
+     * @param length The sentence length, excluding start/end markers.
+     */
+    public void sentence(int length) {
+        d_sentences.increment();
+        d_sentenceLengths.add(length);
+    }
+
+    /**
+     * Record a sentence that exceeded its time budget and was decoded with
+     * a degraded beam.
+     */
+    public void degradedSentence() {
+        d_degradedSentences.increment();
+    }
+
+    @Override
+    public long getLexiconHits() {
+        return d_lexiconHits.sum();
+    }
+
+    @Override
+    public long getLexiconNanos() {
+        return d_lexiconNanos.sum();
+    }
+
+    @Override
+    public long getLowercaseHits() {
+        return d_lowercaseHits.sum();
+    }
+
+    @Override
+    public long getLowercaseNanos() {
+        return d_lowercaseNanos.sum();
+    }
+
+    @Override
+    public long getSuffixHits() {
+        return d_suffixHits.sum();
+    }
+
+    @Override
+    public long getSuffixNanos() {
+        return d_suffixNanos.sum();
+    }
+
+    @Override
+    public long getTriGramLookups() {
+        return d_triGramLookups.sum();
+    }
+
+    @Override
+    public long getBiGramBackoffs() {
+        return d_biGramBackoffs.sum();
+    }
+
+    @Override
+    public long getUniGramBackoffs() {
+        return d_uniGramBackoffs.sum();
+    }
+
+    @Override
+    public long getColumns() {
+        return d_columns.sum();
+    }
+
+    @Override
+    public long getStatesCreated() {
+        return d_statesCreated.sum();
+    }
+
+    @Override
+    public long getStatesPruned() {
+        return d_statesPruned.sum();
+    }
+
+    @Override
+    public long[] getStatesPerColumn() {
+        return d_statesPerColumn.counts();
+    }
+
+    @Override
+    public long getSentences() {
+        return d_sentences.sum();
+    }
+
+    @Override
+    public long[] getSentenceLengths() {
+        return d_sentenceLengths.counts();
+    }
+
+    @Override
+    public long getDegradedSentences() {
+        return d_degradedSentences.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (StripedCounter counter : Arrays.asList(d_lexiconHits, d_lexiconNanos, d_lowercaseHits,
+                d_lowercaseNanos, d_suffixHits, d_suffixNanos, d_triGramLookups, d_biGramBackoffs,
+                d_uniGramBackoffs, d_columns, d_statesCreated, d_statesPruned, d_sentences,
+                d_degradedSentences))
+            counter.reset();
+
+        d_statesPerColumn.reset();
+        d_sentenceLengths.reset();
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, using
+     * {@link #DEFAULT_OBJECT_NAME}.
+     *
+     * @throws JMException The metrics could not be registered.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(DEFAULT_OBJECT_NAME));
+    }
+
+    /**
+     * Write a human-readable summary of the metrics.
+     *
+     * @param out The stream to write to.
+     */
+    public void dump(PrintStream out) {
+        out.println(String.format("Lexicon hits: %d (%.2f ms)", getLexiconHits(), getLexiconNanos() / 1e6));
+        out.println(String.format("Lowercase hits: %d (%.2f ms)", getLowercaseHits(), getLowercaseNanos() / 1e6));
+        out.println(String.format("Suffix handler hits: %d (%.2f ms)", getSuffixHits(), getSuffixNanos() / 1e6));
+        out.println(String.format("Trigram lookups: %d, bigram backoffs: %d, unigram backoffs: %d",
+                getTriGramLookups(), getBiGramBackoffs(), getUniGramBackoffs()));
+        out.println(String.format("Trellis columns: %d, states created: %d, states pruned: %d",
+                getColumns(), getStatesCreated(), getStatesPruned()));
+        out.println(String.format("States per column: %s", d_statesPerColumn));
+        out.println(String.format("Sentences: %d", getSentences()));
+        out.println(String.format("Sentence lengths: %s", d_sentenceLengths));
+        out.println(String.format("Degraded sentences: %d", getDegradedSentences()));
+    }
+}
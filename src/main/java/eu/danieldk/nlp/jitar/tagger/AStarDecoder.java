@@ -0,0 +1,255 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.TriGram;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * An exact best-first decoder that uses the A* algorithm. States are tag pairs,
+ * as in the Viterbi algorithm. A state is expanded in order of its score plus an
+ * upper bound on the score of the rest of the sentence. For each token, this
+ * bound is the maximum over its candidate tags and the candidate tags of the
+ * preceding token of the emission plus the highest trigram probability of the
+ * tag given the preceding tag. The highest trigram probabilities are computed
+ * once from the tables of the language model.
+ * <p>
+ * Since the bound never underestimates the score of the rest of the sentence,
+ * the first complete path that is found is the best path. No beam is used, so
+ * the decoder finds the same sequence as an {@link HMMTagger} without pruning
+ * (up to ties). On sentences where the best path is clearly better than the
+ * alternatives, far fewer states are expanded than the trellis has.
+ */
+public class AStarDecoder implements Decoder {
+    private final Model d_model;
+
+    private final WordHandler d_wordHandler;
+
+    private final DenseLanguageModel d_languageModel;
+
+    private final double[] d_maxTransitions;
+
+    private final int d_startTag;
+
+    /**
+     * The result of a search.
+     */
+    public static class SearchResult {
+        private final HMMTagger.Sequence d_sequence;
+
+        private final int d_expanded;
+
+        private final int d_trellisStates;
+
+        private SearchResult(HMMTagger.Sequence sequence, int expanded, int trellisStates) {
+            d_sequence = sequence;
+            d_expanded = expanded;
+            d_trellisStates = trellisStates;
+        }
+
+        /**
+         * Return the highest-probability sequence.
+         *
+         * @return The sequence.
+         */
+        public HMMTagger.Sequence sequence() {
+            return d_sequence;
+        }
+
+        /**
+         * Return the number of states that were expanded.
+         *
+         * @return The number of expanded states.
+         */
+        public int expandedStates() {
+            return d_expanded;
+        }
+
+        /**
+         * Return the number of states in the full trellis of the sentence,
+         * which would be expanded by the Viterbi algorithm.
+         *
+         * @return The number of trellis states.
+         */
+        public int trellisStates() {
+            return d_trellisStates;
+        }
+    }
+
+    /**
+     * Construct an A* decoder.
+     *
+     * @param model         The tagging model.
+     * @param wordHandler   The handler to be used for retrieving the probabilities
+     *                      of a word given a tag.
+     * @param languageModel The language model.
+     */
+    public AStarDecoder(Model model, WordHandler wordHandler, LinearInterpolationLM languageModel) {
+        d_model = model;
+        d_wordHandler = wordHandler;
+        d_languageModel = new DenseLanguageModel(languageModel);
+        d_startTag = model.tagNumbers().get(Common.START_TOKEN);
+
+        // The probability of p(t3|t1,t2) is taken from the trigram table, or from
+        // the bigram (with unigram backoff) table otherwise. So, the highest
+        // probability of t3 given t2 is the maximum of the bigram probability and
+        // the trigram probabilities with t2 and t3.
+        int nTags = d_languageModel.numberOfTags();
+        d_maxTransitions = new double[nTags * nTags];
+        for (int t2 = 0; t2 < nTags; ++t2)
+            for (int t3 = 0; t3 < nTags; ++t3)
+                d_maxTransitions[t2 * nTags + t3] = d_languageModel.biGramProb(t2, t3);
+        for (Entry<TriGram, Double> entry : languageModel.triGramProbs().entrySet()) {
+            TriGram triGram = entry.getKey();
+            int index = triGram.t2() * nTags + triGram.t3();
+            d_maxTransitions[index] = Math.max(d_maxTransitions[index], entry.getValue());
+        }
+    }
+
+    @Override
+    public HMMTagger.Sequence decode(List<String> sentence) {
+        return search(sentence).sequence();
+    }
+
+    /**
+     * Find the highest-probability sequence of a sentence.
+     *
+     * @param sentence The sentence.
+     * @return The search result.
+     */
+    public SearchResult search(List<String> sentence) {
+        int n = sentence.size() + Common.DEFAULT_START_MARKER_TOKENS.size() +
+                Common.DEFAULT_END_MARKER_TOKENS.size();
+
+        int[][] tags = new int[n][];
+        double[][] emissions = new double[n][];
+        tags[0] = tags[1] = new int[]{d_startTag};
+        emissions[0] = emissions[1] = new double[]{0.0};
+        for (int i = 0; i < sentence.size(); ++i)
+            DenseDecoder.setEmissions(i + 2, d_wordHandler.tagProbs(sentence.get(i)), tags, emissions);
+        DenseDecoder.setEmissions(n - 1, d_wordHandler.tagProbs(Common.END_TOKEN), tags, emissions);
+
+        // Upper bound of the score of tokens i + 1 ... n - 1.
+        double[] outside = new double[n];
+        int nTags = d_languageModel.numberOfTags();
+        for (int i = n - 2; i >= 0; --i) {
+            double bound = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < tags[i + 1].length; ++k)
+                for (int j = 0; j < tags[i].length; ++j)
+                    bound = Math.max(bound, emissions[i + 1][k] +
+                            d_maxTransitions[tags[i][j] * nTags + tags[i + 1][k]]);
+            outside[i] = outside[i + 1] + bound;
+        }
+
+        // The best score found so far and whether a state was expanded, indexed by
+        // [k * |tags[i - 1]| + j] for the state (tags[i - 1][j], tags[i][k]).
+        double[][] best = new double[n][];
+        boolean[][] closed = new boolean[n][];
+        int trellisStates = 0;
+        for (int i = 1; i < n; ++i) {
+            best[i] = new double[tags[i - 1].length * tags[i].length];
+            Arrays.fill(best[i], Double.NEGATIVE_INFINITY);
+            closed[i] = new boolean[best[i].length];
+            trellisStates += best[i].length;
+        }
+
+        PriorityQueue<Node> agenda = new PriorityQueue<>();
+        best[1][0] = 0.0;
+        agenda.add(new Node(1, 0, 0, 0.0, outside[1], null));
+
+        int expanded = 0;
+        Node node;
+        while ((node = agenda.poll()) != null) {
+            int state = node.d_k * tags[node.d_i - 1].length + node.d_j;
+            if (closed[node.d_i][state])
+                continue;
+            closed[node.d_i][state] = true;
+            ++expanded;
+
+            if (node.d_i == n - 1)
+                return new SearchResult(backtrack(node, tags), expanded, trellisStates);
+
+            int i = node.d_i + 1;
+            int t1 = tags[i - 2][node.d_j];
+            int t2 = tags[i - 1][node.d_k];
+            for (int k = 0; k < tags[i].length; ++k) {
+                int successor = k * tags[i - 1].length + node.d_k;
+                if (closed[i][successor])
+                    continue;
+
+                double score = node.d_score + d_languageModel.triGramProb(t1, t2, tags[i][k]) + emissions[i][k];
+                if (score > best[i][successor]) {
+                    best[i][successor] = score;
+                    agenda.add(new Node(i, node.d_k, k, score, score + outside[i], node));
+                }
+            }
+        }
+
+        throw new IllegalStateException("Search space exhausted without reaching the end of the sentence.");
+    }
+
+    private HMMTagger.Sequence backtrack(Node goal, int[][] tags) {
+        List<Integer> tagSequence = new ArrayList<>(tags.length);
+        for (Node node = goal; node != null; node = node.d_previous)
+            tagSequence.add(tags[node.d_i][node.d_k]);
+        tagSequence.add(tags[0][0]);
+
+        Collections.reverse(tagSequence);
+
+        return new HMMTagger.Sequence(tagSequence, goal.d_score, d_model);
+    }
+
+    /**
+     * A search node for the state (tags[i - 1][j], tags[i][k]).
+     */
+    private static class Node implements Comparable<Node> {
+        private final int d_i;
+
+        private final int d_j;
+
+        private final int d_k;
+
+        private final double d_score;
+
+        private final double d_priority;
+
+        private final Node d_previous;
+
+        private Node(int i, int j, int k, double score, double priority, Node previous) {
+            d_i = i;
+            d_j = j;
+            d_k = k;
+            d_score = score;
+            d_priority = priority;
+            d_previous = previous;
+        }
+
+        // Highest priority first.
+        @Override
+        public int compareTo(Node other) {
+            return Double.compare(other.d_priority, d_priority);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A first-order (bigram) HMM decoder. The states of the trellis are single
+ * tags rather than tag pairs, so a column costs <i>|tags[i - 1]| * |tags[i]|</i>
+ * instead of <i>|tags[i - 2]| * |tags[i - 1]| * |tags[i]|</i> operations. It
+ * uses the interpolated bigram probabilities of the language model, and is
+ * typically somewhat less accurate than trigram decoding.
+ */
+public class BiGramDecoder implements Decoder {
+    private final Model d_model;
+
+    private final WordHandler d_wordHandler;
+
+    private final DenseLanguageModel d_languageModel;
+
+    private final double d_beamFactor;
+
+    private final int d_startTag;
+
+    /**
+     * Construct a bigram decoder.
+     *
+     * @param model         The tagging model.
+     * @param wordHandler   The handler to be used for retrieving the probabilities
+     *                      of a word given a tag.
+     * @param languageModel The language model.
+     * @param beamFactor    A beam factor, states with a probability lower than the
+     *                      most probably state divided by this factor will be discarded.
+     */
+    public BiGramDecoder(Model model, WordHandler wordHandler, DenseLanguageModel languageModel,
+                         double beamFactor) {
+        d_model = model;
+        d_wordHandler = wordHandler;
+        d_languageModel = languageModel;
+        d_beamFactor = beamFactor;
+        d_startTag = model.tagNumbers().get(Common.START_TOKEN);
+    }
+
+    @Override
+    public HMMTagger.Sequence decode(List<String> sentence) {
+        int n = sentence.size() + Common.DEFAULT_START_MARKER_TOKENS.size() +
+                Common.DEFAULT_END_MARKER_TOKENS.size();
+
+        int[][] tags = new int[n][];
+        double[][] emissions = new double[n][];
+        tags[0] = tags[1] = new int[]{d_startTag};
+        emissions[0] = emissions[1] = new double[]{0.0};
+        for (int i = 0; i < sentence.size(); ++i)
+            DenseDecoder.setEmissions(i + 2, d_wordHandler.tagProbs(sentence.get(i)), tags, emissions);
+        DenseDecoder.setEmissions(n - 1, d_wordHandler.tagProbs(Common.END_TOKEN), tags, emissions);
+
+        double[][] scores = new double[n][];
+        int[][] backPointers = new int[n][];
+        scores[1] = new double[]{0.0};
+
+        for (int i = 2; i < n; ++i) {
+            int[] prevTags = tags[i - 1];
+            double[] prev = scores[i - 1];
+
+            double beam = Double.NEGATIVE_INFINITY;
+            for (double prob : prev)
+                beam = Math.max(beam, prob);
+            beam -= d_beamFactor;
+
+            double[] cur = new double[tags[i].length];
+            int[] bp = new int[tags[i].length];
+            for (int k = 0; k < tags[i].length; ++k) {
+                int tag = tags[i][k];
+
+                double highestProb = Double.NEGATIVE_INFINITY;
+                int highestProbBp = 0;
+                for (int j = 0; j < prevTags.length; ++j) {
+                    if (prev[j] < beam)
+                        continue;
+
+                    double prob = d_languageModel.biGramProb(prevTags[j], tag) + emissions[i][k] + prev[j];
+                    if (prob > highestProb) {
+                        highestProb = prob;
+                        highestProbBp = j;
+                    }
+                }
+
+                cur[k] = highestProb;
+                bp[k] = highestProbBp;
+            }
+
+            scores[i] = cur;
+            backPointers[i] = bp;
+        }
+
+        double[] last = scores[n - 1];
+        int k = 0;
+        for (int s = 1; s < last.length; ++s)
+            if (last[s] > last[k])
+                k = s;
+        double logProb = last[k];
+
+        List<Integer> tagSequence = new ArrayList<>(n);
+        for (int i = n - 1; i >= 2; --i) {
+            tagSequence.add(tags[i][k]);
+            k = backPointers[i][k];
+        }
+        tagSequence.add(tags[1][k]);
+        tagSequence.add(tags[0][0]);
+
+        Collections.reverse(tagSequence);
+
+        return new HMMTagger.Sequence(tagSequence, logProb, d_model);
+    }
+}
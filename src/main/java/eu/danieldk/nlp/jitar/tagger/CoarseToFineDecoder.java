@@ -0,0 +1,245 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.data.BiGram;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.TriGram;
+import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * A decoder that prunes the candidate tags of each token with a cheap coarse
+ * pass before running the trigram Viterbi algorithm of an {@link HMMTagger}.
+ * <p>
+ * The training data tags are split into a capitalized (<i>c-</i>) and a
+ * non-capitalized (<i>n-</i>) variant. The coarse pass uses a bigram model
+ * over the tags with this distinction collapsed. It computes the max-marginal
+ * of each coarse tag for each token: the score of the best coarse path that
+ * goes through that tag. Tags whose max-marginal is more than a threshold
+ * below the best path are removed, and the fine pass decodes only the
+ * remaining candidates.
+ * <p>
+ * Pruning can remove tags of the best fine path, so the result can differ
+ * from that of the {@link HMMTagger}. A larger threshold prunes less.
+ */
+public class CoarseToFineDecoder implements Decoder {
+    /**
+     * The default pruning threshold in log space.
+     */
+    public static final double DEFAULT_THRESHOLD = 5.0;
+
+    private final HMMTagger d_tagger;
+
+    private final double d_threshold;
+
+    private final int[] d_coarseTags;
+
+    private final DenseLanguageModel d_coarseModel;
+
+    /**
+     * Construct a coarse-to-fine decoder with the default threshold.
+     *
+     * @param tagger The tagger to use for the fine pass.
+     */
+    public CoarseToFineDecoder(HMMTagger tagger) {
+        this(tagger, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Construct a coarse-to-fine decoder.
+     *
+     * @param tagger    The tagger to use for the fine pass.
+     * @param threshold Candidate tags with a coarse max-marginal log-probability
+     *                  that is more than this threshold below the best path are pruned.
+     */
+    public CoarseToFineDecoder(HMMTagger tagger, double threshold) {
+        d_tagger = tagger;
+        d_threshold = threshold;
+
+        Model model = tagger.model();
+        d_coarseTags = coarseTags(model);
+
+        Map<UniGram, Integer> uniGrams = new HashMap<>();
+        for (Entry<UniGram, Integer> entry : model.uniGrams().entrySet())
+            add(uniGrams, new UniGram(d_coarseTags[entry.getKey().t1()]), entry.getValue());
+
+        Map<BiGram, Integer> biGrams = new HashMap<>();
+        for (Entry<BiGram, Integer> entry : model.biGrams().entrySet())
+            add(biGrams, new BiGram(d_coarseTags[entry.getKey().t1()], d_coarseTags[entry.getKey().t2()]),
+                    entry.getValue());
+
+        Map<TriGram, Integer> triGrams = new HashMap<>();
+        for (Entry<TriGram, Integer> entry : model.triGrams().entrySet()) {
+            TriGram triGram = entry.getKey();
+            add(triGrams, new TriGram(d_coarseTags[triGram.t1()], d_coarseTags[triGram.t2()],
+                    d_coarseTags[triGram.t3()]), entry.getValue());
+        }
+
+        d_coarseModel = new DenseLanguageModel(new LinearInterpolationLM(uniGrams, biGrams, triGrams));
+    }
+
+    /**
+     * Map each tag to its coarse tag, which is the tag without the capitalization
+     * prefix. Coarse tags are numbered from zero.
+     *
+     * @param model The model.
+     * @return The coarse tag of each tag number.
+     */
+    static int[] coarseTags(Model model) {
+        int nTags = 0;
+        for (Integer tag : model.numberTags().keySet())
+            nTags = Math.max(nTags, tag + 1);
+
+        Map<String, Integer> coarseNumbers = new HashMap<>();
+        int[] coarseTags = new int[nTags];
+        for (int tag = 0; tag < nTags; ++tag) {
+            String name = model.numberTags().get(tag);
+            if (name == null)
+                name = "";
+            else if (name.startsWith("c-") || name.startsWith("n-"))
+                name = name.substring(2);
+
+            Integer coarse = coarseNumbers.get(name);
+            if (coarse == null) {
+                coarse = coarseNumbers.size();
+                coarseNumbers.put(name, coarse);
+            }
+
+            coarseTags[tag] = coarse;
+        }
+
+        return coarseTags;
+    }
+
+    @Override
+    public HMMTagger.Sequence decode(List<String> sentence) {
+        List<Map<Integer, Double>> emissions = d_tagger.emissions(sentence);
+        d_tagger.recordSentence(emissions);
+
+        return HMMTagger.highestProbabilitySequence(d_tagger.trellis(prune(emissions)), d_tagger.model());
+    }
+
+    /**
+     * Remove the candidate tags that fall outside the threshold in the coarse pass.
+     *
+     * @param emissions The tag probabilities of the tokens, including markers.
+     * @return The pruned tag probabilities.
+     */
+    List<Map<Integer, Double>> prune(List<Map<Integer, Double>> emissions) {
+        int n = emissions.size();
+
+        // Coarse candidates and their emission scores, the maximum of the fine tags.
+        int[][] tags = new int[n][];
+        double[][] scores = new double[n][];
+        for (int i = 1; i < n; ++i) {
+            Map<Integer, Double> tagProbs = emissions.get(i);
+            int[] coarseTags = new int[tagProbs.size()];
+            double[] coarseScores = new double[tagProbs.size()];
+
+            int size = 0;
+            for (Entry<Integer, Double> entry : tagProbs.entrySet()) {
+                int tag = d_coarseTags[entry.getKey()];
+
+                // Candidate lists are short, a linear search is cheaper than a map.
+                int k = 0;
+                while (k < size && coarseTags[k] != tag)
+                    ++k;
+
+                if (k == size) {
+                    coarseTags[size] = tag;
+                    coarseScores[size++] = entry.getValue();
+                } else
+                    coarseScores[k] = Math.max(coarseScores[k], entry.getValue());
+            }
+
+            tags[i] = Arrays.copyOf(coarseTags, size);
+            scores[i] = Arrays.copyOf(coarseScores, size);
+        }
+
+        // Forward and backward Viterbi scores of the coarse bigram model.
+        double[][] forward = new double[n][];
+        forward[1] = new double[tags[1].length];
+        for (int i = 2; i < n; ++i) {
+            forward[i] = new double[tags[i].length];
+            for (int k = 0; k < tags[i].length; ++k) {
+                double best = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < tags[i - 1].length; ++j)
+                    best = Math.max(best, forward[i - 1][j] + d_coarseModel.biGramProb(tags[i - 1][j], tags[i][k]));
+                forward[i][k] = best + scores[i][k];
+            }
+        }
+
+        double[][] backward = new double[n][];
+        backward[n - 1] = new double[tags[n - 1].length];
+        for (int i = n - 2; i >= 1; --i) {
+            backward[i] = new double[tags[i].length];
+            for (int j = 0; j < tags[i].length; ++j) {
+                double best = Double.NEGATIVE_INFINITY;
+                for (int k = 0; k < tags[i + 1].length; ++k)
+                    best = Math.max(best, d_coarseModel.biGramProb(tags[i][j], tags[i + 1][k]) +
+                            scores[i + 1][k] + backward[i + 1][k]);
+                backward[i][j] = best;
+            }
+        }
+
+        List<Map<Integer, Double>> pruned = new ArrayList<>(emissions);
+        for (int i = 2; i < n; ++i) {
+            if (tags[i].length == 1)
+                continue;
+
+            double best = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < tags[i].length; ++k)
+                best = Math.max(best, forward[i][k] + backward[i][k]);
+
+            int nKeep = 0;
+            boolean[] keep = new boolean[tags[i].length];
+            for (int k = 0; k < tags[i].length; ++k)
+                if (forward[i][k] + backward[i][k] >= best - d_threshold) {
+                    keep[k] = true;
+                    ++nKeep;
+                }
+
+            if (nKeep == tags[i].length)
+                continue;
+
+            Map<Integer, Double> tagProbs = new HashMap<>();
+            for (Entry<Integer, Double> entry : emissions.get(i).entrySet()) {
+                int tag = d_coarseTags[entry.getKey()];
+                for (int k = 0; k < tags[i].length; ++k)
+                    if (tags[i][k] == tag) {
+                        if (keep[k])
+                            tagProbs.put(entry.getKey(), entry.getValue());
+                        break;
+                    }
+            }
+            pruned.set(i, tagProbs);
+        }
+
+        return pruned;
+    }
+
+    private static <K> void add(Map<K, Integer> counts, K key, int count) {
+        Integer current = counts.get(key);
+        counts.put(key, current == null ? count : current + count);
+    }
+}
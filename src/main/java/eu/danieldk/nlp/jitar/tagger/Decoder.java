@@ -0,0 +1,34 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import java.util.List;
+
+/**
+ * Classes that implement the <i>Decoder</i> interface find a tag sequence
+ * for a sentence.
+ */
+public interface Decoder {
+    /**
+     * Find a tag sequence for a sentence.
+     *
+     * @param sentence The sentence, without start/end markers.
+     * @return The tag sequence.
+     */
+    HMMTagger.Sequence decode(List<String> sentence);
+}
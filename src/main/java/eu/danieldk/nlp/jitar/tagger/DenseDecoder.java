@@ -0,0 +1,200 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A Viterbi decoder that stores the trellis in flat arrays instead of maps of
+ * trellis states. The scores of a column are laid out such that, for each
+ * state, the scores of its predecessors are contiguous. Tags are plain
+ * <tt>int</tt>s and scores plain <tt>double</tt>s, so the recurrence does not
+ * box values or allocate trellis states and hash map entries per column.
+ * Trigram probabilities are still looked up per transition.
+ * <p>
+ * The decoder finds the same sequences as {@link HMMTagger} with the same
+ * beam factor. Scores are accumulated in the same order, so that ties are
+ * not broken differently due to rounding.
+ */
+public class DenseDecoder implements Decoder {
+    private final Model d_model;
+
+    private final WordHandler d_wordHandler;
+
+    private final DenseLanguageModel d_languageModel;
+
+    private final double d_beamFactor;
+
+    private final int d_startTag;
+
+    /**
+     * Construct a dense decoder.
+     *
+     * @param model         The tagging model.
+     * @param wordHandler   The handler to be used for retrieving the probabilities
+     *                      of a word given a tag.
+     * @param languageModel The language model.
+     * @param beamFactor    A beam factor, states with a probability lower than the
+     *                      most probably state divided by this factor will be discarded.
+     */
+    public DenseDecoder(Model model, WordHandler wordHandler, DenseLanguageModel languageModel,
+                        double beamFactor) {
+        d_model = model;
+        d_wordHandler = wordHandler;
+        d_languageModel = languageModel;
+        d_beamFactor = beamFactor;
+        d_startTag = model.tagNumbers().get(Common.START_TOKEN);
+    }
+
+    @Override
+    public HMMTagger.Sequence decode(List<String> sentence) {
+        int n = sentence.size() + Common.DEFAULT_START_MARKER_TOKENS.size() +
+                Common.DEFAULT_END_MARKER_TOKENS.size();
+
+        int[][] tags = new int[n][];
+        double[][] emissions = new double[n][];
+
+        tags[0] = tags[1] = new int[]{d_startTag};
+        emissions[0] = emissions[1] = new double[]{0.0};
+        for (int i = 0; i < sentence.size(); ++i)
+            setEmissions(i + 2, d_wordHandler.tagProbs(sentence.get(i)), tags, emissions);
+        setEmissions(n - 1, d_wordHandler.tagProbs(Common.END_TOKEN), tags, emissions);
+
+        // The scores of column i are stored as [k * |tags[i - 1]| + j], for the
+        // state with tags[i][k] as the current and tags[i - 1][j] as the previous
+        // tag. The back pointers hold the index of the tag at i - 2.
+        double[][] scores = new double[n][];
+        int[][] backPointers = new int[n][];
+        scores[1] = new double[]{0.0};
+
+        double[] row = new double[0];
+
+        for (int i = 2; i < n; ++i) {
+            int[] t1s = tags[i - 2];
+            int[] t2s = tags[i - 1];
+            int[] t3s = tags[i];
+            double[] prev = scores[i - 1];
+
+            if (i > 2)
+                prune(prev);
+
+            if (row.length < t1s.length)
+                row = new double[t1s.length];
+
+            double[] cur = new double[t3s.length * t2s.length];
+            int[] bp = new int[t3s.length * t2s.length];
+
+            for (int k = 0; k < t3s.length; ++k) {
+                int t3 = t3s[k];
+                double emission = emissions[i][k];
+
+                for (int j = 0; j < t2s.length; ++j) {
+                    int t2 = t2s[j];
+                    int offset = j * t1s.length;
+
+                    for (int m = 0; m < t1s.length; ++m)
+                        row[m] = d_languageModel.triGramProb(t1s[m], t2, t3) + emission;
+
+                    double highestProb = Double.NEGATIVE_INFINITY;
+                    for (int m = 0; m < t1s.length; ++m)
+                        highestProb = Math.max(highestProb, row[m] + prev[offset + m]);
+
+                    int highestProbBp = 0;
+                    for (int m = 0; m < t1s.length; ++m)
+                        if (row[m] + prev[offset + m] == highestProb) {
+                            highestProbBp = m;
+                            break;
+                        }
+
+                    cur[k * t2s.length + j] = highestProb;
+                    bp[k * t2s.length + j] = highestProbBp;
+                }
+            }
+
+            scores[i] = cur;
+            backPointers[i] = bp;
+        }
+
+        return backtrack(tags, scores, backPointers);
+    }
+
+    private HMMTagger.Sequence backtrack(int[][] tags, double[][] scores, int[][] backPointers) {
+        int n = tags.length;
+
+        double[] last = scores[n - 1];
+        int best = 0;
+        for (int s = 1; s < last.length; ++s)
+            if (last[s] > last[best])
+                best = s;
+
+        int k = best / tags[n - 2].length;
+        int j = best % tags[n - 2].length;
+
+        List<Integer> tagSequence = new ArrayList<>(n);
+        tagSequence.add(tags[n - 1][k]);
+        for (int i = n - 1; i >= 2; --i) {
+            tagSequence.add(tags[i - 1][j]);
+            int m = backPointers[i][k * tags[i - 1].length + j];
+            k = j;
+            j = m;
+        }
+        tagSequence.add(tags[0][j]);
+
+        Collections.reverse(tagSequence);
+
+        return new HMMTagger.Sequence(tagSequence, last[best], d_model);
+    }
+
+    /**
+     * Remove states that fall outside the beam from a column.
+     */
+    private void prune(double[] column) {
+        double highestProb = Double.NEGATIVE_INFINITY;
+        for (double prob : column)
+            highestProb = Math.max(highestProb, prob);
+
+        double beam = highestProb - d_beamFactor;
+        for (int s = 0; s < column.length; ++s)
+            if (column[s] < beam)
+                column[s] = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Store the candidate tags of a token and their probabilities in arrays.
+     */
+    static void setEmissions(int index, Map<Integer, Double> tagProbs, int[][] tags,
+                             double[][] emissions) {
+        tags[index] = new int[tagProbs.size()];
+        emissions[index] = new double[tagProbs.size()];
+
+        int k = 0;
+        for (Entry<Integer, Double> entry : tagProbs.entrySet()) {
+            tags[index][k] = entry.getKey();
+            emissions[index][k] = entry.getValue();
+            ++k;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A greedy left-to-right decoder. For each token, it picks the tag that starts
+ * the best continuation of the tags picked so far over the next <i>lookahead</i>
+ * tokens. Without lookahead, this is the tag with the highest trigram plus
+ * emission probability given the two previous tags, which takes <i>O(n T)</i>
+ * time. Each extra token of lookahead multiplies the cost by the number of
+ * candidate tags of that token.
+ * <p>
+ * The decoder is faster than Viterbi decoding, but can not recover from an
+ * early mistake, so it is typically less accurate.
+ */
+public class GreedyDecoder implements Decoder {
+    private final Model d_model;
+
+    private final WordHandler d_wordHandler;
+
+    private final DenseLanguageModel d_languageModel;
+
+    private final int d_lookahead;
+
+    private final int d_startTag;
+
+    /**
+     * Construct a greedy decoder.
+     *
+     * @param model         The tagging model.
+     * @param wordHandler   The handler to be used for retrieving the probabilities
+     *                      of a word given a tag.
+     * @param languageModel The language model.
+     * @param lookahead     The number of following tokens to consider when picking a tag.
+     */
+    public GreedyDecoder(Model model, WordHandler wordHandler, DenseLanguageModel languageModel,
+                         int lookahead) {
+        if (lookahead < 0)
+            throw new IllegalArgumentException("The lookahead should be non-negative.");
+
+        d_model = model;
+        d_wordHandler = wordHandler;
+        d_languageModel = languageModel;
+        d_lookahead = lookahead;
+        d_startTag = model.tagNumbers().get(Common.START_TOKEN);
+    }
+
+    @Override
+    public HMMTagger.Sequence decode(List<String> sentence) {
+        int n = sentence.size() + Common.DEFAULT_START_MARKER_TOKENS.size() +
+                Common.DEFAULT_END_MARKER_TOKENS.size();
+
+        int[][] tags = new int[n][];
+        double[][] emissions = new double[n][];
+        tags[0] = tags[1] = new int[]{d_startTag};
+        emissions[0] = emissions[1] = new double[]{0.0};
+        for (int i = 0; i < sentence.size(); ++i)
+            DenseDecoder.setEmissions(i + 2, d_wordHandler.tagProbs(sentence.get(i)), tags, emissions);
+        DenseDecoder.setEmissions(n - 1, d_wordHandler.tagProbs(Common.END_TOKEN), tags, emissions);
+
+        List<Integer> tagSequence = new ArrayList<>(n);
+        tagSequence.add(d_startTag);
+        tagSequence.add(d_startTag);
+
+        double logProb = 0.0;
+        int t1 = d_startTag;
+        int t2 = d_startTag;
+        for (int i = 2; i < n; ++i) {
+            int depth = Math.min(d_lookahead, n - 1 - i);
+
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < tags[i].length; ++k) {
+                double score = d_languageModel.triGramProb(t1, t2, tags[i][k]) + emissions[i][k];
+                double total = score + continuation(tags, emissions, i + 1, t2, tags[i][k], depth);
+                if (total > bestScore) {
+                    bestScore = total;
+                    best = k;
+                }
+            }
+
+            logProb += d_languageModel.triGramProb(t1, t2, tags[i][best]) + emissions[i][best];
+            t1 = t2;
+            t2 = tags[i][best];
+            tagSequence.add(t2);
+        }
+
+        return new HMMTagger.Sequence(tagSequence, logProb, d_model);
+    }
+
+    /**
+     * Return the score of the best continuation of <i>depth</i> tokens, starting at
+     * token <i>i</i>, given the two previous tags.
+     */
+    private double continuation(int[][] tags, double[][] emissions, int i, int t1, int t2, int depth) {
+        if (depth == 0)
+            return 0.0;
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < tags[i].length; ++k)
+            best = Math.max(best, d_languageModel.triGramProb(t1, t2, tags[i][k]) + emissions[i][k] +
+                    continuation(tags, emissions, i + 1, t2, tags[i][k], depth - 1));
+
+        return best;
+    }
+}
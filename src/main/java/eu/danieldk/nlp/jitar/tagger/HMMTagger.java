@@ -16,10 +16,12 @@
 
 package eu.danieldk.nlp.jitar.tagger;
 
+import com.google.common.base.Ticker;
 import eu.danieldk.nlp.jitar.corpus.Common;
 import eu.danieldk.nlp.jitar.data.Model;
 import eu.danieldk.nlp.jitar.data.TriGram;
 import eu.danieldk.nlp.jitar.languagemodel.LanguageModel;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
 import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
 
 import java.util.*;
@@ -29,7 +31,7 @@ import java.util.Map.Entry;
  * Instances of this class can be used to tag sequences using a Hidden
  * Markov Model (HMM).
  */
-public class HMMTagger {
+public class HMMTagger implements Decoder {
     private final Model d_model;
 
     private final WordHandler d_wordHandler;
@@ -38,6 +40,8 @@ public class HMMTagger {
 
     private final double d_beamFactor;
 
+    private final TaggerMetrics d_metrics;
+
     private static class TrellisState {
         public int tag;
 
@@ -52,14 +56,167 @@ public class HMMTagger {
         }
     }
 
+    /**
+     * A Viterbi trellis that is extended one column at a time.
+     */
+    private class Trellis {
+        public List<TrellisState> column = new ArrayList<>();
+
+        public double beam = 0.0;
+
+        public boolean degraded = false;
+
+        public Trellis() {
+            this(d_model.tagNumbers().get(Common.START_TOKEN), d_model.tagNumbers().get(Common.START_TOKEN));
+        }
+
+        /**
+         * Construct a trellis that starts in the given state.
+         *
+         * @param t1 The tag of the first token.
+         * @param t2 The tag of the second token.
+         */
+        public Trellis(int t1, int t2) {
+            // Prepare initial trellis states;
+            TrellisState initialState = new TrellisState(t1);
+
+            TrellisState initialState2 = new TrellisState(t2);
+            initialState2.probabilities.put(initialState, 0.0);
+            initialState2.backPointers.put(initialState, null);
+
+            column.add(initialState2);
+        }
+
+        /**
+         * Add a column for the next token.
+         *
+         * @param tagProbs The tag probabilities of the token.
+         */
+        public void advance(Map<Integer, Double> tagProbs) {
+            if (degraded) {
+                advanceGreedy(tagProbs);
+                return;
+            }
+
+            double columnHighestProb = Double.NEGATIVE_INFINITY;
+
+            List<TrellisState> newColumn = new ArrayList<>(tagProbs.size());
+
+            for (Entry<Integer, Double> tagEntry : tagProbs.entrySet()) {
+                TrellisState newEntry = new TrellisState(tagEntry.getKey());
+
+                // Loop over all possible trigrams
+                for (TrellisState t2 : column) {
+                    double highestProb = Double.NEGATIVE_INFINITY;
+                    TrellisState highestProbBp = null;
+
+                    for (Map.Entry<TrellisState, Double> t1Entry : t2.probabilities.entrySet()) {
+                        if (t1Entry.getValue() < beam)
+                            continue;
+
+                        TriGram curTriGram = new TriGram(t1Entry.getKey().tag, t2.tag,
+                                tagEntry.getKey());
+
+                        double triGramProb = d_languageModel.triGramProb(curTriGram);
+                        double prob = triGramProb + tagEntry.getValue() + t1Entry.getValue();
+
+                        if (prob > highestProb) {
+                            highestProb = prob;
+                            highestProbBp = t1Entry.getKey();
+                        }
+                    }
+
+                    newEntry.probabilities.put(t2, highestProb);
+                    newEntry.backPointers.put(t2, highestProbBp);
+
+                    if (highestProb > columnHighestProb)
+                        columnHighestProb = highestProb;
+                }
+
+                newColumn.add(newEntry);
+            }
+
+            column = newColumn;
+            beam = columnHighestProb - d_beamFactor;
+
+            if (d_metrics != null)
+                recordColumn(column, beam);
+        }
+
+        /**
+         * Collapse the current column to its most probable state, and only
+         * extend the most probable state from now on. This completes the
+         * sequence greedily, each following column costs <i>O(T)</i> for
+         * <i>T</i> candidate tags.
+         */
+        public void degrade() {
+            TrellisState best = null;
+            TrellisState bestT1 = null;
+            double bestProb = Double.NEGATIVE_INFINITY;
+            for (TrellisState t2 : column)
+                for (Map.Entry<TrellisState, Double> t1Entry : t2.probabilities.entrySet())
+                    if (best == null || t1Entry.getValue() > bestProb) {
+                        best = t2;
+                        bestT1 = t1Entry.getKey();
+                        bestProb = t1Entry.getValue();
+                    }
+
+            TrellisState collapsed = new TrellisState(best.tag);
+            collapsed.probabilities.put(bestT1, bestProb);
+            collapsed.backPointers.put(bestT1, best.backPointers.get(bestT1));
+
+            column = new ArrayList<>(1);
+            column.add(collapsed);
+            beam = bestProb;
+            degraded = true;
+        }
+
+        /**
+         * Extend the single state of a degraded column with the most probable tag.
+         *
+         * @param tagProbs The tag probabilities of the token.
+         */
+        private void advanceGreedy(Map<Integer, Double> tagProbs) {
+            TrellisState t2 = column.get(0);
+            Map.Entry<TrellisState, Double> t1Entry = t2.probabilities.entrySet().iterator().next();
+
+            int bestTag = -1;
+            double bestProb = Double.NEGATIVE_INFINITY;
+            for (Entry<Integer, Double> tagEntry : tagProbs.entrySet()) {
+                double prob = d_languageModel.triGramProb(new TriGram(t1Entry.getKey().tag, t2.tag,
+                        tagEntry.getKey())) + tagEntry.getValue() + t1Entry.getValue();
+                if (bestTag == -1 || prob > bestProb) {
+                    bestTag = tagEntry.getKey();
+                    bestProb = prob;
+                }
+            }
+
+            TrellisState state = new TrellisState(bestTag);
+            state.probabilities.put(t2, bestProb);
+            state.backPointers.put(t2, t1Entry.getKey());
+
+            column = new ArrayList<>(1);
+            column.add(state);
+            beam = bestProb;
+
+            if (d_metrics != null)
+                recordColumn(column, beam);
+        }
+    }
+
     /**
      * Wrapper class for a sequence, and its associated probability.
      */
     public static class Sequence {
         public Sequence(List<Integer> sequence, double logProb, Model model) {
+            this(sequence, logProb, model, false);
+        }
+
+        public Sequence(List<Integer> sequence, double logProb, Model model, boolean degraded) {
             d_sequence = sequence;
             d_logProb = logProb;
             d_numberTags = model.numberTags();
+            d_degraded = degraded;
         }
 
         /**
@@ -83,6 +240,16 @@ public class HMMTagger {
             return tagSequence;
         }
 
+        /**
+         * Return the tag numbers of the sequence, including the start and
+         * end markers.
+         *
+         * @return The tag numbers.
+         */
+        public List<Integer> tagNumbers() {
+            return d_sequence;
+        }
+
         /**
          * Return the probability of the sequence in log space.
          *
@@ -97,6 +264,19 @@ public class HMMTagger {
         private final double d_logProb;
 
         private final Map<Integer, String> d_numberTags;
+
+        private final boolean d_degraded;
+
+        /**
+         * Return whether the sequence was found with a degraded search, because
+         * the time budget was exceeded. Such a sequence may not be the most
+         * probable sequence.
+         *
+         * @return <tt>true</tt> if the search was degraded.
+         */
+        public boolean isDegraded() {
+            return d_degraded;
+        }
     }
 
     /**
@@ -111,10 +291,27 @@ public class HMMTagger {
      */
     public HMMTagger(Model model, WordHandler wordHandler, LanguageModel languageModel,
                      double beamFactor) {
+        this(model, wordHandler, languageModel, beamFactor, null);
+    }
+
+    /**
+     * Construct an <i>HMMTagger</i> instance that records trellis statistics.
+     *
+     * @param model         The tagging model.
+     * @param wordHandler   The handler to be used for retrieving the probabilities
+     *                      of a word given a tag.
+     * @param languageModel The language model.
+     * @param beamFactor    A beam factor, states with a probability lower than the
+     *                      most probably state divided by this factor will be discarded.
+     * @param metrics       Metrics to record trellis statistics in, may be <tt>null</tt>.
+     */
+    public HMMTagger(Model model, WordHandler wordHandler, LanguageModel languageModel,
+                     double beamFactor, TaggerMetrics metrics) {
         d_wordHandler = wordHandler;
         d_model = model;
         d_languageModel = languageModel;
         d_beamFactor = beamFactor;
+        d_metrics = metrics;
     }
 
     /**
@@ -126,6 +323,11 @@ public class HMMTagger {
      */
     public static Sequence highestProbabilitySequence(List<TrellisState> trellis,
                                                       Model model) {
+        return highestProbabilitySequence(trellis, model, false);
+    }
+
+    private static Sequence highestProbabilitySequence(List<TrellisState> trellis, Model model,
+                                                       boolean degraded) {
         // Find the most probably final state.
         double highestProb = Double.NEGATIVE_INFINITY;
         TrellisState tail = null;
@@ -160,7 +362,7 @@ public class HMMTagger {
 
         Collections.reverse(tagSequence);
 
-        return new Sequence(tagSequence, highestProb, model);
+        return new Sequence(tagSequence, highestProb, model, degraded);
     }
 
     /**
@@ -172,6 +374,58 @@ public class HMMTagger {
         return d_model;
     }
 
+    @Override
+    public Sequence decode(List<String> sentence) {
+        return highestProbabilitySequence(tag(sentence), d_model);
+    }
+
+    /**
+     * Tag a sentence within a time budget. The budget is checked after each
+     * trellis column. Once it is exceeded, the last column is collapsed to
+     * its most probable state and the sentence is completed greedily, taking
+     * time linear in the number of remaining tokens and candidate tags. The resulting sequence is then marked
+     * as degraded, and the degradation is recorded in the metrics.
+     *
+     * @param sentence    The sentence to tag.
+     * @param budgetNanos The time budget in nanoseconds.
+     * @return The tag sequence with the highest probability that was found.
+     */
+    public Sequence decode(List<String> sentence, long budgetNanos) {
+        return decode(sentence, budgetNanos, Ticker.systemTicker());
+    }
+
+    /**
+     * Tag a sentence within a time budget, measuring time with the given ticker.
+     *
+     * @param sentence    The sentence to tag.
+     * @param budgetNanos The time budget in nanoseconds.
+     * @param ticker      The time source.
+     * @return The tag sequence with the highest probability that was found.
+     */
+    Sequence decode(List<String> sentence, long budgetNanos, Ticker ticker) {
+        long start = ticker.read();
+
+        List<Map<Integer, Double>> emissions = emissions(sentence);
+        recordSentence(emissions);
+
+        Trellis trellis = new Trellis();
+        boolean degraded = false;
+        for (int i = 2; i < emissions.size(); ++i) {
+            trellis.advance(emissions.get(i));
+
+            // There is nothing to degrade after the last column.
+            if (!degraded && i + 1 < emissions.size() && ticker.read() - start > budgetNanos) {
+                trellis.degrade();
+                degraded = true;
+
+                if (d_metrics != null)
+                    d_metrics.degradedSentence();
+            }
+        }
+
+        return highestProbabilitySequence(trellis.column, d_model, degraded);
+    }
+
     /**
      * Tag a sentence.
      *
@@ -179,80 +433,290 @@ public class HMMTagger {
      * @return The trellis.
      */
     public List<TrellisState> tag(List<String> sentence) {
-        List<String> tokens = new ArrayList<>(sentence);
-        tokens.addAll(0, Common.DEFAULT_START_MARKER_TOKENS);
-        tokens.addAll(Common.DEFAULT_END_MARKER_TOKENS);
-        return viterbi(tokens);
+        return viterbi(emissions(sentence));
     }
 
     /**
-     * Tag a sentence.
+     * Tag a sentence by cutting it into segments at anchors, and decoding each
+     * segment separately. An anchor is a pair of consecutive tokens that both
+     * have exactly one candidate tag. Since the states of a trigram model are
+     * tag pairs, every path goes through the anchor, and the best path is the
+     * best path up to the anchor followed by the best path from the anchor.
+     * <p>
+     * The result is the same as that of {@link #decode(List)}, except when
+     * rounding of the accumulated log-probabilities breaks a near-tie or puts
+     * a state exactly at the edge of the beam differently.
      *
-     * @param sentence The actual sentence with two start markers, and preferably
-     *                 one end marker.
-     * @return The Viterbi trellis.
+     * @param sentence The sentence to tag.
+     * @return The tag sequence with the highest probability.
      */
-    private List<TrellisState> viterbi(List<String> sentence) {
-        List<TrellisState> trellis = new ArrayList<>();
+    public Sequence decodeSegmented(List<String> sentence) {
+        List<Map<Integer, Double>> emissions = emissions(sentence);
+        recordSentence(emissions);
 
-        int startTag = d_model.tagNumbers().get(sentence.get(0));
+        List<Sequence> sequences = new ArrayList<>();
+        for (List<Map<Integer, Double>> segment : segments(emissions))
+            sequences.add(highestProbabilitySequence(trellis(segment), d_model));
 
-        // Prepare initial trellis states;
-        TrellisState initialState = new TrellisState(startTag);
+        return join(sequences);
+    }
 
-        TrellisState initialState2 = new TrellisState(startTag);
-        initialState2.probabilities.put(initialState, 0.0);
-        initialState2.backPointers.put(initialState, null);
+    /**
+     * Cut the emissions of a sentence into segments at anchors. Each segment
+     * starts with the anchor pair that the previous segment ended with, or
+     * with the start markers for the first segment. The segments can be
+     * decoded independently with {@link #trellis(List)}.
+     *
+     * @param emissions The tag probabilities of the tokens, including markers.
+     * @return The segments.
+     */
+    static List<List<Map<Integer, Double>>> segments(List<Map<Integer, Double>> emissions) {
+        List<List<Map<Integer, Double>>> segments = new ArrayList<>();
+
+        int start = 0;
+        for (int i = 2; i < emissions.size() - 1; ++i) {
+            if (emissions.get(i - 1).size() == 1 && emissions.get(i).size() == 1) {
+                segments.add(emissions.subList(start, i + 1));
+                start = i - 1;
+            }
+        }
+        segments.add(emissions.subList(start, emissions.size()));
 
-        trellis.add(initialState2);
+        return segments;
+    }
 
-        double beam = 0.0;
+    /**
+     * Join the sequences of consecutive segments. The first two tags of each
+     * segment after the first overlap with the last two tags of its predecessor.
+     *
+     * @param sequences The sequences of the segments.
+     * @return The sequence of the sentence.
+     */
+    Sequence join(List<Sequence> sequences) {
+        if (sequences.size() == 1)
+            return sequences.get(0);
+
+        List<Integer> tagNumbers = new ArrayList<>();
+        double logProb = 0.0;
+        for (Sequence sequence : sequences) {
+            List<Integer> segmentTags = sequence.tagNumbers();
+            tagNumbers.addAll(tagNumbers.isEmpty() ? segmentTags : segmentTags.subList(2, segmentTags.size()));
+            logProb += sequence.logProb();
+        }
 
-        // Loop through the tokens.
-        for (int i = 2; i < sentence.size(); ++i) {
-            double columnHighestProb = Double.NEGATIVE_INFINITY;
+        return new Sequence(tagNumbers, logProb, d_model);
+    }
 
-            List<TrellisState> newTrellis = new ArrayList<>();
+    /**
+     * Tag a sentence with tag constraints. The candidate tags of a constrained
+     * token are limited to the allowed tags before its trellis column is built,
+     * so a token with a fixed tag results in a column with a single tag.
+     * <p>
+     * Tags are given without the capitalization prefix of the model. If the
+     * word handler gives none of the allowed tags for a token, all allowed tags
+     * are used with the same emission probability.
+     *
+     * @param sentence    The sentence to tag.
+     * @param constraints The allowed tags for each token, <tt>null</tt> for
+     *                    tokens that are not constrained.
+     * @return The trellis.
+     * @throws IllegalArgumentException The number of constraints does not match the
+     *                                  sentence length, or a tag is not known.
+     */
+    public List<TrellisState> tag(List<String> sentence, List<? extends Collection<String>> constraints) {
+        if (constraints.size() != sentence.size())
+            throw new IllegalArgumentException(String.format("Expected %d constraints, got: %d",
+                    sentence.size(), constraints.size()));
+
+        List<Map<Integer, Double>> emissions = emissions(sentence);
+        for (int i = 0; i < sentence.size(); ++i) {
+            Collection<String> allowed = constraints.get(i);
+            if (allowed != null) {
+                int index = i + Common.DEFAULT_START_MARKER_TOKENS.size();
+                emissions.set(index, constrain(sentence.get(i), emissions.get(index), allowed));
+            }
+        }
 
-            for (Entry<Integer, Double> tagEntry :
-                    d_wordHandler.tagProbs(sentence.get(i)).entrySet()) {
-                TrellisState newEntry = new TrellisState(tagEntry.getKey());
+        return viterbi(emissions);
+    }
 
-                // Loop over all possible trigrams
-                for (TrellisState t2 : trellis) {
-                    double highestProb = Double.NEGATIVE_INFINITY;
-                    TrellisState highestProbBp = null;
+    private Map<Integer, Double> constrain(String word, Map<Integer, Double> tagProbs, Collection<String> allowed) {
+        Map<Integer, Double> constrained = new HashMap<>();
 
-                    for (Map.Entry<TrellisState, Double> t1Entry : t2.probabilities.entrySet()) {
-                        if (t1Entry.getValue() < beam)
-                            continue;
+        for (String tag : allowed) {
+            Integer capital = d_model.tagNumbers().get("c-" + tag);
+            Integer nonCapital = d_model.tagNumbers().get("n-" + tag);
+            if (capital == null && nonCapital == null)
+                throw new IllegalArgumentException(String.format("Unknown tag: %s", tag));
 
-                        TriGram curTriGram = new TriGram(t1Entry.getKey().tag, t2.tag,
-                                tagEntry.getKey());
+            for (Integer tagNumber : Arrays.asList(capital, nonCapital)) {
+                Double prob = tagNumber == null ? null : tagProbs.get(tagNumber);
+                if (prob != null)
+                    constrained.put(tagNumber, prob);
+            }
+        }
 
-                        double triGramProb = d_languageModel.triGramProb(curTriGram);
-                        double prob = triGramProb + tagEntry.getValue() + t1Entry.getValue();
+        if (!constrained.isEmpty())
+            return constrained;
+
+        // None of the allowed tags were proposed, use the variant that matches the
+        // capitalization of the word, as in training.
+        boolean upperCase = Character.isUpperCase(word.charAt(0));
+        for (String tag : allowed) {
+            Integer tagNumber = d_model.tagNumbers().get((upperCase ? "c-" : "n-") + tag);
+            if (tagNumber == null)
+                tagNumber = d_model.tagNumbers().get((upperCase ? "n-" : "c-") + tag);
+            constrained.put(tagNumber, 0.0);
+        }
 
-                        if (prob > highestProb) {
-                            highestProb = prob;
-                            highestProbBp = t1Entry.getKey();
-                        }
-                    }
+        return constrained;
+    }
 
-                    newEntry.probabilities.put(t2, highestProb);
-                    newEntry.backPointers.put(t2, highestProbBp);
+    /**
+     * Tag a batch of sentences. Each distinct token in the batch is looked up
+     * once, and the trellises of the sentences are extended in lockstep, so
+     * that the language model lookups of a column of one sentence are likely
+     * to be cached for the next sentence. This is mostly beneficial for
+     * batches of short sentences.
+     *
+     * @param sentences The sentences to tag.
+     * @return The highest-probability tag sequence of each sentence.
+     */
+    public List<Sequence> tagBatch(List<List<String>> sentences) {
+        Map<String, Map<Integer, Double>> typeEmissions = new HashMap<>();
 
-                    if (highestProb > columnHighestProb)
-                        columnHighestProb = highestProb;
-                }
+        List<List<Map<Integer, Double>>> batchEmissions = new ArrayList<>(sentences.size());
+        List<Trellis> trellises = new ArrayList<>(sentences.size());
+        int maxLength = 0;
+        for (List<String> sentence : sentences) {
+            List<Map<Integer, Double>> emissions = emissions(sentence, typeEmissions);
+            batchEmissions.add(emissions);
+            maxLength = Math.max(maxLength, emissions.size());
+
+            if (d_metrics != null)
+                d_metrics.sentence(sentence.size());
 
-                newTrellis.add(newEntry);
+            trellises.add(new Trellis());
+        }
+
+        for (int i = 2; i < maxLength; ++i) {
+            for (int j = 0; j < trellises.size(); ++j) {
+                List<Map<Integer, Double>> emissions = batchEmissions.get(j);
+                if (i < emissions.size())
+                    trellises.get(j).advance(emissions.get(i));
             }
+        }
 
-            trellis = newTrellis;
-            beam = columnHighestProb - d_beamFactor;
+        List<Sequence> sequences = new ArrayList<>(sentences.size());
+        for (Trellis trellis : trellises)
+            sequences.add(highestProbabilitySequence(trellis.column, d_model));
+
+        return sequences;
+    }
+
+    /**
+     * Look up the tag probabilities of the tokens of a sentence, including
+     * the start and end markers.
+     *
+     * @param sentence The sentence.
+     * @return The tag probabilities of each token.
+     */
+    List<Map<Integer, Double>> emissions(List<String> sentence) {
+        return emissions(sentence, null);
+    }
+
+    /**
+     * Look up the tag probabilities of the tokens of a sentence, including
+     * the start and end markers.
+     *
+     * @param sentence The sentence.
+     * @param cache    Tag probabilities of tokens that were looked up before, may
+     *                 be <tt>null</tt>. New lookups are added to the cache. Since
+     *                 the tag probabilities are shared, they should not be modified.
+     * @return The tag probabilities of each token.
+     */
+    private List<Map<Integer, Double>> emissions(List<String> sentence, Map<String, Map<Integer, Double>> cache) {
+        List<Map<Integer, Double>> emissions = new ArrayList<>(sentence.size() +
+                Common.DEFAULT_START_MARKER_TOKENS.size() + Common.DEFAULT_END_MARKER_TOKENS.size());
+
+        // The start markers always have the start tag, they do not need a lookup.
+        Map<Integer, Double> startEmission =
+                Collections.singletonMap(d_model.tagNumbers().get(Common.START_TOKEN), 0.0);
+        for (int i = 0; i < Common.DEFAULT_START_MARKER_TOKENS.size(); ++i)
+            emissions.add(startEmission);
+        for (String token : sentence)
+            emissions.add(tagProbs(token, cache));
+        for (String token : Common.DEFAULT_END_MARKER_TOKENS)
+            emissions.add(tagProbs(token, cache));
+
+        return emissions;
+    }
+
+    private Map<Integer, Double> tagProbs(String token, Map<String, Map<Integer, Double>> cache) {
+        if (cache == null)
+            return d_wordHandler.tagProbs(token);
+
+        Map<Integer, Double> tagProbs = cache.get(token);
+        if (tagProbs == null) {
+            tagProbs = d_wordHandler.tagProbs(token);
+            cache.put(token, tagProbs);
+        }
+
+        return tagProbs;
+    }
+
+    /**
+     * Tag a sentence.
+     *
+     * @param emissions The tag probabilities of the tokens of the sentence, starting
+     *                  with two start markers, and preferably ending with one end marker.
+     * @return The Viterbi trellis.
+     */
+    List<TrellisState> viterbi(List<Map<Integer, Double>> emissions) {
+        recordSentence(emissions);
+        return trellis(emissions);
+    }
+
+    /**
+     * Compute the trellis of a sentence or segment, without recording sentence
+     * metrics.
+     *
+     * @param emissions The tag probabilities of the tokens. The first two tokens
+     *                  should have exactly one candidate tag each.
+     * @return The Viterbi trellis.
+     */
+    List<TrellisState> trellis(List<Map<Integer, Double>> emissions) {
+        Trellis trellis = new Trellis(emissions.get(0).keySet().iterator().next(),
+                emissions.get(1).keySet().iterator().next());
+
+        // Loop through the tokens.
+        for (int i = 2; i < emissions.size(); ++i)
+            trellis.advance(emissions.get(i));
+
+        return trellis.column;
+    }
+
+    /**
+     * Record the length of a sentence in the metrics, if metrics are enabled.
+     *
+     * @param emissions The tag probabilities of the tokens, including markers.
+     */
+    void recordSentence(List<Map<Integer, Double>> emissions) {
+        if (d_metrics != null)
+            d_metrics.sentence(emissions.size() -
+                    Common.DEFAULT_START_MARKER_TOKENS.size() - Common.DEFAULT_END_MARKER_TOKENS.size());
+    }
+
+    private void recordColumn(List<TrellisState> column, double beam) {
+        int created = 0;
+        int pruned = 0;
+        for (TrellisState state : column) {
+            created += state.probabilities.size();
+            for (double prob : state.probabilities.values())
+                if (prob < beam)
+                    ++pruned;
         }
 
-        return trellis;
+        d_metrics.column(created, pruned);
     }
 }
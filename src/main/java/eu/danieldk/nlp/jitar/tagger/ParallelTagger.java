@@ -0,0 +1,314 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tag batches of sentences using multiple threads. The Viterbi cost of a
+ * sentence grows with the product of the number of candidate tags of each
+ * three consecutive tokens, so a batch with sentences of mixed length and
+ * ambiguity is not balanced well by splitting it into equally-sized chunks.
+ * <p>
+ * This tagger first looks up the candidate tags of all tokens. It then
+ * estimates the cost of each sentence, and distributes the sentences over
+ * the workers, most expensive first, such that each worker gets roughly the
+ * same amount of work. A worker that runs out of work steals the most
+ * expensive pending sentence of the worker with the most remaining work.
+ * Results are returned in input order.
+ * <p>
+ * Optionally, sentences are cut into segments at anchors (see
+ * {@link HMMTagger#decodeSegmented(List)}), and segments are scheduled as
+ * separate jobs. This allows the tagger to spread a long sentence over
+ * multiple workers.
+ */
+public class ParallelTagger implements Closeable {
+    private static final int LOOKUP_CHUNK_SIZE = 16;
+
+    private final HMMTagger d_tagger;
+
+    private final int d_nThreads;
+
+    private final boolean d_segment;
+
+    private final ExecutorService d_executor;
+
+    private final AtomicLong d_stolenJobs = new AtomicLong();
+
+    /**
+     * Construct a parallel tagger.
+     *
+     * @param tagger   The tagger to use, it should be safe to use from multiple threads.
+     * @param nThreads The number of tagging threads.
+     */
+    public ParallelTagger(HMMTagger tagger, int nThreads) {
+        this(tagger, nThreads, false);
+    }
+
+    /**
+     * Construct a parallel tagger.
+     *
+     * @param tagger   The tagger to use, it should be safe to use from multiple threads.
+     * @param nThreads The number of tagging threads.
+     * @param segment  Cut sentences into segments at anchors and decode segments
+     *                 as separate jobs.
+     */
+    public ParallelTagger(HMMTagger tagger, int nThreads, boolean segment) {
+        this(tagger, nThreads, segment, Executors.newFixedThreadPool(Math.max(1, nThreads), new ThreadFactory() {
+            private final ThreadFactory d_factory = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = d_factory.newThread(r);
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+    }
+
+    /**
+     * Construct a parallel tagger that runs its workers on the given executor.
+     * The executor is shut down when the tagger is closed.
+     *
+     * @param tagger   The tagger to use, it should be safe to use from multiple threads.
+     * @param nThreads The number of workers.
+     * @param segment  Cut sentences into segments at anchors and decode segments
+     *                 as separate jobs.
+     * @param executor The executor for the workers.
+     */
+    ParallelTagger(HMMTagger tagger, int nThreads, boolean segment, ExecutorService executor) {
+        if (nThreads < 1) {
+            executor.shutdown();
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+
+        d_tagger = tagger;
+        d_nThreads = nThreads;
+        d_segment = segment;
+        d_executor = executor;
+    }
+
+    /**
+     * Shut down the tagging threads.
+     */
+    @Override
+    public void close() {
+        d_executor.shutdown();
+    }
+
+    /**
+     * Return the number of jobs that workers took from the queue of another worker.
+     *
+     * @return The number of stolen jobs.
+     */
+    long stolenJobs() {
+        return d_stolenJobs.get();
+    }
+
+    /**
+     * Estimate the cost of tagging a sentence. The cost of a trellis column
+     * is the product of the number of candidate tags of the token and its
+     * two predecessors.
+     *
+     * @param emissions The tag probabilities of the tokens, including markers.
+     * @return The estimated cost.
+     */
+    static long cost(List<Map<Integer, Double>> emissions) {
+        long cost = 0;
+        for (int i = 2; i < emissions.size(); ++i)
+            cost += (long) Math.max(1, emissions.get(i - 2).size()) *
+                    Math.max(1, emissions.get(i - 1).size()) *
+                    Math.max(1, emissions.get(i).size());
+        return cost;
+    }
+
+    /**
+     * Tag a batch of sentences.
+     *
+     * @param sentences The sentences to tag.
+     * @return The highest-probability tag sequence for each sentence, in input order.
+     * @throws InterruptedException The thread was interrupted while waiting for the workers.
+     */
+    public List<HMMTagger.Sequence> tag(List<List<String>> sentences) throws InterruptedException {
+        HMMTagger.Sequence[][] results = new HMMTagger.Sequence[sentences.size()][];
+        List<Job> jobs = lookup(sentences, results);
+
+        // Longest processing time first: assign the most expensive sentences first,
+        // each to the worker that has the least work so far.
+        Collections.sort(jobs);
+
+        List<Worker> workers = new ArrayList<>(d_nThreads);
+        for (int i = 0; i < d_nThreads; ++i)
+            workers.add(new Worker(workers));
+
+        for (Job job : jobs) {
+            Worker leastLoaded = workers.get(0);
+            for (Worker worker : workers)
+                if (worker.d_remaining.get() < leastLoaded.d_remaining.get())
+                    leastLoaded = worker;
+
+            leastLoaded.d_queue.addLast(job);
+            leastLoaded.d_remaining.addAndGet(job.d_cost);
+        }
+
+        for (Worker worker : workers)
+            worker.d_results = results;
+
+        invokeAll(workers);
+
+        List<HMMTagger.Sequence> sequences = new ArrayList<>(results.length);
+        for (HMMTagger.Sequence[] segmentSequences : results)
+            sequences.add(d_tagger.join(Arrays.asList(segmentSequences)));
+
+        return sequences;
+    }
+
+    private List<Job> lookup(final List<List<String>> sentences, final HMMTagger.Sequence[][] results)
+            throws InterruptedException {
+        final List<List<Job>> jobs = new ArrayList<>(Collections.nCopies(sentences.size(), (List<Job>) null));
+        final AtomicInteger next = new AtomicInteger();
+
+        // Lookups are cheap compared to decoding, so sentences are handed out in
+        // small chunks in input order.
+        List<Callable<Void>> lookups = new ArrayList<>(d_nThreads);
+        for (int i = 0; i < d_nThreads; ++i)
+            lookups.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    int start;
+                    while ((start = next.getAndAdd(LOOKUP_CHUNK_SIZE)) < sentences.size()) {
+                        int end = Math.min(start + LOOKUP_CHUNK_SIZE, sentences.size());
+                        for (int j = start; j < end; ++j) {
+                            List<Map<Integer, Double>> emissions = d_tagger.emissions(sentences.get(j));
+                            d_tagger.recordSentence(emissions);
+
+                            List<List<Map<Integer, Double>>> segments = d_segment ?
+                                    HMMTagger.segments(emissions) : Collections.singletonList(emissions);
+
+                            List<Job> sentenceJobs = new ArrayList<>(segments.size());
+                            for (int k = 0; k < segments.size(); ++k)
+                                sentenceJobs.add(new Job(j, k, segments.get(k), cost(segments.get(k))));
+
+                            results[j] = new HMMTagger.Sequence[segments.size()];
+                            jobs.set(j, sentenceJobs);
+                        }
+                    }
+
+                    return null;
+                }
+            });
+
+        invokeAll(lookups);
+
+        List<Job> allJobs = new ArrayList<>(sentences.size());
+        for (List<Job> sentenceJobs : jobs)
+            allJobs.addAll(sentenceJobs);
+
+        return allJobs;
+    }
+
+    private void invokeAll(List<? extends Callable<Void>> tasks) throws InterruptedException {
+        for (Future<Void> future : d_executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error while tagging", e.getCause());
+            }
+        }
+    }
+
+    private static class Job implements Comparable<Job> {
+        private final int d_index;
+
+        private final int d_segment;
+
+        private final List<Map<Integer, Double>> d_emissions;
+
+        private final long d_cost;
+
+        private Job(int index, int segment, List<Map<Integer, Double>> emissions, long cost) {
+            d_index = index;
+            d_segment = segment;
+            d_emissions = emissions;
+            d_cost = cost;
+        }
+
+        // Descending on cost.
+        @Override
+        public int compareTo(Job other) {
+            return Long.compare(other.d_cost, d_cost);
+        }
+    }
+
+    private class Worker implements Callable<Void> {
+        private final List<Worker> d_workers;
+
+        private final Deque<Job> d_queue = new ConcurrentLinkedDeque<>();
+
+        private final AtomicLong d_remaining = new AtomicLong();
+
+        private HMMTagger.Sequence[][] d_results;
+
+        private Worker(List<Worker> workers) {
+            d_workers = workers;
+        }
+
+        @Override
+        public Void call() {
+            Job job;
+            while ((job = next()) != null) {
+                d_results[job.d_index][job.d_segment] = HMMTagger.highestProbabilitySequence(
+                        d_tagger.trellis(job.d_emissions), d_tagger.model());
+            }
+
+            return null;
+        }
+
+        private Job next() {
+            Job job = d_queue.pollFirst();
+            if (job != null) {
+                d_remaining.addAndGet(-job.d_cost);
+                return job;
+            }
+
+            // Steal from the worker with the most remaining work. A long sentence
+            // that is still pending is the most likely cause of a straggler, so
+            // it is stolen first.
+            while (true) {
+                Worker victim = null;
+                for (Worker worker : d_workers)
+                    if (worker != this && !worker.d_queue.isEmpty() &&
+                            (victim == null || worker.d_remaining.get() > victim.d_remaining.get()))
+                        victim = worker;
+
+                if (victim == null)
+                    return null;
+
+                job = victim.d_queue.pollFirst();
+                if (job != null) {
+                    victim.d_remaining.addAndGet(-job.d_cost);
+                    d_stolenJobs.incrementAndGet();
+                    return job;
+                }
+            }
+        }
+    }
+}
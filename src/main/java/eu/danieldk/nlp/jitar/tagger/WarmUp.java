@@ -0,0 +1,283 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Warm up a decoder before it is used for real requests, so that the JIT
+ * compiler has compiled the hot paths of the tagger.
+ * <p>
+ * The decoder is run on synthetic sentences that are drawn from the lexicon
+ * of the model. The sentences mix known words, capitalized words that are only
+ * known in lowercase, and unknown words for each of the suffix trees of the
+ * suffix word handler (capitalized, lowercase, dashed and cardinal). Since the
+ * words are drawn at random, the sentences also contain unseen trigrams and
+ * bigrams, which exercises each backoff level of the language model.
+ * <p>
+ * Warm-up runs in rounds, and is finished when the throughput of the last
+ * rounds is steady.
+ */
+public class WarmUp {
+    private static final int DEFAULT_SENTENCES = 256;
+
+    private static final int MIN_SENTENCE_LENGTH = 5;
+
+    private static final int MAX_SENTENCE_LENGTH = 30;
+
+    // Throughput is steady when the last STEADY_ROUNDS rounds differ by at most STEADY_TOLERANCE.
+    private static final int STEADY_ROUNDS = 5;
+
+    private static final double STEADY_TOLERANCE = 0.1;
+
+    private static final String UNKNOWN_PREFIX = "zq";
+
+    private final List<List<String>> d_sentences;
+
+    private final int d_nTokens;
+
+    /**
+     * Construct a warm-up with the default number of synthetic sentences.
+     *
+     * @param model The model to draw words from.
+     */
+    public WarmUp(Model model) {
+        this(model, DEFAULT_SENTENCES, 42);
+    }
+
+    /**
+     * Construct a warm-up.
+     *
+     * @param model      The model to draw words from.
+     * @param nSentences The number of synthetic sentences that are tagged in a round.
+     * @param seed       The seed for drawing words.
+     */
+    public WarmUp(Model model, int nSentences, long seed) {
+        Set<String> lexicon = model.lexicon().keySet();
+
+        List<String> known = new ArrayList<>();
+        List<String> lowercaseKnown = new ArrayList<>();
+        for (String word : lexicon) {
+            if (word.isEmpty() || word.equals(Common.START_TOKEN) || word.equals(Common.END_TOKEN))
+                continue;
+
+            known.add(word);
+
+            if (Character.isLowerCase(word.charAt(0))) {
+                String capitalized = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                if (!lexicon.contains(capitalized))
+                    lowercaseKnown.add(capitalized);
+            }
+        }
+
+        if (known.isEmpty())
+            throw new IllegalArgumentException("Cannot warm up with a model without a lexicon.");
+
+        // Iteration order of the lexicon is not defined, sort for reproducible sentences.
+        Collections.sort(known);
+        Collections.sort(lowercaseKnown);
+
+        Random random = new Random(seed);
+        d_sentences = new ArrayList<>(nSentences);
+        int nTokens = 0;
+        for (int i = 0; i < nSentences; ++i) {
+            int length = MIN_SENTENCE_LENGTH + random.nextInt(MAX_SENTENCE_LENGTH - MIN_SENTENCE_LENGTH + 1);
+            List<String> sentence = new ArrayList<>(length);
+            for (int j = 0; j < length; ++j)
+                sentence.add(word(random, known, lowercaseKnown, lexicon));
+            d_sentences.add(sentence);
+            nTokens += length;
+        }
+
+        d_nTokens = nTokens;
+    }
+
+    /**
+     * Return the synthetic sentences that are tagged in a round.
+     *
+     * @return The sentences.
+     */
+    public List<List<String>> sentences() {
+        return d_sentences;
+    }
+
+    /**
+     * Run the decoder until its throughput is steady.
+     *
+     * @param decoder  The decoder.
+     * @param maxNanos The maximum warm-up time in nanoseconds.
+     * @return The result of the warm-up.
+     */
+    public Result run(final Decoder decoder, long maxNanos) {
+        try {
+            return run(new Round() {
+                @Override
+                public void run() {
+                    for (List<String> sentence : d_sentences)
+                        decoder.decode(sentence);
+                }
+            }, maxNanos);
+        } catch (InterruptedException e) {
+            // Decoding with a decoder does not wait, so it cannot be interrupted.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Run a parallel tagger until its throughput is steady. The sentences of
+     * a round are tagged as one batch.
+     *
+     * @param tagger   The parallel tagger.
+     * @param maxNanos The maximum warm-up time in nanoseconds.
+     * @return The result of the warm-up.
+     * @throws InterruptedException The thread was interrupted while waiting for the tagger.
+     */
+    public Result run(final ParallelTagger tagger, long maxNanos) throws InterruptedException {
+        return run(new Round() {
+            @Override
+            public void run() throws InterruptedException {
+                tagger.tag(d_sentences);
+            }
+        }, maxNanos);
+    }
+
+    private Result run(Round round, long maxNanos) throws InterruptedException {
+        List<Double> throughputs = new ArrayList<>();
+
+        long start = System.nanoTime();
+        while (true) {
+            long roundStart = System.nanoTime();
+            round.run();
+            long now = System.nanoTime();
+
+            throughputs.add(d_nTokens / ((now - roundStart) / 1e9));
+
+            boolean steady = isSteady(throughputs);
+            if (steady || now - start >= maxNanos)
+                return new Result(throughputs.size(), throughputs.get(throughputs.size() - 1), now - start, steady);
+        }
+    }
+
+    private static boolean isSteady(List<Double> throughputs) {
+        if (throughputs.size() < STEADY_ROUNDS)
+            return false;
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (double throughput : throughputs.subList(throughputs.size() - STEADY_ROUNDS, throughputs.size())) {
+            min = Math.min(min, throughput);
+            max = Math.max(max, throughput);
+        }
+
+        return max <= min * (1 + STEADY_TOLERANCE);
+    }
+
+    private static String word(Random random, List<String> known, List<String> lowercaseKnown,
+                               Set<String> lexicon) {
+        int kind = random.nextInt(20);
+
+        String word;
+        if (kind < 14)
+            return known.get(random.nextInt(known.size()));
+        else if (kind < 16 && !lowercaseKnown.isEmpty())
+            return lowercaseKnown.get(random.nextInt(lowercaseKnown.size()));
+        else if (kind == 16)
+            word = Character.toUpperCase(UNKNOWN_PREFIX.charAt(0)) + UNKNOWN_PREFIX.substring(1) +
+                    known.get(random.nextInt(known.size()));
+        else if (kind == 17)
+            word = UNKNOWN_PREFIX + known.get(random.nextInt(known.size()));
+        else if (kind == 18)
+            word = UNKNOWN_PREFIX + "-" + known.get(random.nextInt(known.size()));
+        else
+            word = Integer.toString(random.nextInt(100000));
+
+        // Use a known word in the rare case that the synthetic word is in the lexicon.
+        return lexicon.contains(word) ? known.get(random.nextInt(known.size())) : word;
+    }
+
+    /**
+     * Tags the sentences of a round.
+     */
+    private interface Round {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * The result of a warm-up.
+     */
+    public static class Result {
+        private final int d_rounds;
+
+        private final double d_tokensPerSecond;
+
+        private final long d_nanos;
+
+        private final boolean d_steady;
+
+        private Result(int rounds, double tokensPerSecond, long nanos, boolean steady) {
+            d_rounds = rounds;
+            d_tokensPerSecond = tokensPerSecond;
+            d_nanos = nanos;
+            d_steady = steady;
+        }
+
+        /**
+         * Return the number of warm-up rounds.
+         *
+         * @return The number of rounds.
+         */
+        public int rounds() {
+            return d_rounds;
+        }
+
+        /**
+         * Return the throughput of the last round.
+         *
+         * @return The throughput in tokens per second.
+         */
+        public double tokensPerSecond() {
+            return d_tokensPerSecond;
+        }
+
+        /**
+         * Return the duration of the warm-up.
+         *
+         * @return The duration in nanoseconds.
+         */
+        public long nanos() {
+            return d_nanos;
+        }
+
+        /**
+         * Return whether the throughput was steady when warm-up finished. If
+         * not, the maximum warm-up time was reached.
+         *
+         * @return <tt>true</tt> if the throughput was steady.
+         */
+        public boolean isSteady() {
+            return d_steady;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.training;
+
+import eu.danieldk.nlp.jitar.data.BiGram;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.TriGram;
+import eu.danieldk.nlp.jitar.data.UniGram;
+
+import java.io.*;
+import java.util.*;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+
+/**
+ * Count shards store the frequencies of a part of a training corpus, such
+ * that the frequencies of several shards can be merged into one model. This
+ * makes it possible to count shards of a corpus in separate processes.
+ * <p>
+ * A shard stores its tag dictionary, followed by unigram, lexicon, bigram
+ * and trigram sections. Lexicon entries are sorted by word and n-grams are
+ * sorted by tag names, so that the sections of all shards can be merged in
+ * a single streaming pass. Only the tag dictionaries and unigrams of the
+ * shards are read into memory at once.
+ * <p>
+ * Tags get global numbers in the order of the shards, and within a shard in
+ * the order of the local tag numbers. When the shards are counted over
+ * consecutive parts of a corpus, the merged model is identical to the model
+ * that is trained on the full corpus.
+ */
+public final class CountShard {
+    private static final int MAGIC = 0x4a435331;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int N_SECTIONS = 4;
+
+    private static final int UNIGRAMS = 0;
+
+    private static final int LEXICON = 1;
+
+    private static final int BIGRAMS = 2;
+
+    private static final int TRIGRAMS = 3;
+
+    private CountShard() {
+    }
+
+    /**
+     * Write the frequencies of a model as a count shard.
+     *
+     * @param model The model.
+     * @param shard The shard file.
+     * @throws IOException The shard could not be written.
+     */
+    public static void write(Model model, File shard) throws IOException {
+        final Map<Integer, String> numberTags = model.numberTags();
+        long[] offsets = new long[N_SECTIONS];
+
+        try (FileOutputStream fos = new FileOutputStream(shard);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+
+            out.writeInt(numberTags.size());
+            for (int tag = 0; tag < numberTags.size(); ++tag)
+                out.writeUTF(numberTags.get(tag));
+
+            offsets[UNIGRAMS] = position(fos, out);
+            out.writeInt(model.uniGrams().size());
+            for (Entry<UniGram, Integer> entry : model.uniGrams().entrySet()) {
+                out.writeInt(entry.getKey().t1());
+                out.writeInt(entry.getValue());
+            }
+
+            offsets[LEXICON] = position(fos, out);
+            List<String> words = new ArrayList<>(model.lexicon().keySet());
+            Collections.sort(words);
+            out.writeInt(words.size());
+            for (String word : words) {
+                Map<Integer, Integer> tagFreqs = model.lexicon().get(word);
+                out.writeUTF(word);
+                out.writeInt(tagFreqs.size());
+                for (Entry<Integer, Integer> entry : tagFreqs.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+            }
+
+            offsets[BIGRAMS] = position(fos, out);
+            List<Entry<int[], Integer>> biGrams = new ArrayList<>(model.biGrams().size());
+            for (Entry<BiGram, Integer> entry : model.biGrams().entrySet())
+                biGrams.add(new SimpleImmutableEntry<>(new int[]{entry.getKey().t1(), entry.getKey().t2()},
+                        entry.getValue()));
+            writeNGrams(out, biGrams, numberTags);
+
+            offsets[TRIGRAMS] = position(fos, out);
+            List<Entry<int[], Integer>> triGrams = new ArrayList<>(model.triGrams().size());
+            for (Entry<TriGram, Integer> entry : model.triGrams().entrySet()) {
+                TriGram triGram = entry.getKey();
+                triGrams.add(new SimpleImmutableEntry<>(new int[]{triGram.t1(), triGram.t2(), triGram.t3()},
+                        entry.getValue()));
+            }
+            writeNGrams(out, triGrams, numberTags);
+
+            // The section offsets are stored at the end of the shard.
+            for (long offset : offsets)
+                out.writeLong(offset);
+        }
+    }
+
+    /**
+     * Merge count shards into a model.
+     *
+     * @param shards The shard files.
+     * @return The model.
+     * @throws IOException The shards could not be read.
+     */
+    public static Model merge(List<File> shards) throws IOException {
+        Map<String, Integer> tagNumbers = new HashMap<>();
+        Map<Integer, String> numberTags = new HashMap<>();
+        List<int[]> tagMappings = new ArrayList<>(shards.size());
+        List<long[]> offsets = new ArrayList<>(shards.size());
+
+        for (File shard : shards) {
+            try (DataInputStream in = open(shard, 0)) {
+                if (in.readInt() != MAGIC)
+                    throw new IOException(String.format("Not a count shard: %s", shard));
+
+                int[] mapping = new int[in.readInt()];
+                for (int tag = 0; tag < mapping.length; ++tag) {
+                    String name = in.readUTF();
+                    Integer number = tagNumbers.get(name);
+                    if (number == null) {
+                        number = tagNumbers.size();
+                        tagNumbers.put(name, number);
+                        numberTags.put(number, name);
+                    }
+                    mapping[tag] = number;
+                }
+
+                tagMappings.add(mapping);
+            }
+
+            offsets.add(readOffsets(shard));
+        }
+
+        Map<UniGram, Integer> uniGrams = new HashMap<>();
+        for (int i = 0; i < shards.size(); ++i) {
+            try (DataInputStream in = open(shards.get(i), offsets.get(i)[UNIGRAMS])) {
+                int n = in.readInt();
+                for (int j = 0; j < n; ++j) {
+                    UniGram uniGram = new UniGram(tagMappings.get(i)[in.readInt()]);
+                    add(uniGrams, uniGram, in.readInt());
+                }
+            }
+        }
+
+        Map<String, Map<Integer, Integer>> lexicon = mergeLexicon(shards, offsets, tagMappings);
+
+        Map<BiGram, Integer> biGrams = mergeNGrams(shards, offsets, tagMappings, numberTags, BIGRAMS,
+                new NGramFactory<BiGram>() {
+                    @Override
+                    public BiGram create(int[] tags) {
+                        return new BiGram(tags[0], tags[1]);
+                    }
+                });
+
+        Map<TriGram, Integer> triGrams = mergeNGrams(shards, offsets, tagMappings, numberTags, TRIGRAMS,
+                new NGramFactory<TriGram>() {
+                    @Override
+                    public TriGram create(int[] tags) {
+                        return new TriGram(tags[0], tags[1], tags[2]);
+                    }
+                });
+
+        return new Model(lexicon, tagNumbers, numberTags, uniGrams, biGrams, triGrams);
+    }
+
+    private static Map<String, Map<Integer, Integer>> mergeLexicon(List<File> shards, List<long[]> offsets,
+                                                                   List<int[]> tagMappings) throws IOException {
+        Map<String, Map<Integer, Integer>> lexicon = new HashMap<>();
+
+        PriorityQueue<LexiconReader> queue = new PriorityQueue<>();
+        try {
+            for (int i = 0; i < shards.size(); ++i)
+                offer(queue, new LexiconReader(open(shards.get(i), offsets.get(i)[LEXICON]), tagMappings.get(i)));
+
+            while (!queue.isEmpty()) {
+                String word = queue.peek().d_word;
+                Map<Integer, Integer> tagFreqs = new HashMap<>();
+                while (!queue.isEmpty() && queue.peek().d_word.equals(word)) {
+                    LexiconReader reader = queue.poll();
+                    for (int i = 0; i < reader.d_tags.length; ++i)
+                        add(tagFreqs, reader.d_tags[i], reader.d_freqs[i]);
+                    offer(queue, reader);
+                }
+
+                lexicon.put(word, tagFreqs);
+            }
+        } finally {
+            for (LexiconReader reader : queue)
+                reader.close();
+        }
+
+        return lexicon;
+    }
+
+    /**
+     * Merge the n-gram sections of the shards.
+     */
+    private static <T> Map<T, Integer> mergeNGrams(List<File> shards, List<long[]> offsets,
+                                                   List<int[]> tagMappings, Map<Integer, String> numberTags,
+                                                   int section, NGramFactory<T> factory) throws IOException {
+        int order = section == BIGRAMS ? 2 : 3;
+        Map<T, Integer> nGrams = new HashMap<>();
+
+        PriorityQueue<NGramReader> queue = new PriorityQueue<>();
+        try {
+            for (int i = 0; i < shards.size(); ++i)
+                offer(queue, new NGramReader(open(shards.get(i), offsets.get(i)[section]), tagMappings.get(i),
+                        numberTags, order));
+
+            while (!queue.isEmpty()) {
+                int[] tags = queue.peek().d_tags.clone();
+                int freq = 0;
+                while (!queue.isEmpty() && Arrays.equals(queue.peek().d_tags, tags)) {
+                    NGramReader reader = queue.poll();
+                    freq += reader.d_freq;
+                    offer(queue, reader);
+                }
+
+                nGrams.put(factory.create(tags), freq);
+            }
+        } finally {
+            for (NGramReader reader : queue)
+                reader.close();
+        }
+
+        return nGrams;
+    }
+
+    private static void writeNGrams(DataOutputStream out, List<Entry<int[], Integer>> nGrams,
+                                    final Map<Integer, String> numberTags) throws IOException {
+        Collections.sort(nGrams, new Comparator<Entry<int[], Integer>>() {
+            @Override
+            public int compare(Entry<int[], Integer> nGram1, Entry<int[], Integer> nGram2) {
+                return compareNames(nGram1.getKey(), nGram2.getKey(), numberTags);
+            }
+        });
+
+        out.writeInt(nGrams.size());
+        for (Entry<int[], Integer> nGram : nGrams) {
+            for (int tag : nGram.getKey())
+                out.writeInt(tag);
+            out.writeInt(nGram.getValue());
+        }
+    }
+
+    private static int compareNames(int[] tags1, int[] tags2, Map<Integer, String> numberTags) {
+        for (int i = 0; i < tags1.length; ++i) {
+            int cmp = numberTags.get(tags1[i]).compareTo(numberTags.get(tags2[i]));
+            if (cmp != 0)
+                return cmp;
+        }
+
+        return 0;
+    }
+
+    private static <K> void add(Map<K, Integer> freqs, K key, int freq) {
+        Integer oldFreq = freqs.get(key);
+        freqs.put(key, oldFreq == null ? freq : oldFreq + freq);
+    }
+
+    private static <T extends SectionReader> void offer(PriorityQueue<T> queue, T reader) throws IOException {
+        if (reader.next())
+            queue.add(reader);
+        else
+            reader.close();
+    }
+
+    private static long position(FileOutputStream fos, DataOutputStream out) throws IOException {
+        out.flush();
+        return fos.getChannel().position();
+    }
+
+    private static long[] readOffsets(File shard) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(shard, "r")) {
+            file.seek(file.length() - N_SECTIONS * 8);
+
+            long[] offsets = new long[N_SECTIONS];
+            for (int i = 0; i < N_SECTIONS; ++i)
+                offsets[i] = file.readLong();
+
+            return offsets;
+        }
+    }
+
+    private static DataInputStream open(File shard, long offset) throws IOException {
+        FileInputStream fis = new FileInputStream(shard);
+        try {
+            fis.getChannel().position(offset);
+        } catch (IOException e) {
+            fis.close();
+            throw e;
+        }
+
+        return new DataInputStream(new BufferedInputStream(fis, BUFFER_SIZE));
+    }
+
+    private interface NGramFactory<T> {
+        T create(int[] tags);
+    }
+
+    private static abstract class SectionReader implements Closeable {
+        protected final DataInputStream d_in;
+
+        protected final int[] d_tagMapping;
+
+        private int d_remaining;
+
+        private SectionReader(DataInputStream in, int[] tagMapping) throws IOException {
+            d_in = in;
+            d_tagMapping = tagMapping;
+            d_remaining = in.readInt();
+        }
+
+        /**
+         * Read the next record, returns <tt>false</tt> when the section is exhausted.
+         */
+        boolean next() throws IOException {
+            if (d_remaining == 0)
+                return false;
+
+            --d_remaining;
+            read();
+            return true;
+        }
+
+        protected abstract void read() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+            d_in.close();
+        }
+    }
+
+    private static class LexiconReader extends SectionReader implements Comparable<LexiconReader> {
+        private String d_word;
+
+        private int[] d_tags;
+
+        private int[] d_freqs;
+
+        private LexiconReader(DataInputStream in, int[] tagMapping) throws IOException {
+            super(in, tagMapping);
+        }
+
+        @Override
+        protected void read() throws IOException {
+            d_word = d_in.readUTF();
+            int n = d_in.readInt();
+            d_tags = new int[n];
+            d_freqs = new int[n];
+            for (int i = 0; i < n; ++i) {
+                d_tags[i] = d_tagMapping[d_in.readInt()];
+                d_freqs[i] = d_in.readInt();
+            }
+        }
+
+        @Override
+        public int compareTo(LexiconReader other) {
+            return d_word.compareTo(other.d_word);
+        }
+    }
+
+    private static class NGramReader extends SectionReader implements Comparable<NGramReader> {
+        private final Map<Integer, String> d_numberTags;
+
+        private final int[] d_tags;
+
+        private int d_freq;
+
+        private NGramReader(DataInputStream in, int[] tagMapping, Map<Integer, String> numberTags, int order)
+                throws IOException {
+            super(in, tagMapping);
+            d_numberTags = numberTags;
+            d_tags = new int[order];
+        }
+
+        @Override
+        protected void read() throws IOException {
+            for (int i = 0; i < d_tags.length; ++i)
+                d_tags[i] = d_tagMapping[d_in.readInt()];
+            d_freq = d_in.readInt();
+        }
+
+        @Override
+        public int compareTo(NGramReader other) {
+            return compareNames(d_tags, other.d_tags, d_numberTags);
+        }
+    }
+}
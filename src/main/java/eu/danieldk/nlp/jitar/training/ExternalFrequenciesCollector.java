@@ -0,0 +1,439 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.training;
+
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.corpus.TaggedToken;
+import eu.danieldk.nlp.jitar.data.BiGram;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.TriGram;
+import eu.danieldk.nlp.jitar.data.UniGram;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Collects the same lexicon and n-gram frequencies as {@link FrequenciesCollector},
+ * but without keeping all counts in memory while the corpus is processed.
+ * When the number of buffered lexicon, bigram and trigram entries reaches a
+ * limit, the entries are sorted and written to a run in a temporary file.
+ * {@link #model()} merges the runs into the final model.
+ * <p>
+ * Tags are numbered in the order in which they are first seen, as in
+ * {@link FrequenciesCollector}, so the resulting model is identical to
+ * the model of in-memory training. The tag tables and unigram frequencies
+ * are small and are always kept in memory.
+ */
+public class ExternalFrequenciesCollector implements Closeable {
+    private static final int TAG_BITS = 21;
+
+    private static final int MAX_TAGS = 1 << TAG_BITS;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File d_tempDir;
+
+    private final int d_maxEntries;
+
+    private final Map<Integer, String> d_numberTags;
+
+    private final Map<String, Integer> d_tagNumbers;
+
+    private final Map<UniGram, Integer> d_uniGrams;
+
+    private final Map<String, Map<Integer, Integer>> d_lexicon;
+
+    private final Map<BiGram, Integer> d_biGrams;
+
+    private final Map<TriGram, Integer> d_triGrams;
+
+    private final List<File> d_lexiconRuns;
+
+    private final List<File> d_biGramRuns;
+
+    private final List<File> d_triGramRuns;
+
+    private int d_entries;
+
+    /**
+     * Construct a collector.
+     *
+     * @param tempDir    The directory to write runs to, the default temporary-file
+     *                   directory is used when <tt>null</tt>.
+     * @param maxEntries The maximum number of lexicon, bigram and trigram entries
+     *                   that are buffered before they are written to a run.
+     */
+    public ExternalFrequenciesCollector(File tempDir, int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("At least one entry should be buffered.");
+
+        d_tempDir = tempDir;
+        d_maxEntries = maxEntries;
+        d_numberTags = new HashMap<>();
+        d_tagNumbers = new HashMap<>();
+        d_uniGrams = new HashMap<>();
+        d_lexicon = new HashMap<>();
+        d_biGrams = new HashMap<>();
+        d_triGrams = new HashMap<>();
+        d_lexiconRuns = new ArrayList<>();
+        d_biGramRuns = new ArrayList<>();
+        d_triGramRuns = new ArrayList<>();
+    }
+
+    /**
+     * Remove the runs.
+     */
+    @Override
+    public void close() {
+        for (List<File> runs : Arrays.asList(d_lexiconRuns, d_biGramRuns, d_triGramRuns)) {
+            for (File run : runs)
+                run.delete();
+            runs.clear();
+        }
+    }
+
+    /**
+     * Merge the runs into a model. Buffered entries are written to a run first.
+     *
+     * @return The model.
+     * @throws IOException The runs could not be written or read.
+     */
+    public Model model() throws IOException {
+        spill();
+
+        Map<String, Map<Integer, Integer>> lexicon = mergeLexicon();
+
+        Map<BiGram, Integer> biGrams = mergeNGrams(d_biGramRuns, new NGramFactory<BiGram>() {
+            @Override
+            public BiGram create(long key) {
+                return new BiGram(tag(key, 1), tag(key, 0));
+            }
+        });
+
+        Map<TriGram, Integer> triGrams = mergeNGrams(d_triGramRuns, new NGramFactory<TriGram>() {
+            @Override
+            public TriGram create(long key) {
+                return new TriGram(tag(key, 2), tag(key, 1), tag(key, 0));
+            }
+        });
+
+        return new Model(lexicon, new HashMap<>(d_tagNumbers), new HashMap<>(d_numberTags),
+                new HashMap<>(d_uniGrams), biGrams, triGrams);
+    }
+
+    public void process(CorpusReader reader) throws IOException {
+        List<TaggedToken> sentence;
+        while ((sentence = reader.readSentence()) != null) {
+            sentence = FrequenciesCollector.addMarkers(sentence);
+            sentence = FrequenciesCollector.addCapitalTags(sentence);
+
+            int[] tags = new int[sentence.size()];
+            for (int i = 0; i < sentence.size(); ++i) {
+                tags[i] = lookupTag(sentence.get(i).tag());
+                addLexiconEntry(sentence.get(i).word(), tags[i]);
+                increment(d_uniGrams, new UniGram(tags[i]));
+                if (i > 0 && increment(d_biGrams, new BiGram(tags[i - 1], tags[i])))
+                    ++d_entries;
+                if (i > 1 && increment(d_triGrams, new TriGram(tags[i - 2], tags[i - 1], tags[i])))
+                    ++d_entries;
+            }
+
+            if (d_entries >= d_maxEntries)
+                spill();
+        }
+    }
+
+    private int lookupTag(String tag) {
+        Integer tagNumber = d_tagNumbers.get(tag);
+        if (tagNumber == null) {
+            if (d_tagNumbers.size() == MAX_TAGS)
+                throw new IllegalArgumentException(String.format("More than %d tags", MAX_TAGS));
+
+            tagNumber = d_tagNumbers.size();
+            d_tagNumbers.put(tag, tagNumber);
+            d_numberTags.put(tagNumber, tag);
+        }
+
+        return tagNumber;
+    }
+
+    private void addLexiconEntry(String word, int tag) {
+        Map<Integer, Integer> tagFreqs = d_lexicon.get(word);
+        if (tagFreqs == null) {
+            tagFreqs = new HashMap<>();
+            d_lexicon.put(word, tagFreqs);
+        }
+
+        if (increment(tagFreqs, tag))
+            ++d_entries;
+    }
+
+    /**
+     * Increment the frequency of a key, returns <tt>true</tt> if the key is new.
+     */
+    private static <K> boolean increment(Map<K, Integer> freqs, K key) {
+        Integer freq = freqs.get(key);
+        freqs.put(key, freq == null ? 1 : freq + 1);
+        return freq == null;
+    }
+
+    /**
+     * Write the buffered entries to new runs, sorted by word or n-gram.
+     */
+    private void spill() throws IOException {
+        if (!d_lexicon.isEmpty()) {
+            List<String> words = new ArrayList<>(d_lexicon.keySet());
+            Collections.sort(words);
+
+            File run = newRun(d_lexiconRuns);
+            try (DataOutputStream out = openRun(run)) {
+                out.writeInt(words.size());
+                for (String word : words) {
+                    Map<Integer, Integer> tagFreqs = d_lexicon.get(word);
+                    out.writeUTF(word);
+                    out.writeInt(tagFreqs.size());
+                    for (Entry<Integer, Integer> entry : tagFreqs.entrySet()) {
+                        out.writeInt(entry.getKey());
+                        out.writeInt(entry.getValue());
+                    }
+                }
+            }
+
+            d_lexicon.clear();
+        }
+
+        if (!d_biGrams.isEmpty()) {
+            TreeMap<Long, Integer> biGrams = new TreeMap<>();
+            for (Entry<BiGram, Integer> entry : d_biGrams.entrySet())
+                biGrams.put(key(entry.getKey().t1(), entry.getKey().t2()), entry.getValue());
+            writeNGramRun(newRun(d_biGramRuns), biGrams);
+            d_biGrams.clear();
+        }
+
+        if (!d_triGrams.isEmpty()) {
+            TreeMap<Long, Integer> triGrams = new TreeMap<>();
+            for (Entry<TriGram, Integer> entry : d_triGrams.entrySet()) {
+                TriGram triGram = entry.getKey();
+                triGrams.put(key(triGram.t1(), triGram.t2(), triGram.t3()), entry.getValue());
+            }
+            writeNGramRun(newRun(d_triGramRuns), triGrams);
+            d_triGrams.clear();
+        }
+
+        d_entries = 0;
+    }
+
+    private void writeNGramRun(File run, SortedMap<Long, Integer> nGrams) throws IOException {
+        try (DataOutputStream out = openRun(run)) {
+            out.writeInt(nGrams.size());
+            for (Entry<Long, Integer> entry : nGrams.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        }
+    }
+
+    private File newRun(List<File> runs) throws IOException {
+        File run = File.createTempFile("jitar-run", ".bin", d_tempDir);
+        run.deleteOnExit();
+        runs.add(run);
+        return run;
+    }
+
+    private static DataOutputStream openRun(File run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE));
+    }
+
+    private static DataInputStream readRun(File run) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(run), BUFFER_SIZE));
+    }
+
+    private Map<String, Map<Integer, Integer>> mergeLexicon() throws IOException {
+        Map<String, Map<Integer, Integer>> lexicon = new HashMap<>();
+
+        PriorityQueue<LexiconRun> queue = new PriorityQueue<>();
+        try {
+            for (File run : d_lexiconRuns) {
+                LexiconRun lexiconRun = new LexiconRun(readRun(run));
+                if (lexiconRun.next())
+                    queue.add(lexiconRun);
+                else
+                    lexiconRun.close();
+            }
+
+            while (!queue.isEmpty()) {
+                String word = queue.peek().d_word;
+                Map<Integer, Integer> tagFreqs = new HashMap<>();
+                while (!queue.isEmpty() && queue.peek().d_word.equals(word)) {
+                    LexiconRun run = queue.poll();
+                    for (int i = 0; i < run.d_tags.length; ++i) {
+                        Integer freq = tagFreqs.get(run.d_tags[i]);
+                        tagFreqs.put(run.d_tags[i], freq == null ? run.d_freqs[i] : freq + run.d_freqs[i]);
+                    }
+
+                    if (run.next())
+                        queue.add(run);
+                    else
+                        run.close();
+                }
+
+                lexicon.put(word, tagFreqs);
+            }
+        } finally {
+            for (LexiconRun run : queue)
+                run.close();
+        }
+
+        return lexicon;
+    }
+
+    private static <T> Map<T, Integer> mergeNGrams(List<File> runs, NGramFactory<T> factory) throws IOException {
+        Map<T, Integer> nGrams = new HashMap<>();
+
+        PriorityQueue<NGramRun> queue = new PriorityQueue<>();
+        try {
+            for (File run : runs) {
+                NGramRun nGramRun = new NGramRun(readRun(run));
+                if (nGramRun.next())
+                    queue.add(nGramRun);
+                else
+                    nGramRun.close();
+            }
+
+            while (!queue.isEmpty()) {
+                long key = queue.peek().d_key;
+                int freq = 0;
+                while (!queue.isEmpty() && queue.peek().d_key == key) {
+                    NGramRun run = queue.poll();
+                    freq += run.d_freq;
+
+                    if (run.next())
+                        queue.add(run);
+                    else
+                        run.close();
+                }
+
+                nGrams.put(factory.create(key), freq);
+            }
+        } finally {
+            for (NGramRun run : queue)
+                run.close();
+        }
+
+        return nGrams;
+    }
+
+    private static long key(int... tags) {
+        long key = 0;
+        for (int tag : tags)
+            key = (key << TAG_BITS) | tag;
+        return key;
+    }
+
+    /**
+     * Extract a tag from a key, where position 0 is the last tag.
+     */
+    private static int tag(long key, int position) {
+        return (int) (key >>> (position * TAG_BITS)) & (MAX_TAGS - 1);
+    }
+
+    private interface NGramFactory<T> {
+        T create(long key);
+    }
+
+    private static abstract class Run implements Closeable {
+        protected final DataInputStream d_in;
+
+        private int d_remaining;
+
+        private Run(DataInputStream in) throws IOException {
+            d_in = in;
+            d_remaining = in.readInt();
+        }
+
+        /**
+         * Read the next record, returns <tt>false</tt> when the run is exhausted.
+         */
+        boolean next() throws IOException {
+            if (d_remaining == 0)
+                return false;
+
+            --d_remaining;
+            read();
+            return true;
+        }
+
+        protected abstract void read() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+            d_in.close();
+        }
+    }
+
+    private static class LexiconRun extends Run implements Comparable<LexiconRun> {
+        private String d_word;
+
+        private int[] d_tags;
+
+        private int[] d_freqs;
+
+        private LexiconRun(DataInputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void read() throws IOException {
+            d_word = d_in.readUTF();
+            int n = d_in.readInt();
+            d_tags = new int[n];
+            d_freqs = new int[n];
+            for (int i = 0; i < n; ++i) {
+                d_tags[i] = d_in.readInt();
+                d_freqs[i] = d_in.readInt();
+            }
+        }
+
+        @Override
+        public int compareTo(LexiconRun other) {
+            return d_word.compareTo(other.d_word);
+        }
+    }
+
+    private static class NGramRun extends Run implements Comparable<NGramRun> {
+        private long d_key;
+
+        private int d_freq;
+
+        private NGramRun(DataInputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void read() throws IOException {
+            d_key = d_in.readLong();
+            d_freq = d_in.readInt();
+        }
+
+        @Override
+        public int compareTo(NGramRun other) {
+            return Long.compare(d_key, other.d_key);
+        }
+    }
+}
@@ -18,14 +18,19 @@ package eu.danieldk.nlp.jitar.training;
 
 import eu.danieldk.nlp.jitar.corpus.Common;
 import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.corpus.FlyweightCorpusReader;
+import eu.danieldk.nlp.jitar.corpus.StringTable;
+import eu.danieldk.nlp.jitar.corpus.TokenBuffer;
 import eu.danieldk.nlp.jitar.corpus.TaggedToken;
 import eu.danieldk.nlp.jitar.data.BiGram;
 import eu.danieldk.nlp.jitar.data.Model;
 import eu.danieldk.nlp.jitar.data.TriGram;
 import eu.danieldk.nlp.jitar.data.UniGram;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +38,10 @@ import java.util.Map;
 /**
  * This handler will construct a lexicon and n-gram frequency list using the
  * sentences that are provided to the handler.
+ * <p>
+ * Sentences from a {@link FlyweightCorpusReader} are read into a reusable
+ * token buffer. Words are then looked up in a string table, so that only a
+ * word that was not seen before is turned into a string.
  */
 public class FrequenciesCollector {
     private final Map<Integer, String> d_numberTags;
@@ -41,6 +50,10 @@ public class FrequenciesCollector {
 
     private final Map<String, Map<Integer, Integer>> d_lexicon;
 
+    private final StringTable d_words;
+
+    private final List<Map<Integer, Integer>> d_wordTagFreqs;
+
     private final Map<UniGram, Integer> d_uniGrams;
 
     private final Map<BiGram, Integer> d_biGrams;
@@ -51,6 +64,8 @@ public class FrequenciesCollector {
         d_numberTags = new HashMap<>();
         d_tagNumbers = new HashMap<>();
         d_lexicon = new HashMap<>();
+        d_words = new StringTable();
+        d_wordTagFreqs = new ArrayList<>();
         d_uniGrams = new HashMap<>();
         d_biGrams = new HashMap<>();
         d_triGrams = new HashMap<>();
@@ -60,24 +75,91 @@ public class FrequenciesCollector {
         return new Model(d_lexicon, d_tagNumbers, d_numberTags, d_uniGrams, d_biGrams, d_triGrams);
     }
 
+    /**
+     * Write the frequencies that were collected as a count shard, see
+     * {@link CountShard}.
+     *
+     * @param shard The shard file.
+     * @throws IOException The shard could not be written.
+     */
+    public void writeShard(File shard) throws IOException {
+        CountShard.write(model(), shard);
+    }
+
     public void process(CorpusReader reader) throws IOException {
+        if (reader instanceof FlyweightCorpusReader) {
+            process((FlyweightCorpusReader) reader);
+            return;
+        }
+
         List<TaggedToken> sentence;
         while ((sentence = reader.readSentence()) != null) {
             sentence = addMarkers(sentence);
             sentence = addCapitalTags(sentence);
 
+            int t1 = 0, t2 = 0;
             for (int i = 0; i < sentence.size(); ++i) {
-                addLexiconEntry(sentence.get(i));
-                addUniGram(sentence, i);
-                if (i > 0)
-                    addBiGram(sentence, i);
-                if (i > 1)
-                    addTriGram(sentence, i);
+                TaggedToken token = sentence.get(i);
+                int t3 = lookupTag(token.tag());
+                addLexiconEntry(token.word(), t3);
+                addNGrams(i, t1, t2, t3);
+                t1 = t2;
+                t2 = t3;
             }
         }
     }
 
-    private List<TaggedToken> addMarkers(List<TaggedToken> sentence) {
+    private void process(FlyweightCorpusReader reader) throws IOException {
+        StringTable tagTable = reader.tagTable();
+
+        // Model tag numbers of the capitalized/non-capitalized variants of reader tags.
+        int[] capitalTags = new int[0];
+        int[] nonCapitalTags = new int[0];
+
+        TokenBuffer buffer = new TokenBuffer();
+        while (reader.readSentence(buffer)) {
+            int startTag = lookupTag(Common.START_TOKEN);
+            addLexiconEntry(Common.START_TOKEN, startTag);
+            addNGrams(0, 0, 0, startTag);
+            addLexiconEntry(Common.START_TOKEN, startTag);
+            addNGrams(1, 0, startTag, startTag);
+
+            int t1 = startTag, t2 = startTag;
+            for (int i = 0; i < buffer.size(); ++i) {
+                int tag = buffer.tag(i);
+                if (tag >= capitalTags.length) {
+                    int oldLength = capitalTags.length;
+                    capitalTags = Arrays.copyOf(capitalTags, tagTable.size());
+                    nonCapitalTags = Arrays.copyOf(nonCapitalTags, tagTable.size());
+                    Arrays.fill(capitalTags, oldLength, capitalTags.length, -1);
+                    Arrays.fill(nonCapitalTags, oldLength, nonCapitalTags.length, -1);
+                }
+
+                CharSequence word = buffer.word(i);
+                int t3;
+                if (Character.isUpperCase(word.charAt(0))) {
+                    if (capitalTags[tag] == -1)
+                        capitalTags[tag] = lookupTag("c-" + tagTable.string(tag));
+                    t3 = capitalTags[tag];
+                } else {
+                    if (nonCapitalTags[tag] == -1)
+                        nonCapitalTags[tag] = lookupTag("n-" + tagTable.string(tag));
+                    t3 = nonCapitalTags[tag];
+                }
+
+                addLexiconEntry(word, t3);
+                addNGrams(i + 2, t1, t2, t3);
+                t1 = t2;
+                t2 = t3;
+            }
+
+            int endTag = lookupTag(Common.END_TOKEN);
+            addLexiconEntry(Common.END_TOKEN, endTag);
+            addNGrams(buffer.size() + 2, t1, t2, endTag);
+        }
+    }
+
+    static List<TaggedToken> addMarkers(List<TaggedToken> sentence) {
         List<TaggedToken> sentenceMarked = new ArrayList<>();
         sentenceMarked.addAll(Common.DEFAULT_START_MARKERS);
         sentenceMarked.addAll(sentence);
@@ -85,7 +167,7 @@ public class FrequenciesCollector {
         return sentenceMarked;
     }
 
-    private List<TaggedToken> addCapitalTags(List<TaggedToken> sentence) {
+    static List<TaggedToken> addCapitalTags(List<TaggedToken> sentence) {
         List<TaggedToken> capitalTags = new ArrayList<>();
 
         for (int i = 0; i < sentence.size(); ++i) {
@@ -95,16 +177,16 @@ public class FrequenciesCollector {
                 capitalTags.add(taggedToken);
             else {
                 if (Character.isUpperCase(taggedToken.word().charAt(0)))
-                    capitalTags.add(new TaggedToken(taggedToken.word(), String.format("c-%s", taggedToken.tag())));
+                    capitalTags.add(new TaggedToken(taggedToken.word(), "c-" + taggedToken.tag()));
                 else
-                    capitalTags.add(new TaggedToken(taggedToken.word(), String.format("n-%s", taggedToken.tag())));
+                    capitalTags.add(new TaggedToken(taggedToken.word(), "n-" + taggedToken.tag()));
             }
         }
 
         return capitalTags;
     }
 
-    private Integer lookupTag(String tag) {
+    private int lookupTag(String tag) {
         Integer tagNumber = d_tagNumbers.get(tag);
         if (tagNumber == null) {
             tagNumber = d_tagNumbers.size();
@@ -115,29 +197,37 @@ public class FrequenciesCollector {
         return tagNumber;
     }
 
-    private void addLexiconEntry(TaggedToken taggedWord) {
-        String word = taggedWord.word();
-        String tag = taggedWord.tag();
+    private void addLexiconEntry(CharSequence word, int tag) {
+        int wordNumber = d_words.id(word);
 
-        Map<Integer, Integer> tagFreqs = d_lexicon.get(word);
-        if (tagFreqs == null) {
+        Map<Integer, Integer> tagFreqs;
+        if (wordNumber == d_wordTagFreqs.size()) {
             tagFreqs = new HashMap<>();
-            d_lexicon.put(word, tagFreqs);
-        }
+            d_wordTagFreqs.add(tagFreqs);
+            d_lexicon.put(d_words.string(wordNumber), tagFreqs);
+        } else
+            tagFreqs = d_wordTagFreqs.get(wordNumber);
 
-        Integer tagNum = lookupTag(tag);
-
-        Integer f = tagFreqs.get(tagNum);
+        Integer f = tagFreqs.get(tag);
         if (f == null)
             f = 0;
 
-        tagFreqs.put(tagNum, ++f);
+        tagFreqs.put(tag, ++f);
+    }
+
+    /**
+     * Add the n-grams that end in the token at the given index.
+     */
+    private void addNGrams(int index, int t1, int t2, int t3) {
+        addUniGram(t3);
+        if (index > 0)
+            addBiGram(t2, t3);
+        if (index > 1)
+            addTriGram(t1, t2, t3);
     }
 
-    private void addUniGram(List<TaggedToken> sentence, int index) {
-        String tag = sentence.get(index).tag();
-        
-        UniGram uniGram = new UniGram(lookupTag(tag));
+    private void addUniGram(int t1) {
+        UniGram uniGram = new UniGram(t1);
 
         if (!d_uniGrams.containsKey(uniGram))
             d_uniGrams.put(uniGram, 1);
@@ -145,8 +235,8 @@ public class FrequenciesCollector {
             d_uniGrams.put(uniGram, d_uniGrams.get(uniGram) + 1);
     }
 
-    private void addBiGram(List<TaggedToken> sentence, int index) {
-        BiGram biGram = new BiGram(lookupTag(sentence.get(index - 1).tag()), lookupTag(sentence.get(index).tag()));
+    private void addBiGram(int t1, int t2) {
+        BiGram biGram = new BiGram(t1, t2);
 
         if (!d_biGrams.containsKey(biGram))
             d_biGrams.put(biGram, 1);
@@ -154,10 +244,8 @@ public class FrequenciesCollector {
             d_biGrams.put(biGram, d_biGrams.get(biGram) + 1);
     }
 
-    private void addTriGram(List<TaggedToken> sentence, int index) {
-        TriGram triGram = new TriGram(lookupTag(sentence.get(index - 2).tag()),
-                lookupTag(sentence.get(index - 1).tag()),
-                lookupTag(sentence.get(index).tag()));
+    private void addTriGram(int t1, int t2, int t3) {
+        TriGram triGram = new TriGram(t1, t2, t3);
 
         if (!d_triGrams.containsKey(triGram))
             d_triGrams.put(triGram, 1);
@@ -0,0 +1,117 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.wordhandler;
+
+import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.data.util.Precision;
+import eu.danieldk.nlp.jitar.data.util.ProbabilityArray;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A lexicon word handler that stores the word-tag probabilities of all words
+ * in flat arrays with a given {@link Precision}, rather than in a map of boxed
+ * probabilities per word. Probabilities are dequantized when a word is looked
+ * up. Otherwise, it behaves like {@link LexiconWordHandler}.
+ */
+public class CompactLexiconWordHandler implements WordHandler {
+    /**
+     * Construct a compact lexicon word handler.
+     *
+     * @param wordTagFreqs        A map holding tag frequencies per word.
+     * @param uniGramFreqs        Frequencies of uni-grams.
+     * @param fallbackWordHandler A fallback word handler to call if a word is
+     *                            not known, may be <tt>null</tt>.
+     * @param precision           The precision to store probabilities with.
+     */
+    public CompactLexiconWordHandler(Map<String, Map<Integer, Integer>> wordTagFreqs,
+                                     Map<UniGram, Integer> uniGramFreqs, WordHandler fallbackWordHandler,
+                                     Precision precision) {
+        int nEntries = 0;
+        for (Map<Integer, Integer> tagFreqs : wordTagFreqs.values())
+            nEntries += tagFreqs.size();
+
+        d_words = new HashMap<>(wordTagFreqs.size() * 2);
+        d_offsets = new int[wordTagFreqs.size() + 1];
+        d_tags = new int[nEntries];
+        double[] probs = new double[nEntries];
+
+        int word = 0;
+        int entry = 0;
+        for (Entry<String, Map<Integer, Integer>> wordEntry : wordTagFreqs.entrySet()) {
+            d_words.put(wordEntry.getKey(), word);
+            d_offsets[word] = entry;
+
+            for (Entry<Integer, Integer> tagEntry : wordEntry.getValue().entrySet()) {
+                // P(w|t) = f(w,t) / f(t)
+                d_tags[entry] = tagEntry.getKey();
+                probs[entry] = Math.log(tagEntry.getValue() /
+                        (double) uniGramFreqs.get(new UniGram(tagEntry.getKey())));
+                ++entry;
+            }
+
+            ++word;
+        }
+        d_offsets[word] = entry;
+
+        d_probs = ProbabilityArray.create(probs, precision);
+        d_fallbackWordHandler = fallbackWordHandler;
+    }
+
+    /**
+     * Return the number of bytes used by the tag and probability arrays. This
+     * excludes the word index.
+     *
+     * @return The number of bytes.
+     */
+    public long bytes() {
+        return (long) (d_offsets.length + d_tags.length) * 4 + d_probs.bytes();
+    }
+
+    @Override
+    public Map<Integer, Double> tagProbs(String word) {
+        Integer index = d_words.get(word);
+
+        if (index == null && Character.isUpperCase(word.charAt(0)))
+            index = d_words.get(word.toLowerCase());
+
+        if (index != null) {
+            Map<Integer, Double> probs = new HashMap<>();
+            for (int i = d_offsets[index]; i < d_offsets[index + 1]; ++i)
+                probs.put(d_tags[i], d_probs.get(i));
+            return probs;
+        }
+
+        if (d_fallbackWordHandler != null)
+            return d_fallbackWordHandler.tagProbs(word);
+        else
+            return new HashMap<>();
+    }
+
+    private final Map<String, Integer> d_words;
+
+    private final int[] d_offsets;
+
+    private final int[] d_tags;
+
+    private final ProbabilityArray d_probs;
+
+    private final WordHandler d_fallbackWordHandler;
+}
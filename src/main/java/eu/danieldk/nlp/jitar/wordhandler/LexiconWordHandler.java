@@ -17,6 +17,8 @@
 package eu.danieldk.nlp.jitar.wordhandler;
 
 import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.data.util.Footprint;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,39 +37,87 @@ public class LexiconWordHandler implements WordHandler {
      * @param uniGramFreqs        Frequencies of uni-grams.
      * @param fallbackWordHandler A fallback word handler to call if a word is
      *                            not known.
+     * @param metrics             Metrics to record lookups in, may be <tt>null</tt>.
      */
     public LexiconWordHandler(Map<String, Map<Integer, Integer>> wordTagFreqs,
-                              Map<UniGram, Integer> uniGramFreqs, WordHandler fallbackWordHandler) {
+                              Map<UniGram, Integer> uniGramFreqs, WordHandler fallbackWordHandler,
+                              TaggerMetrics metrics) {
         d_wordTagProbs = new HashMap<>();
         calculateWordTagProbs(wordTagFreqs, uniGramFreqs);
 
         d_fallbackWordHandler = fallbackWordHandler;
+        d_metrics = metrics;
+    }
+
+    /**
+     * Construct a lexicon word handler that does not record metrics.
+     *
+     * @param wordTagFreqs        A map holding tag frequencies per word.
+     * @param uniGramFreqs        Frequencies of uni-grams.
+     * @param fallbackWordHandler A fallback word handler to call if a word is
+     *                            not known.
+     */
+    public LexiconWordHandler(Map<String, Map<Integer, Integer>> wordTagFreqs,
+                              Map<UniGram, Integer> uniGramFreqs, WordHandler fallbackWordHandler) {
+        this(wordTagFreqs, uniGramFreqs, fallbackWordHandler, null);
     }
 
     public LexiconWordHandler(Map<String, Map<Integer, Integer>> wordTagProbs,
                               Map<UniGram, Integer> uniGramFreqs) {
-        this(wordTagProbs, uniGramFreqs, null);
+        this(wordTagProbs, uniGramFreqs, null, null);
     }
 
     public Map<Integer, Double> tagProbs(String word) {
+        // Lookups are only timed when metrics are recorded.
+        long start = d_metrics == null ? 0 : System.nanoTime();
+
         // Lookup the word. If it is known, return P(w|t) probabilities for
         // each tag that the word was seen with in the training data.
-        if (d_wordTagProbs.containsKey(word))
-            return new HashMap<>(d_wordTagProbs.get(word));
+        Map<Integer, Double> probs = d_wordTagProbs.get(word);
+        if (probs != null) {
+            probs = new HashMap<>(probs);
+            if (d_metrics != null)
+                d_metrics.lexiconHit(System.nanoTime() - start);
+            return probs;
+        }
 
         // If the word could not be found, maybe its lowercase variant can
         // be found (e.g. capitalized words that start a sentence).
         if (Character.isUpperCase(word.charAt(0))) {
-            String lcWord = word.toLowerCase();
-            if (d_wordTagProbs.containsKey(lcWord))
-                return new HashMap<>(d_wordTagProbs.get(lcWord));
+            probs = d_wordTagProbs.get(word.toLowerCase());
+            if (probs != null) {
+                probs = new HashMap<>(probs);
+                if (d_metrics != null)
+                    d_metrics.lowercaseHit(System.nanoTime() - start);
+                return probs;
+            }
         }
 
         // Try the fallback word handler, if it is available.
-        if (d_fallbackWordHandler != null)
-            return d_fallbackWordHandler.tagProbs(word);
-        else
+        if (d_fallbackWordHandler == null)
             return new HashMap<>();
+
+        probs = d_fallbackWordHandler.tagProbs(word);
+        if (d_metrics != null)
+            d_metrics.suffixHit(System.nanoTime() - start);
+        return probs;
+    }
+
+    /**
+     * Estimate the memory footprint of the lexicon of this handler. The
+     * footprint of the fallback word handler is not included.
+     *
+     * @return The footprint, with words as entries.
+     */
+    public Footprint footprint() {
+        long bytes = Footprint.hashMap(d_wordTagProbs.size());
+        for (Entry<String, Map<Integer, Double>> wordEntry : d_wordTagProbs.entrySet()) {
+            bytes += Footprint.string(wordEntry.getKey()) + Footprint.hashMap(wordEntry.getValue().size());
+            for (Integer tag : wordEntry.getValue().keySet())
+                bytes += Footprint.integer(tag) + Footprint.BOXED;
+        }
+
+        return new Footprint("lexicon handler", d_wordTagProbs.size(), bytes);
     }
 
     private void calculateWordTagProbs(Map<String, Map<Integer, Integer>> wordTagFreqs,
@@ -92,4 +142,6 @@ public class LexiconWordHandler implements WordHandler {
     private final Map<String, Map<Integer, Double>> d_wordTagProbs;
 
     private final WordHandler d_fallbackWordHandler;
+
+    private final TaggerMetrics d_metrics;
 }
@@ -18,6 +18,8 @@ package eu.danieldk.nlp.jitar.wordhandler;
 
 import eu.danieldk.nlp.jitar.corpus.Common;
 import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.UniGramTable;
+import eu.danieldk.nlp.jitar.data.util.Footprint;
 import eu.danieldk.nlp.jitar.data.util.ProbEntryComparator;
 
 import java.util.*;
@@ -50,16 +52,41 @@ public class SuffixWordHandler implements WordHandler {
      */
     public SuffixWordHandler(Model model, int maxSuffixLength, int upperMaxFreq,
                              int lowerMaxFreq, int dashMaxFreq, int maxTags, int cardinalMaxFreq) {
+        this(model, new UniGramTable(model.uniGrams()), maxSuffixLength, upperMaxFreq, lowerMaxFreq,
+                dashMaxFreq, maxTags, cardinalMaxFreq);
+    }
+
+    /**
+     * Construct a suffix word handler from a lexicon and a unigram table.
+     * The suffix trees share the given unigram
+     * table, the handler does not retain references to the model.
+     *
+     * @param model           The model.
+     * @param uniGrams        The unigram frequencies of the model.
+     * @param maxSuffixLength The maximum suffix length to consider.
+     * @param upperMaxFreq    Uppercase words with a frequency lower than or equal
+     *                        to this value will be used for suffix training.
+     * @param lowerMaxFreq    Lowercase words with a frequency lower than or equal
+     *                        to this value will be used for suffix training.
+     * @param dashMaxFreq     Words with a dash with a frequency lower than or equal
+     *                        to this value will be used for suffix training.
+     * @param maxTags         The maximum number of tags to return.
+     * @param cardinalMaxFreq Cardinals with a frequency lower than or equal
+     *                        to this value will be used for suffix training.
+     */
+    public SuffixWordHandler(Model model, UniGramTable uniGrams, int maxSuffixLength, int upperMaxFreq,
+                             int lowerMaxFreq, int dashMaxFreq, int maxTags, int cardinalMaxFreq) {
         Set<Integer> skip = new HashSet<>();
         skip.add(model.tagNumbers().get(Common.START_TOKEN));
         skip.add(model.tagNumbers().get(Common.END_TOKEN));
 
         double theta = WordSuffixTree.calculateTheta(model.uniGrams(), skip);
 
-        d_upperSuffixTrie = new WordSuffixTree(model.uniGrams(), skip, theta, maxSuffixLength);
-        d_lowerSuffixTrie = new WordSuffixTree(model.uniGrams(), skip, theta, maxSuffixLength);
-        d_dashSuffixTrie = new WordSuffixTree(model.uniGrams(), skip, theta, maxSuffixLength);
-        d_cardinalSuffixTrie = new WordSuffixTree(model.uniGrams(), skip, theta, maxSuffixLength);
+        d_uniGrams = uniGrams;
+        d_upperSuffixTrie = new WordSuffixTree(uniGrams, skip, theta, maxSuffixLength);
+        d_lowerSuffixTrie = new WordSuffixTree(uniGrams, skip, theta, maxSuffixLength);
+        d_dashSuffixTrie = new WordSuffixTree(uniGrams, skip, theta, maxSuffixLength);
+        d_cardinalSuffixTrie = new WordSuffixTree(uniGrams, skip, theta, maxSuffixLength);
         d_maxTags = maxTags;
 
         for (Entry<String, Map<Integer, Integer>> wordEntry : model.lexicon().entrySet()) {
@@ -105,6 +132,42 @@ public class SuffixWordHandler implements WordHandler {
         return results;
     }
 
+    /**
+     * Estimate the memory footprint of the suffix trees and the unigram table
+     * that they share.
+     *
+     * @return The footprint, with tree nodes as entries.
+     */
+    public Footprint footprint() {
+        List<Footprint> parts = new ArrayList<>();
+        for (Entry<String, WordSuffixTree> entry : suffixTrees().entrySet())
+            parts.add(entry.getValue().footprint(entry.getKey()));
+        parts.add(new Footprint("unigram table", d_uniGrams.numberOfTags(), d_uniGrams.bytes()));
+
+        return new Footprint("suffix handler", parts);
+    }
+
+    /**
+     * Return the number of nodes at each depth of the suffix trees.
+     *
+     * @return For each suffix tree, the number of nodes per depth.
+     */
+    public Map<String, int[]> depthHistograms() {
+        Map<String, int[]> histograms = new LinkedHashMap<>();
+        for (Entry<String, WordSuffixTree> entry : suffixTrees().entrySet())
+            histograms.put(entry.getKey(), entry.getValue().depthHistogram());
+        return histograms;
+    }
+
+    private Map<String, WordSuffixTree> suffixTrees() {
+        Map<String, WordSuffixTree> trees = new LinkedHashMap<>();
+        trees.put("upper", d_upperSuffixTrie);
+        trees.put("lower", d_lowerSuffixTrie);
+        trees.put("dash", d_dashSuffixTrie);
+        trees.put("cardinal", d_cardinalSuffixTrie);
+        return trees;
+    }
+
     private WordSuffixTree selectSuffixTree(String token) {
         WordSuffixTree suffixTree = null;
         if (s_cardinalPattern.matcher(token).matches()) {
@@ -142,6 +205,8 @@ public class SuffixWordHandler implements WordHandler {
     private final static Pattern s_cardinalPattern =
             Pattern.compile("^([0-9]+)|([0-9]+\\.)|([0-9.,:-]+[0-9]+)|([0-9]+[a-zA-Z]{1,3})$");
 
+    private final UniGramTable d_uniGrams;
+
     private final WordSuffixTree d_upperSuffixTrie;
 
     private final WordSuffixTree d_lowerSuffixTrie;
@@ -16,12 +16,16 @@
 
 package eu.danieldk.nlp.jitar.wordhandler;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.data.UniGramTable;
+import eu.danieldk.nlp.jitar.data.util.Footprint;
 
 /**
  * <t>WordSuffixTree</t> is used to store words tree of suffixes.
@@ -97,6 +101,30 @@ class WordSuffixTree {
 			return d_children.get(transitionChar).suffixTagProbs(reverseSuffix.substring(1),
 					tagProbs);			
 		}
+
+		private long bytes() {
+			// Children and tag frequency maps, tag frequency, and the reference
+			// to the enclosing tree.
+			long bytes = Footprint.object(3 * 4 + 4) + Footprint.hashMap(d_children.size()) +
+					Footprint.hashMap(d_tagFreqs.size());
+
+			for (Entry<Integer, Integer> entry: d_tagFreqs.entrySet())
+				bytes += Footprint.integer(entry.getKey()) + Footprint.integer(entry.getValue());
+
+			for (Entry<Character, TreeNode> child: d_children.entrySet())
+				bytes += Footprint.character(child.getKey()) + child.getValue().bytes();
+
+			return bytes;
+		}
+
+		private void countDepths(int depth, List<Integer> histogram) {
+			while (histogram.size() <= depth)
+				histogram.add(0);
+			histogram.set(depth, histogram.get(depth) + 1);
+
+			for (TreeNode child: d_children.values())
+				child.countDepths(depth + 1, histogram);
+		}
 	}
 	
 	private Map<Integer, Double> bayesianInversion(Map<Integer, Double> tagProbs) {
@@ -106,32 +134,38 @@ class WordSuffixTree {
 			Integer tag = tagProb.getKey();
 			Double value = tagProb.getValue();
 
-			inverseTagProbs.put(tag, value / d_uniGrams.get(new UniGram(tag)));
+			inverseTagProbs.put(tag, value / d_uniGrams.frequency(tag));
 		}
 		
 		return inverseTagProbs;
 	}
 	
-	private final Map<UniGram, Integer> d_uniGrams;
+	private final UniGramTable d_uniGrams;
 	private final TreeNode d_root;
 	private final int d_maxLength;
 	private double d_theta;
 	
-	public WordSuffixTree(Map<UniGram, Integer> uniGrams, Set<Integer> skip, double theta,
+	/**
+	 * @param uniGrams Tag frequencies, which can be shared between trees.
+	 * @param skip Tags that should not be predicted.
+	 * @param theta Weight of the probabilities of shorter suffixes.
+	 * @param maxLength The maximum suffix length.
+	 */
+	public WordSuffixTree(UniGramTable uniGrams, Set<Integer> skip, double theta,
 			int maxLength) {
-		d_uniGrams = new HashMap<>(uniGrams);
+		d_uniGrams = uniGrams;
 		d_theta = theta;
 		d_maxLength = maxLength;
 		d_root = new TreeNode();
 		
-		for (Entry<UniGram, Integer> uniGramFreq: d_uniGrams.entrySet())
+		for (int tag = 0; tag < uniGrams.numberOfTags(); ++tag)
 		{
-			if (skip.contains(uniGramFreq.getKey().t1()))
+			int freq = uniGrams.frequency(tag);
+			if (freq == 0 || skip.contains(tag))
 				continue;
 
-			d_root.d_tagFreqs.put(uniGramFreq.getKey().t1(),
-					uniGramFreq.getValue());
-			d_root.d_tagFreq += uniGramFreq.getValue();
+			d_root.d_tagFreqs.put(tag, freq);
+			d_root.d_tagFreq += freq;
 		}
 	}
 
@@ -153,6 +187,38 @@ class WordSuffixTree {
 		return d_root.suffixTagProbs(reverseWord, new HashMap<Integer, Double>());
 	}
 	
+	/**
+	 * Estimate the memory footprint of the tree. The unigram table is shared,
+	 * and not included.
+	 *
+	 * @param name The name of the tree in the footprint.
+	 * @return The footprint, with tree nodes as entries.
+	 */
+	public Footprint footprint(String name) {
+		long nodes = 0;
+		for (int count: depthHistogram())
+			nodes += count;
+
+		return new Footprint(name, nodes, Footprint.object(4 * 4 + 8) + d_root.bytes());
+	}
+
+	/**
+	 * Return the number of nodes at each depth of the tree, where the root
+	 * has depth zero.
+	 *
+	 * @return The number of nodes per depth.
+	 */
+	public int[] depthHistogram() {
+		List<Integer> histogram = new ArrayList<>();
+		d_root.countDepths(0, histogram);
+
+		int[] counts = new int[histogram.size()];
+		for (int i = 0; i < counts.length; ++i)
+			counts[i] = histogram.get(i);
+
+		return counts;
+	}
+
 	public static double calculateTheta(Map<UniGram, Integer> uniGrams, Set<Integer> skip) {
 		double pAvg = 1.0 / uniGrams.size();
 		
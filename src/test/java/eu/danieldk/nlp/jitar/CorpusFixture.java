@@ -0,0 +1,104 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar;
+
+import eu.danieldk.nlp.jitar.corpus.BrownCorpusReader;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.training.FrequenciesCollector;
+import org.junit.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * A small tagged corpus and helpers that are shared by tests.
+ */
+public final class CorpusFixture {
+    /**
+     * A Brown-style corpus. It contains a blank line, which readers should
+     * skip, and words with non-ASCII characters.
+     */
+    public static final String CORPUS =
+            "The/AT dog/NN runs/VBZ ./. \n" +
+            "\n" +
+            "The/AT dog/NN saw/VBD the/AT cät/NN ./.\n" +
+            "A/AT cat/NN runs/VBZ ,/, the/AT dog/NN runs/NN ./.\n" +
+            "Dogs/NNS saw/VBD a/AT saw/NN ,/, and/CC cats/NNS run/VB ./.\n" +
+            "The/AT runs/NNS saw/VBD the/AT dög/NN ./.\n";
+
+    /**
+     * Return a reader over {@link #CORPUS}.
+     *
+     * @return The reader.
+     */
+    public static BrownCorpusReader newReader() {
+        return newReader(CORPUS);
+    }
+
+    /**
+     * Return a reader over a Brown-style corpus.
+     *
+     * @param corpus The corpus.
+     * @return The reader.
+     */
+    public static BrownCorpusReader newReader(String corpus) {
+        return new BrownCorpusReader(new BufferedReader(new StringReader(corpus)), false);
+    }
+
+    /**
+     * Return a model that is trained on {@link #CORPUS}.
+     *
+     * @return The model.
+     * @throws IOException The corpus could not be read.
+     */
+    public static Model model() throws IOException {
+        return model(CORPUS);
+    }
+
+    /**
+     * Return a model that is trained on a Brown-style corpus.
+     *
+     * @param corpus The corpus.
+     * @return The model.
+     * @throws IOException The corpus could not be read.
+     */
+    public static Model model(String corpus) throws IOException {
+        FrequenciesCollector collector = new FrequenciesCollector();
+        collector.process(newReader(corpus));
+        return collector.model();
+    }
+
+    /**
+     * Assert that two models have the same tags, lexicon and n-gram counts.
+     *
+     * @param expected The expected model.
+     * @param model    The model to check.
+     */
+    public static void assertModelsEqual(Model expected, Model model) {
+        Assert.assertEquals(expected.tagNumbers(), model.tagNumbers());
+        Assert.assertEquals(expected.numberTags(), model.numberTags());
+        Assert.assertEquals(expected.lexicon(), model.lexicon());
+        Assert.assertEquals(expected.uniGrams(), model.uniGrams());
+        Assert.assertEquals(expected.biGrams(), model.biGrams());
+        Assert.assertEquals(expected.triGrams(), model.triGrams());
+    }
+
+    private CorpusFixture() {
+    }
+}
@@ -0,0 +1,126 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestCONLLPassthrough {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Extra columns, spaces within columns, a carriage return and a blank line
+    // that consists of whitespace.
+    private static final String INPUT =
+            "1\tThe\tthe\tDT\tXX\t_\t2\tdet\t_\t_\n" +
+            "2\tdög\tdog \tNN\t\tfeats=a b\t3\tnsubj\t_\t_\r\n" +
+            "3\truns\trun\tVB\tXX\n" +
+            " \t\n" +
+            "1\t.\t.\t.\tXX\t_\t0\tpunct\t_\t_\n" +
+            "\n";
+
+    private static final String OUTPUT =
+            "1\tThe\tthe\tDT\tAT\t_\t2\tdet\t_\t_\n" +
+            "2\tdög\tdog \tNN\tNN\tfeats=a b\t3\tnsubj\t_\t_\r\n" +
+            "3\truns\trun\tVB\tVBZ\n" +
+            " \t\n" +
+            "1\t.\t.\t.\t.\t_\t0\tpunct\t_\t_\n" +
+            "\n";
+
+    private Model d_model;
+
+    private Decoder d_decoder;
+
+    @Before
+    public void setUp() throws IOException {
+        d_model = CorpusFixture.model();
+
+        // Tag with the tags of the words in the fixture corpus.
+        d_decoder = new Decoder() {
+            @Override
+            public HMMTagger.Sequence decode(List<String> sentence) {
+                List<Integer> tagNumbers = new ArrayList<>();
+                for (int i = 0; i < Common.DEFAULT_START_MARKER_TOKENS.size(); ++i)
+                    tagNumbers.add(d_model.tagNumbers().get(Common.START_TOKEN));
+                for (String word : sentence)
+                    tagNumbers.add(d_model.tagNumbers().get(tag(word)));
+                for (int i = 0; i < Common.DEFAULT_END_MARKER_TOKENS.size(); ++i)
+                    tagNumbers.add(d_model.tagNumbers().get(Common.END_TOKEN));
+
+                return new HMMTagger.Sequence(tagNumbers, 0.0, d_model);
+            }
+        };
+    }
+
+    @Test
+    public void testPassthrough() throws IOException {
+        for (int bufferSize = 1; bufferSize <= INPUT.length(); bufferSize += 7)
+            Assert.assertEquals(OUTPUT, tag(INPUT, bufferSize));
+    }
+
+    @Test
+    public void testNoTrailingBlankLine() throws IOException {
+        String input = INPUT.substring(0, INPUT.length() - 1);
+        String output = OUTPUT.substring(0, OUTPUT.length() - 1);
+        Assert.assertEquals(output, tag(input, 16));
+
+        // Neither a trailing newline.
+        Assert.assertEquals(output.substring(0, output.length() - 1),
+                tag(input.substring(0, input.length() - 1), 16));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTooFewColumns() throws IOException {
+        tag("1\tThe\tthe\tDT\n", 16);
+    }
+
+    private String tag(String input, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TagWriter writer = new TagWriter(out, d_model.numberTags(), UTF_8);
+        new CONLLPassthrough(new ByteArrayInputStream(input.getBytes(UTF_8)), writer, UTF_8, bufferSize)
+                .tag(d_decoder);
+        writer.flush();
+
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    private static String tag(String word) {
+        switch (word) {
+            case "The":
+                return "c-AT";
+            case "runs":
+                return "n-VBZ";
+            case ".":
+                return "n-.";
+            default:
+                return "n-NN";
+        }
+    }
+}
@@ -0,0 +1,48 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestOptions {
+    @Test
+    public void testParse() {
+        Options options = Options.parse(new String[]{"--threads=4", "model", "--metrics", "corpus"},
+                "metrics", "threads", "decoder");
+
+        Assert.assertEquals(Arrays.asList("model", "corpus"), options.arguments());
+        Assert.assertTrue(options.has("metrics"));
+        Assert.assertFalse(options.has("decoder"));
+        Assert.assertEquals(4, options.getInt("threads", 1));
+        Assert.assertEquals("trigram", options.get("decoder", "trigram"));
+        Assert.assertEquals("", options.get("metrics", "x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOption() {
+        Options.parse(new String[]{"--unknown"}, "metrics");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInteger() {
+        Options.parse(new String[]{"--threads=many"}, "threads").getInt("threads", 1);
+    }
+}
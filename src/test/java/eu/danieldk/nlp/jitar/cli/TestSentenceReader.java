@@ -0,0 +1,143 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestSentenceReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testBufferBoundaries() throws IOException {
+        String input = "The dog runs .\n  the   cat\tsaw a dog ,\n";
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("The", "dog", "runs", "."),
+                Arrays.asList("the", "cat", "saw", "a", "dog", ","));
+
+        for (int bufferSize = 1; bufferSize <= input.length() + 1; ++bufferSize) {
+            Assert.assertEquals(expected, read(input, bufferSize, false));
+            Assert.assertEquals(expected, read(input, bufferSize, true));
+        }
+    }
+
+    @Test
+    public void testLongToken() throws IOException {
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < 100; ++i)
+            token.append((char) ('a' + i % 26));
+
+        String input = "a " + token + " b\n" + token + "\n";
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", token.toString(), "b"),
+                Collections.singletonList(token.toString()));
+
+        for (int bufferSize = 1; bufferSize <= 8; ++bufferSize) {
+            Assert.assertEquals(expected, read(input, bufferSize, false));
+            Assert.assertEquals(expected, read(input, bufferSize, true));
+        }
+    }
+
+    @Test
+    public void testEmptyLines() throws IOException {
+        List<List<String>> expected = Arrays.asList(
+                Collections.<String>emptyList(),
+                Collections.singletonList("a"),
+                Collections.<String>emptyList(),
+                Collections.<String>emptyList(),
+                Collections.singletonList("b"));
+
+        for (int bufferSize = 1; bufferSize <= 4; ++bufferSize)
+            Assert.assertEquals(expected, read("\na\n\n \t\nb\n", bufferSize, false));
+
+        Assert.assertEquals(Collections.<List<String>>emptyList(), read("", 4, false));
+    }
+
+    @Test
+    public void testNoTrailingNewline() throws IOException {
+        List<List<String>> expected = Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"));
+
+        for (int bufferSize = 1; bufferSize <= 8; ++bufferSize) {
+            Assert.assertEquals(expected, read("a b\nc d", bufferSize, false));
+            Assert.assertEquals(expected, read("a b\nc d ", bufferSize, true));
+        }
+    }
+
+    @Test
+    public void testMultibyte() throws IOException {
+        String input = "cät dög ☃ 🐕\n";
+        List<List<String>> expected = Collections.singletonList(Arrays.asList("cät", "dög", "☃",
+                "🐕"));
+
+        for (int bufferSize = 1; bufferSize <= 8; ++bufferSize) {
+            Assert.assertEquals(expected, read(input, bufferSize, false));
+            Assert.assertEquals(expected, read(input, bufferSize, true));
+        }
+    }
+
+    @Test
+    public void testCrlf() throws IOException {
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Collections.<String>emptyList(),
+                Collections.singletonList("c"));
+
+        for (int bufferSize = 1; bufferSize <= 8; ++bufferSize)
+            Assert.assertEquals(expected, read("a b\r\n\r\nc\r\n", bufferSize, false));
+    }
+
+    private static List<List<String>> read(String input, int bufferSize, boolean oneByteReads)
+            throws IOException {
+        InputStream in = new ByteArrayInputStream(input.getBytes(UTF_8));
+        if (oneByteReads)
+            in = new OneByteInputStream(in);
+
+        SentenceReader reader = new SentenceReader(in, null, UTF_8, bufferSize);
+
+        List<List<String>> sentences = new ArrayList<>();
+        List<String> sentence;
+        while ((sentence = reader.readSentence()) != null)
+            sentences.add(sentence);
+
+        return sentences;
+    }
+
+    /**
+     * An input stream that returns at most one byte per read.
+     */
+    private static class OneByteInputStream extends FilterInputStream {
+        OneByteInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+
+public class TestTagServer {
+    private static final String INPUT =
+            "The dog runs .\n" +
+            "\n" +
+            "the cat saw a dog , and the dog runs .\n" +
+            "a saw runs , and cats saw the runs , and dogs run .";
+
+    private Model d_model;
+
+    private Decoder d_decoder;
+
+    private ServerSocket d_serverSocket;
+
+    private Thread d_server;
+
+    @Before
+    public void setUp() throws IOException {
+        d_model = CorpusFixture.model();
+        LexiconWordHandler wordHandler = new LexiconWordHandler(d_model.lexicon(), d_model.uniGrams(),
+                new SuffixWordHandler(d_model, 2, 2, 8, 4, 10, 10));
+        LinearInterpolationLM lm = new LinearInterpolationLM(d_model.uniGrams(), d_model.biGrams(),
+                d_model.triGrams());
+        d_decoder = new HMMTagger(d_model, wordHandler, lm, 1000.0);
+
+        d_serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        d_server = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    TagServer.serve(d_serverSocket, d_decoder, d_model.numberTags(), 2);
+                } catch (IOException ignored) {
+                    // The server socket was closed.
+                }
+            }
+        });
+        d_server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        d_serverSocket.close();
+        d_server.join();
+    }
+
+    @Test(timeout = 10000)
+    public void testRoundTrip() throws IOException {
+        String expected = tagLocally(INPUT);
+        Assert.assertEquals(4, expected.split(System.lineSeparator(), -1).length - 1);
+
+        // Connections are independent, also when they are served one after another.
+        for (int i = 0; i < 3; ++i)
+            Assert.assertEquals(expected, tagRemotely(INPUT));
+    }
+
+    @Test(timeout = 10000)
+    public void testEmptyInput() throws IOException {
+        Assert.assertEquals("", tagRemotely(""));
+    }
+
+    private String tagRemotely(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), d_serverSocket.getLocalPort())) {
+            TagClient.tag(socket, new ByteArrayInputStream(input.getBytes(Charset.defaultCharset())), out);
+        }
+
+        return new String(out.toByteArray(), Charset.defaultCharset());
+    }
+
+    private String tagLocally(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TagWriter writer = new TagWriter(out, d_model.numberTags(), Charset.defaultCharset());
+        SentenceReader reader = new SentenceReader(
+                new ByteArrayInputStream(input.getBytes(Charset.defaultCharset())), writer, Charset.defaultCharset());
+        Tag.tagSequential(d_decoder, reader, writer);
+        writer.flush();
+
+        return new String(out.toByteArray(), Charset.defaultCharset());
+    }
+}
@@ -0,0 +1,97 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestTagWriter {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Model d_model;
+
+    @Before
+    public void setUp() throws IOException {
+        d_model = CorpusFixture.model();
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        HMMTagger.Sequence sequence = sequence("c-AT", "n-NN", "n-VBZ", "n-.");
+        String expected = "AT NN VBZ ." + System.lineSeparator();
+
+        for (int bufferSize = 1; bufferSize <= 32; ++bufferSize) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TagWriter writer = new TagWriter(out, d_model.numberTags(), UTF_8, bufferSize);
+            writer.write(sequence);
+            writer.write(sequence);
+            writer.flush();
+
+            Assert.assertEquals(expected + expected, new String(out.toByteArray(), UTF_8));
+        }
+    }
+
+    @Test
+    public void testEmptySequence() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TagWriter writer = new TagWriter(out, d_model.numberTags(), UTF_8);
+        writer.write(sequence());
+        writer.flush();
+
+        Assert.assertEquals(System.lineSeparator(), new String(out.toByteArray(), UTF_8));
+    }
+
+    @Test
+    public void testLargeWrite() throws IOException {
+        byte[] bytes = "dög cät".getBytes(UTF_8);
+
+        for (int bufferSize = 1; bufferSize <= bytes.length + 1; ++bufferSize) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TagWriter writer = new TagWriter(out, d_model.numberTags(), UTF_8, bufferSize);
+            writer.write((byte) '[');
+            writer.write(bytes, 0, bytes.length);
+            writer.write((byte) ']');
+            writer.flush();
+
+            Assert.assertEquals("[dög cät]", new String(out.toByteArray(), UTF_8));
+        }
+    }
+
+    private HMMTagger.Sequence sequence(String... tags) {
+        List<Integer> tagNumbers = new ArrayList<>();
+        for (int i = 0; i < Common.DEFAULT_START_MARKER_TOKENS.size(); ++i)
+            tagNumbers.add(d_model.tagNumbers().get(Common.START_TOKEN));
+        for (String tag : tags)
+            tagNumbers.add(d_model.tagNumbers().get(tag));
+        for (int i = 0; i < Common.DEFAULT_END_MARKER_TOKENS.size(); ++i)
+            tagNumbers.add(d_model.tagNumbers().get(Common.END_TOKEN));
+
+        return new HMMTagger.Sequence(tagNumbers, 0.0, d_model);
+    }
+}
@@ -0,0 +1,48 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.cli;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.tagger.HMMTagger;
+import eu.danieldk.nlp.jitar.tagger.WarmUp;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class TestUtil {
+    @Test
+    public void testRuntimeTagger() throws IOException {
+        Model model = CorpusFixture.model();
+        HMMTagger tagger = Util.newTagger(model, null);
+        HMMTagger runtimeTagger = Util.newRuntimeTagger(model, null);
+
+        Assert.assertTrue(runtimeTagger.model().lexicon().isEmpty());
+
+        for (List<String> sentence : new WarmUp(model, 50, 42).sentences()) {
+            HMMTagger.Sequence expected = tagger.decode(sentence);
+            HMMTagger.Sequence sequence = runtimeTagger.decode(sentence);
+
+            // Sequences may differ on ties, so only the probabilities are compared.
+            Assert.assertEquals(expected.sequence().size(), sequence.sequence().size());
+            Assert.assertEquals(expected.logProb(), sequence.logProb(), 1e-9);
+        }
+    }
+}
@@ -114,6 +114,29 @@ public class TestBrownCorpusReader {
         handler.process(corpusReader);
     }
 
+    @Test
+    public void testParseIntoBuffer() throws IOException {
+        InputStream is = new ByteArrayInputStream("A/AT  b/BT\n\n c/AT \n".getBytes());
+        BufferedReader rdr = new BufferedReader(new InputStreamReader(is));
+
+        BrownCorpusReader corpusReader = createReader(rdr);
+        TokenBuffer buffer = new TokenBuffer();
+
+        Assert.assertTrue(corpusReader.readSentence(buffer));
+        Assert.assertEquals(2, buffer.size());
+        Assert.assertEquals("a", buffer.word(0).toString());
+        Assert.assertEquals("b", buffer.wordString(1));
+        Assert.assertEquals("AT", corpusReader.tagTable().string(buffer.tag(0)));
+        Assert.assertEquals("BT", corpusReader.tagTable().string(buffer.tag(1)));
+
+        Assert.assertTrue(corpusReader.readSentence(buffer));
+        Assert.assertEquals(1, buffer.size());
+        Assert.assertEquals("c", buffer.word(0).toString());
+        Assert.assertEquals(buffer.tag(0), corpusReader.tagTable().find("AT"));
+
+        Assert.assertFalse(corpusReader.readSentence(buffer));
+    }
+
     private class ReaderConsumer {
         private List<List<TaggedToken>> d_sentences = new ArrayList<>();
 
@@ -0,0 +1,66 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestCompiledCorpus {
+    @Test
+    public void testCompile() throws IOException {
+        List<List<TaggedToken>> expected = new ArrayList<>();
+        try (CorpusReader reader = CorpusFixture.newReader()) {
+            List<TaggedToken> sentence;
+            while ((sentence = reader.readSentence()) != null)
+                expected.add(sentence);
+        }
+
+        File file = File.createTempFile("jitar-test", ".corpus");
+        try {
+            try (CorpusReader reader = CorpusFixture.newReader()) {
+                CompiledCorpus.compile(reader, file);
+            }
+
+            CompiledCorpus corpus = CompiledCorpus.open(file);
+            Assert.assertEquals(5, corpus.numberOfSentences());
+            Assert.assertEquals(33, corpus.numberOfTokens());
+            Assert.assertEquals(9, corpus.numberOfTags());
+
+            List<List<TaggedToken>> sentences = new ArrayList<>();
+            try (CorpusReader reader = corpus.reader()) {
+                List<TaggedToken> sentence;
+                while ((sentence = reader.readSentence()) != null)
+                    sentences.add(sentence);
+            }
+            Assert.assertEquals(expected, sentences);
+
+            int token = corpus.sentenceStart(1) + 4;
+            Assert.assertEquals("cät", corpus.wordString(corpus.word(token)));
+            Assert.assertEquals("NN", corpus.tagString(corpus.tag(token)));
+            Assert.assertEquals(corpus.word(corpus.sentenceStart(1) + 1), corpus.word(corpus.sentenceStart(2) + 5));
+        } finally {
+            file.delete();
+        }
+    }
+}
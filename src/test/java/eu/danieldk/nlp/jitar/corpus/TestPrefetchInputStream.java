@@ -0,0 +1,88 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.corpus;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+public class TestPrefetchInputStream {
+    @Test
+    public void testRead() throws IOException {
+        byte[] data = new byte[10000];
+        new Random(42).nextBytes(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new PrefetchInputStream(new ByteArrayInputStream(data), 64, 4)) {
+            Assert.assertEquals(data[0] & 0xff, in.read());
+            out.write(data[0]);
+
+            byte[] buffer = new byte[100];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                out.write(buffer, 0, n);
+        }
+
+        Assert.assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void testException() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read error");
+            }
+        };
+
+        try (InputStream in = new PrefetchInputStream(failing, 64, 4)) {
+            in.read();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRuntimeException() throws IOException {
+        final RuntimeException failure = new IllegalStateException("Corrupt input");
+        InputStream failing = new InputStream() {
+            private int d_remaining = 100;
+
+            @Override
+            public int read() {
+                if (d_remaining-- == 0)
+                    throw failure;
+                return 'a';
+            }
+        };
+
+        try (InputStream in = new PrefetchInputStream(failing, 64, 4)) {
+            byte[] buffer = new byte[16];
+            int nRead = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                nRead += n;
+            Assert.fail(String.format("Expected an exception after %d bytes", nRead));
+        } catch (IOException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class TestModel {
+    @Test
+    public void testWithoutCounts() throws IOException {
+        Model model = CorpusFixture.model();
+        Model withoutCounts = model.withoutCounts();
+
+        Assert.assertEquals(model.tagNumbers(), withoutCounts.tagNumbers());
+        Assert.assertEquals(model.numberTags(), withoutCounts.numberTags());
+
+        Assert.assertTrue(withoutCounts.lexicon().isEmpty());
+        Assert.assertTrue(withoutCounts.uniGrams().isEmpty());
+        Assert.assertTrue(withoutCounts.biGrams().isEmpty());
+        Assert.assertTrue(withoutCounts.triGrams().isEmpty());
+
+        // The original model is not changed.
+        CorpusFixture.assertModelsEqual(CorpusFixture.model(), model);
+    }
+}
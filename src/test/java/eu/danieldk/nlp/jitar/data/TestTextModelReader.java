@@ -0,0 +1,54 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import org.junit.Test;
+
+import java.io.*;
+
+public class TestTextModelReader {
+    @Test
+    public void testRoundTrip() throws IOException {
+        Model expected = CorpusFixture.model();
+
+        File lexiconFile = File.createTempFile("jitar-test", ".lexicon");
+        File nGramFile = File.createTempFile("jitar-test", ".ngrams");
+        try {
+            try (Writer lexiconWriter = new OutputStreamWriter(new FileOutputStream(lexiconFile), "UTF-8");
+                 Writer nGramWriter = new OutputStreamWriter(new FileOutputStream(nGramFile), "UTF-8")) {
+                expected.writeModel(lexiconWriter, nGramWriter);
+            }
+
+            // Use more threads than lines, to test chunking at line boundaries.
+            for (int nThreads : new int[]{1, 2, 16}) {
+                CorpusFixture.assertModelsEqual(expected, TextModelReader.read(lexiconFile, nGramFile, nThreads));
+            }
+
+            try (BufferedReader lexiconReader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(lexiconFile), "UTF-8"));
+                 BufferedReader nGramReader = new BufferedReader(new InputStreamReader(
+                         new FileInputStream(nGramFile), "UTF-8"))) {
+                CorpusFixture.assertModelsEqual(expected, Model.readModel(lexiconReader, nGramReader));
+            }
+        } finally {
+            lexiconFile.delete();
+            nGramFile.delete();
+        }
+    }
+}
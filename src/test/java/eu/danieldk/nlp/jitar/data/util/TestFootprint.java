@@ -0,0 +1,91 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestFootprint {
+    private static final String EXTRA_CORPUS =
+            "Birds/NNS sing/VB loudly/RB ./.\n" +
+            "The/AT old/JJ bird/NN sang/VBD quietly/RB ./.\n";
+
+    @Test
+    public void testGrowsWithModel() throws IOException {
+        List<Footprint> small = footprints(CorpusFixture.model());
+        List<Footprint> large = footprints(CorpusFixture.model(CorpusFixture.CORPUS + EXTRA_CORPUS));
+
+        for (int i = 0; i < small.size(); ++i) {
+            Assert.assertTrue(small.get(i).name(), small.get(i).entries() > 0);
+            Assert.assertTrue(small.get(i).name(), small.get(i).bytes() > 0);
+            Assert.assertTrue(large.get(i).name(), large.get(i).entries() > small.get(i).entries());
+            Assert.assertTrue(large.get(i).name(), large.get(i).bytes() > small.get(i).bytes());
+        }
+    }
+
+    @Test
+    public void testParts() throws IOException {
+        for (Footprint footprint : footprints(CorpusFixture.model()))
+            assertSumOfParts(footprint);
+    }
+
+    @Test
+    public void testEstimates() {
+        Assert.assertEquals(16, Footprint.object(0));
+        Assert.assertEquals(24, Footprint.object(12));
+        Assert.assertEquals(16, Footprint.array(0, 8));
+        Assert.assertEquals(56, Footprint.array(5, 8));
+        Assert.assertTrue(Footprint.hashMap(100) > Footprint.hashMap(10));
+    }
+
+    private static void assertSumOfParts(Footprint footprint) {
+        if (footprint.parts().isEmpty())
+            return;
+
+        long entries = 0;
+        long bytes = 0;
+        for (Footprint part : footprint.parts()) {
+            assertSumOfParts(part);
+            entries += part.entries();
+            bytes += part.bytes();
+        }
+
+        Assert.assertEquals(footprint.name(), entries, footprint.entries());
+        Assert.assertEquals(footprint.name(), bytes, footprint.bytes());
+    }
+
+    private static List<Footprint> footprints(Model model) {
+        SuffixWordHandler suffixWordHandler = new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10);
+        LexiconWordHandler lexiconWordHandler = new LexiconWordHandler(model.lexicon(), model.uniGrams(),
+                suffixWordHandler);
+        LinearInterpolationLM languageModel = new LinearInterpolationLM(model.uniGrams(), model.biGrams(),
+                model.triGrams());
+
+        return Arrays.asList(model.footprint(), lexiconWordHandler.footprint(), suffixWordHandler.footprint(),
+                languageModel.footprint());
+    }
+}
@@ -0,0 +1,73 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestLongDoubleHashMap {
+    @Test
+    public void testMissingKey() {
+        LongDoubleHashMap map = new LongDoubleHashMap(4);
+        map.put(1, 0.5);
+
+        Assert.assertEquals(0.5, map.get(1, Double.NaN), 0.0);
+        Assert.assertTrue(Double.isNaN(map.get(2, Double.NaN)));
+        Assert.assertEquals(-1.0, map.get(2, -1.0), 0.0);
+    }
+
+    @Test
+    public void testOverwrite() {
+        LongDoubleHashMap map = new LongDoubleHashMap(4);
+        map.put(7, 1.0);
+        map.put(7, 2.0);
+
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(2.0, map.get(7, Double.NaN), 0.0);
+    }
+
+    @Test
+    public void testResize() {
+        LongDoubleHashMap map = new LongDoubleHashMap(1);
+        int initialCapacity = map.capacity();
+
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; ++i) {
+            long key = random.nextLong() >>> 1;
+            double value = random.nextDouble();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        Assert.assertTrue(map.capacity() > initialCapacity);
+        Assert.assertTrue(map.size() * 2 <= map.capacity());
+        Assert.assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Double> entry : expected.entrySet())
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey(), Double.NaN), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeKey() {
+        new LongDoubleHashMap(4).put(-1, 0.0);
+    }
+}
@@ -0,0 +1,97 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.data.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TestProbabilityArray {
+    private static final double[] VALUES = randomLogProbs(1000, 42);
+
+    @Test
+    public void testDouble() {
+        ProbabilityArray array = ProbabilityArray.create(VALUES, Precision.DOUBLE);
+        Assert.assertEquals(Precision.DOUBLE, array.precision());
+        Assert.assertEquals(VALUES.length, array.size());
+        for (int i = 0; i < VALUES.length; ++i)
+            Assert.assertEquals(VALUES[i], array.get(i), 0.0);
+    }
+
+    @Test
+    public void testFloat() {
+        ProbabilityArray array = ProbabilityArray.create(VALUES, Precision.FLOAT);
+        Assert.assertEquals(Precision.FLOAT, array.precision());
+        for (int i = 0; i < VALUES.length; ++i)
+            Assert.assertEquals(VALUES[i], array.get(i), Math.abs(VALUES[i]) * 1e-7);
+    }
+
+    @Test
+    public void testShort() {
+        assertQuantized(Precision.SHORT, 0xffff);
+    }
+
+    @Test
+    public void testByte() {
+        assertQuantized(Precision.BYTE, 0xff);
+    }
+
+    @Test
+    public void testInfinite() {
+        double[] values = {-1.0, Double.NEGATIVE_INFINITY, -3.0};
+        ProbabilityArray array = ProbabilityArray.create(values, Precision.BYTE);
+
+        // Infinite values are not used to compute the quantization range.
+        Assert.assertEquals(-1.0, array.get(0), 1e-9);
+        Assert.assertEquals(-3.0, array.get(2), 1e-9);
+    }
+
+    @Test
+    public void testBytes() {
+        for (Precision precision : Precision.values())
+            Assert.assertEquals((long) VALUES.length * precision.bytes(),
+                    ProbabilityArray.create(VALUES, precision).bytes());
+    }
+
+    private static void assertQuantized(Precision precision, int maxCode) {
+        ProbabilityArray array = ProbabilityArray.create(VALUES, precision);
+        Assert.assertEquals(precision, array.precision());
+        Assert.assertEquals(VALUES.length, array.size());
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : VALUES) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        // Rounding to the nearest code is off by at most half a step.
+        double bound = (max - min) / maxCode / 2 + 1e-12;
+        for (int i = 0; i < VALUES.length; ++i)
+            Assert.assertEquals(VALUES[i], array.get(i), bound);
+    }
+
+    private static double[] randomLogProbs(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; ++i)
+            values[i] = Math.log(random.nextDouble() + 1e-9);
+        return values;
+    }
+}
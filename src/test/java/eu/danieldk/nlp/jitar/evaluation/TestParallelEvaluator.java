@@ -0,0 +1,120 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.evaluation;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.corpus.CorpusReader;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.tagger.Decoder;
+import eu.danieldk.nlp.jitar.tagger.DenseDecoder;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class TestParallelEvaluator {
+    // Evaluate on more sentences than fit in one chunk.
+    private static final int N_COPIES = 50;
+
+    private Model d_model;
+
+    private Decoder d_decoder;
+
+    private String d_corpus;
+
+    @Before
+    public void setUp() throws IOException {
+        // Train on a part of the corpus, so that there are unknown words.
+        d_model = CorpusFixture.model(CorpusFixture.CORPUS.substring(0, CorpusFixture.CORPUS.indexOf("Dogs")));
+        LexiconWordHandler wordHandler = new LexiconWordHandler(d_model.lexicon(), d_model.uniGrams(),
+                new SuffixWordHandler(d_model, 2, 2, 8, 4, 10, 10));
+        LinearInterpolationLM lm = new LinearInterpolationLM(d_model.uniGrams(), d_model.biGrams(),
+                d_model.triGrams());
+        d_decoder = new DenseDecoder(d_model, wordHandler, new DenseLanguageModel(lm), 1000.0);
+
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < N_COPIES; ++i)
+            corpus.append(CorpusFixture.CORPUS);
+        d_corpus = corpus.toString();
+    }
+
+    @Test
+    public void testSequentialCounts() throws IOException, InterruptedException {
+        Evaluator evaluator = new Evaluator(d_decoder, d_model);
+        try (CorpusReader reader = CorpusFixture.newReader(d_corpus)) {
+            evaluator.process(reader);
+        }
+
+        Assert.assertTrue(evaluator.knownGood() > 0);
+        Assert.assertTrue(evaluator.unknownGood() + evaluator.unknownBad() > 0);
+
+        for (int nThreads : new int[]{1, 3}) {
+            EvaluationResult result = evaluate(nThreads);
+            Assert.assertEquals(evaluator.knownGood(), result.knownGood());
+            Assert.assertEquals(evaluator.knownBad(), result.knownBad());
+            Assert.assertEquals(evaluator.unknownGood(), result.unknownGood());
+            Assert.assertEquals(evaluator.unknownBad(), result.unknownBad());
+        }
+    }
+
+    @Test
+    public void testConfusion() throws IOException, InterruptedException {
+        EvaluationResult sequential = evaluate(1);
+        EvaluationResult parallel = evaluate(3);
+
+        Assert.assertEquals(sequential.tags(), parallel.tags());
+
+        long total = 0;
+        long diagonal = 0;
+        for (int gold = 0; gold <= sequential.tags().size(); ++gold)
+            for (int predicted = 0; predicted <= sequential.tags().size(); ++predicted) {
+                Assert.assertEquals(sequential.confusion(gold, predicted), parallel.confusion(gold, predicted));
+                total += sequential.confusion(gold, predicted);
+                if (gold == predicted)
+                    diagonal += sequential.confusion(gold, predicted);
+            }
+
+        Assert.assertEquals(sequential.overallGood() + sequential.overallBad(), total);
+        Assert.assertEquals(sequential.overallGood(), diagonal);
+    }
+
+    @Test
+    public void testIsKnown() {
+        Assert.assertTrue(Evaluator.isKnown(d_model.lexicon(), "dog"));
+        Assert.assertTrue(Evaluator.isKnown(d_model.lexicon(), "Dog"));
+        Assert.assertTrue(Evaluator.isKnown(d_model.lexicon(), "dOG"));
+        Assert.assertFalse(Evaluator.isKnown(d_model.lexicon(), "zebra"));
+        Assert.assertFalse(Evaluator.isKnown(d_model.lexicon(), ""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new ParallelEvaluator(d_decoder, d_model, 0);
+    }
+
+    private EvaluationResult evaluate(int nThreads) throws IOException, InterruptedException {
+        try (CorpusReader reader = CorpusFixture.newReader(d_corpus)) {
+            return new ParallelEvaluator(d_decoder, d_model, nThreads).process(reader);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHistogram {
+    @Test
+    public void testBuckets() {
+        Histogram histogram = new Histogram(4);
+        for (long value : new long[]{0, 1, 2, 3, 4, 100})
+            histogram.add(value);
+
+        // Buckets: 0, 1, 2-3, >=4.
+        Assert.assertArrayEquals(new long[]{1, 1, 2, 2}, histogram.counts());
+        Assert.assertEquals("0-0:1 1-1:1 2-3:2 >=4:2", histogram.toString());
+
+        histogram.reset();
+        Assert.assertArrayEquals(new long[4], histogram.counts());
+    }
+
+    @Test
+    public void testLowerBound() {
+        Assert.assertEquals(0, Histogram.lowerBound(0));
+        Assert.assertEquals(1, Histogram.lowerBound(1));
+        Assert.assertEquals(8, Histogram.lowerBound(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewBuckets() {
+        new Histogram(1);
+    }
+}
@@ -0,0 +1,55 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestStripedCounter {
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; ++j) {
+                        counter.increment();
+                        counter.add(2);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        Assert.assertEquals(4 * 10000 * 3, counter.sum());
+        Assert.assertEquals("120000", counter.toString());
+
+        counter.reset();
+        Assert.assertEquals(0, counter.sum());
+    }
+}
@@ -0,0 +1,394 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import com.google.common.base.Ticker;
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.corpus.Common;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.util.Precision;
+import eu.danieldk.nlp.jitar.languagemodel.DenseLanguageModel;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.WordHandler;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+public class TestHMMTagger {
+    private static final List<List<String>> SENTENCES = Arrays.asList(
+            Arrays.asList("The", "dog", "runs", "."),
+            Arrays.asList("the", "cat", "saw", "a", "dog", ",", "and", "the", "dog", "runs", "."),
+            Arrays.asList("a", "saw", "runs", ",", "and", "cats", "saw", "the", "runs", ",", "and", "dogs", "run", "."),
+            Arrays.asList(",", ",", "and", ".", "."));
+
+    private Model d_model;
+
+    private WordHandler d_wordHandler;
+
+    private LinearInterpolationLM d_languageModel;
+
+    private HMMTagger d_tagger;
+
+    @Before
+    public void setUp() throws IOException {
+        d_model = CorpusFixture.model();
+
+        SuffixWordHandler swh = new SuffixWordHandler(d_model, 2, 2, 8, 4, 10, 10);
+        d_wordHandler = new LexiconWordHandler(d_model.lexicon(), d_model.uniGrams(), swh);
+        d_languageModel = new LinearInterpolationLM(d_model.uniGrams(), d_model.biGrams(), d_model.triGrams());
+        d_tagger = new HMMTagger(d_model, d_wordHandler, d_languageModel, 1000.0);
+    }
+
+    @Test
+    public void testWarmUp() {
+        WarmUp warmUp = new WarmUp(d_model, 64, 42);
+
+        boolean unknown = false;
+        for (List<String> sentence : warmUp.sentences()) {
+            Assert.assertFalse(sentence.isEmpty());
+            for (String word : sentence)
+                unknown |= !d_model.lexicon().containsKey(word);
+        }
+        Assert.assertTrue("Warm-up sentences should contain unknown words", unknown);
+
+        WarmUp.Result result = warmUp.run(d_tagger, 0);
+        Assert.assertEquals(1, result.rounds());
+        Assert.assertTrue(result.tokensPerSecond() > 0);
+    }
+
+    @Test
+    public void testParallelWarmUp() throws InterruptedException {
+        try (ParallelTagger parallelTagger = new ParallelTagger(d_tagger, 2)) {
+            WarmUp.Result result = new WarmUp(d_model, 64, 42).run(parallelTagger, 0);
+            Assert.assertEquals(1, result.rounds());
+            Assert.assertTrue(result.tokensPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        List<Map<Integer, Double>> emissions = d_tagger.emissions(SENTENCES.get(2));
+        List<List<Map<Integer, Double>>> segments = HMMTagger.segments(emissions);
+
+        Assert.assertTrue("Sentence should be split at anchors", segments.size() > 1);
+
+        for (int i = 1; i < segments.size(); ++i) {
+            List<Map<Integer, Double>> previous = segments.get(i - 1);
+            List<Map<Integer, Double>> segment = segments.get(i);
+            Assert.assertEquals(1, segment.get(0).size());
+            Assert.assertEquals(1, segment.get(1).size());
+            Assert.assertEquals(previous.subList(previous.size() - 2, previous.size()), segment.subList(0, 2));
+        }
+    }
+
+    @Test
+    public void testDecodeSegmented() {
+        for (List<String> sentence : SENTENCES) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentence);
+            HMMTagger.Sequence segmented = d_tagger.decodeSegmented(sentence);
+
+            Assert.assertEquals(expected.sequence(), segmented.sequence());
+            Assert.assertEquals(expected.logProb(), segmented.logProb(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testParallelSegmented() throws InterruptedException {
+        try (ParallelTagger parallelTagger = new ParallelTagger(d_tagger, 2, true)) {
+            List<HMMTagger.Sequence> sequences = parallelTagger.tag(SENTENCES);
+            for (int i = 0; i < SENTENCES.size(); ++i)
+                Assert.assertEquals(d_tagger.decode(SENTENCES.get(i)).sequence(), sequences.get(i).sequence());
+        }
+    }
+
+    @Test
+    public void testTagBatch() {
+        // Mixed lengths, tokens that are shared between sentences, and a single-token sentence.
+        List<List<String>> sentences = new ArrayList<>(SENTENCES);
+        sentences.add(Arrays.asList("dog"));
+        sentences.add(Arrays.asList("The", "cat", "runs", "."));
+        sentences.add(Arrays.asList("the", "dog", "saw", "the", "cat", "."));
+
+        List<HMMTagger.Sequence> sequences = d_tagger.tagBatch(sentences);
+        Assert.assertEquals(sentences.size(), sequences.size());
+        for (int i = 0; i < sentences.size(); ++i) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentences.get(i));
+            Assert.assertEquals(expected.sequence(), sequences.get(i).sequence());
+            Assert.assertEquals(expected.logProb(), sequences.get(i).logProb(), 1e-9);
+        }
+
+        Assert.assertTrue(d_tagger.tagBatch(Collections.<List<String>>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testAStarDecoder() {
+        AStarDecoder decoder = new AStarDecoder(d_model, d_wordHandler, d_languageModel);
+
+        for (List<String> sentence : SENTENCES) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentence);
+            AStarDecoder.SearchResult result = decoder.search(sentence);
+
+            Assert.assertEquals(expected.sequence(), result.sequence().sequence());
+            Assert.assertEquals(expected.logProb(), result.sequence().logProb(), 1e-9);
+            Assert.assertTrue(result.expandedStates() <= result.trellisStates());
+        }
+    }
+
+    @Test
+    public void testBiGramDecoder() {
+        DenseLanguageModel languageModel = new DenseLanguageModel(d_languageModel);
+        BiGramDecoder decoder = new BiGramDecoder(d_model, d_wordHandler, languageModel, 1000.0);
+
+        Assert.assertEquals(Arrays.asList("AT", "NN", "VBZ", "."), decoder.decode(SENTENCES.get(0)).sequence());
+
+        for (List<String> sentence : SENTENCES.subList(0, 2)) {
+            HMMTagger.Sequence sequence = decoder.decode(sentence);
+            Assert.assertEquals(sentence.size(), sequence.sequence().size());
+            Assert.assertEquals(biGramLogProb(sentence, languageModel), sequence.logProb(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testGreedyDecoderFullLookahead() {
+        DenseLanguageModel languageModel = new DenseLanguageModel(d_languageModel);
+
+        // Sentences are short enough to look ahead until the end marker.
+        for (List<String> sentence : Arrays.asList(SENTENCES.get(0), SENTENCES.get(1), SENTENCES.get(3))) {
+            GreedyDecoder decoder = new GreedyDecoder(d_model, d_wordHandler, languageModel, sentence.size());
+            HMMTagger.Sequence expected = d_tagger.decode(sentence);
+            HMMTagger.Sequence sequence = decoder.decode(sentence);
+
+            // Sequences may differ on ties, so only the probabilities are compared.
+            Assert.assertEquals(expected.sequence().size(), sequence.sequence().size());
+            Assert.assertEquals(expected.logProb(), sequence.logProb(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testGreedyDecoderLookahead() throws IOException {
+        // 'x' is usually an A at the start of a sentence, but 'x y' is always B C.
+        Model model = CorpusFixture.model(
+                "x/A z/D\nx/A z/D\nx/A z/D\nx/A z/D\nx/B y/C\n");
+        WordHandler wordHandler = new LexiconWordHandler(model.lexicon(), model.uniGrams(),
+                new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10));
+        DenseLanguageModel languageModel = new DenseLanguageModel(
+                new LinearInterpolationLM(model.uniGrams(), model.biGrams(), model.triGrams()));
+        List<String> sentence = Arrays.asList("x", "y");
+
+        Assert.assertEquals(Arrays.asList("A", "C"),
+                new GreedyDecoder(model, wordHandler, languageModel, 0).decode(sentence).sequence());
+        Assert.assertEquals(Arrays.asList("B", "C"),
+                new GreedyDecoder(model, wordHandler, languageModel, 1).decode(sentence).sequence());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGreedyDecoderNegativeLookahead() {
+        new GreedyDecoder(d_model, d_wordHandler, new DenseLanguageModel(d_languageModel), -1);
+    }
+
+    @Test
+    public void testCoarseTags() {
+        int[] coarseTags = CoarseToFineDecoder.coarseTags(d_model);
+
+        int nPairs = 0;
+        for (Map.Entry<String, Integer> capital : d_model.tagNumbers().entrySet()) {
+            if (!capital.getKey().startsWith("c-"))
+                continue;
+
+            String tag = capital.getKey().substring(2);
+            Integer nonCapital = d_model.tagNumbers().get("n-" + tag);
+            if (nonCapital == null)
+                continue;
+
+            Assert.assertEquals(coarseTags[capital.getValue()], coarseTags[nonCapital]);
+            ++nPairs;
+        }
+        Assert.assertTrue(nPairs > 0);
+
+        Assert.assertNotEquals(coarseTags[d_model.tagNumbers().get("n-NN")],
+                coarseTags[d_model.tagNumbers().get("n-NNS")]);
+    }
+
+    @Test
+    public void testCoarseToFineUnpruned() {
+        CoarseToFineDecoder decoder = new CoarseToFineDecoder(d_tagger, 1e9);
+
+        for (List<String> sentence : SENTENCES)
+            Assert.assertEquals(d_tagger.decode(sentence).sequence(), decoder.decode(sentence).sequence());
+
+        // Ties between sequences are not broken consistently, so only compare probabilities.
+        for (List<String> sentence : sentences())
+            Assert.assertEquals(d_tagger.decode(sentence).logProb(), decoder.decode(sentence).logProb(), 1e-9);
+    }
+
+    @Test
+    public void testCoarseToFinePruned() {
+        CoarseToFineDecoder decoder = new CoarseToFineDecoder(d_tagger, 0.0);
+
+        Set<String> tags = new HashSet<>();
+        for (String tag : d_model.tagNumbers().keySet())
+            tags.add(tag.startsWith("c-") || tag.startsWith("n-") ? tag.substring(2) : tag);
+
+        for (List<String> sentence : sentences()) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentence);
+            HMMTagger.Sequence sequence = decoder.decode(sentence);
+
+            // Pruning can give another sequence, but never a more probable one.
+            Assert.assertEquals(sentence.size(), sequence.sequence().size());
+            Assert.assertTrue(tags.containsAll(sequence.sequence()));
+            Assert.assertTrue(sequence.logProb() <= expected.logProb() + 1e-9);
+        }
+    }
+
+    @Test
+    public void testDenseDecoder() {
+        DenseDecoder decoder = new DenseDecoder(d_model, d_wordHandler, new DenseLanguageModel(d_languageModel),
+                1000.0);
+
+        for (List<String> sentence : sentences()) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentence);
+            HMMTagger.Sequence sequence = decoder.decode(sentence);
+
+            // Sequences may differ on ties, so only the probabilities are compared.
+            Assert.assertEquals(expected.sequence().size(), sequence.sequence().size());
+            Assert.assertEquals(expected.logProb(), sequence.logProb(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testQuantizedDenseDecoder() {
+        for (Precision precision : new Precision[]{Precision.FLOAT, Precision.SHORT}) {
+            DenseDecoder decoder = new DenseDecoder(d_model, d_wordHandler,
+                    new DenseLanguageModel(d_languageModel, precision), 1000.0);
+
+            for (List<String> sentence : sentences()) {
+                HMMTagger.Sequence expected = d_tagger.decode(sentence);
+                HMMTagger.Sequence sequence = decoder.decode(sentence);
+                Assert.assertEquals(expected.sequence().size(), sequence.sequence().size());
+                Assert.assertEquals(expected.logProb(), sequence.logProb(), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeWithBudget() {
+        TaggerMetrics metrics = new TaggerMetrics();
+        HMMTagger tagger = new HMMTagger(d_model, d_wordHandler, d_languageModel, 1000.0, metrics);
+
+        for (List<String> sentence : SENTENCES) {
+            HMMTagger.Sequence expected = tagger.decode(sentence);
+
+            HMMTagger.Sequence unlimited = tagger.decode(sentence, Long.MAX_VALUE, new StepTicker());
+            Assert.assertFalse(unlimited.isDegraded());
+            Assert.assertEquals(expected.sequence(), unlimited.sequence());
+            Assert.assertEquals(0, metrics.getDegradedSentences());
+        }
+
+        for (List<String> sentence : SENTENCES) {
+            HMMTagger.Sequence expected = tagger.decode(sentence);
+
+            // Every read of the ticker advances it by one nanosecond, so the budget
+            // is exceeded after the second column.
+            HMMTagger.Sequence degraded = tagger.decode(sentence, 1, new StepTicker());
+            Assert.assertTrue(degraded.isDegraded());
+            Assert.assertEquals(sentence.size(), degraded.sequence().size());
+            Assert.assertTrue(degraded.logProb() <= expected.logProb() + 1e-9);
+        }
+
+        Assert.assertEquals(SENTENCES.size(), metrics.getDegradedSentences());
+    }
+
+    @Test
+    public void testTagWithConstraints() {
+        List<String> sentence = SENTENCES.get(1);
+        List<String> unconstrained = d_tagger.decode(sentence).sequence();
+
+        List<Set<String>> constraints = new ArrayList<>(Collections.nCopies(sentence.size(), (Set<String>) null));
+        Assert.assertEquals(unconstrained, HMMTagger.highestProbabilitySequence(
+                d_tagger.tag(sentence, constraints), d_model).sequence());
+
+        // "saw" is a VBD here, force it to be a noun. "cat" is never a verb in
+        // the training data, so its constraint falls back to a uniform emission.
+        constraints.set(2, Collections.singleton("NN"));
+        constraints.set(1, Collections.singleton("VB"));
+        List<String> constrained = HMMTagger.highestProbabilitySequence(
+                d_tagger.tag(sentence, constraints), d_model).sequence();
+        Assert.assertEquals("VB", constrained.get(1));
+        Assert.assertEquals("NN", constrained.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTagWithUnknownConstraint() {
+        List<String> sentence = SENTENCES.get(0);
+        List<Set<String>> constraints = new ArrayList<>(Collections.nCopies(sentence.size(), (Set<String>) null));
+        constraints.set(0, Collections.singleton("XYZ"));
+        d_tagger.tag(sentence, constraints);
+    }
+
+    /**
+     * A ticker that advances by one nanosecond on every read.
+     */
+    private static class StepTicker extends Ticker {
+        private long d_nanos = 0;
+
+        @Override
+        public long read() {
+            return d_nanos++;
+        }
+    }
+
+    /**
+     * Compute the log-probability of the best bigram sequence by trying all sequences.
+     */
+    private double biGramLogProb(List<String> sentence, DenseLanguageModel languageModel) {
+        List<Map<Integer, Double>> emissions = new ArrayList<>();
+        for (String token : sentence)
+            emissions.add(d_wordHandler.tagProbs(token));
+        emissions.add(d_wordHandler.tagProbs(Common.END_TOKEN));
+
+        return biGramLogProb(emissions, 0, d_model.tagNumbers().get(Common.START_TOKEN), languageModel);
+    }
+
+    private double biGramLogProb(List<Map<Integer, Double>> emissions, int i, int prevTag,
+                                 DenseLanguageModel languageModel) {
+        if (i == emissions.size())
+            return 0.0;
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<Integer, Double> entry : emissions.get(i).entrySet())
+            best = Math.max(best, languageModel.biGramProb(prevTag, entry.getKey()) + entry.getValue() +
+                    biGramLogProb(emissions, i + 1, entry.getKey(), languageModel));
+
+        return best;
+    }
+
+    /**
+     * Return the test sentences, followed by synthetic sentences with unknown words.
+     */
+    private List<List<String>> sentences() {
+        List<List<String>> sentences = new ArrayList<>(SENTENCES);
+        sentences.addAll(new WarmUp(d_model, 50, 42).sentences());
+        return sentences;
+    }
+}
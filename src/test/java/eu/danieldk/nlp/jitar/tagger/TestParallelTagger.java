@@ -0,0 +1,129 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.tagger;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.languagemodel.LinearInterpolationLM;
+import eu.danieldk.nlp.jitar.wordhandler.LexiconWordHandler;
+import eu.danieldk.nlp.jitar.wordhandler.SuffixWordHandler;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Executors;
+
+public class TestParallelTagger {
+    private static final List<List<String>> SENTENCES = Arrays.asList(
+            Arrays.asList("The", "dog", "runs", "."),
+            Arrays.asList("the", "cat", "saw", "a", "dog", ",", "and", "the", "dog", "runs", "."),
+            Arrays.asList("a", "saw", "runs", ",", "and", "cats", "saw", "the", "runs", ",", "and", "dogs", "run", "."),
+            Arrays.asList("dog"));
+
+    private HMMTagger d_tagger;
+
+    @Before
+    public void setUp() throws IOException {
+        Model model = CorpusFixture.model();
+        LexiconWordHandler wordHandler = new LexiconWordHandler(model.lexicon(), model.uniGrams(),
+                new SuffixWordHandler(model, 2, 2, 8, 4, 10, 10));
+        LinearInterpolationLM lm = new LinearInterpolationLM(model.uniGrams(), model.biGrams(), model.triGrams());
+        d_tagger = new HMMTagger(model, wordHandler, lm, 1000.0);
+    }
+
+    @Test
+    public void testInputOrder() throws InterruptedException {
+        // Sentences of very different lengths, so that they are not assigned in input order.
+        List<List<String>> sentences = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200; ++i) {
+            List<String> sentence = new ArrayList<>();
+            int nParts = random.nextInt(10) == 0 ? 10 + random.nextInt(20) : 1;
+            for (int j = 0; j < nParts; ++j)
+                sentence.addAll(SENTENCES.get(random.nextInt(SENTENCES.size())));
+            sentences.add(sentence);
+        }
+
+        for (int nThreads : new int[]{1, 2, 4}) {
+            try (ParallelTagger parallelTagger = new ParallelTagger(d_tagger, nThreads)) {
+                assertSequential(sentences, parallelTagger.tag(sentences));
+            }
+        }
+    }
+
+    @Test
+    public void testStealing() throws InterruptedException {
+        List<String> longSentence = new ArrayList<>();
+        for (int i = 0; i < 20; ++i)
+            longSentence.addAll(SENTENCES.get(2));
+
+        List<List<String>> sentences = new ArrayList<>();
+        sentences.add(longSentence);
+        for (int i = 0; i < 50; ++i)
+            sentences.add(SENTENCES.get(i % SENTENCES.size()));
+
+        // Two workers that share one thread: the worker that runs first finishes
+        // its own queue, and then has to take the jobs of the other worker.
+        try (ParallelTagger parallelTagger = new ParallelTagger(d_tagger, 2, false,
+                Executors.newSingleThreadExecutor())) {
+            assertSequential(sentences, parallelTagger.tag(sentences));
+            Assert.assertTrue(parallelTagger.stolenJobs() > 0);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws InterruptedException {
+        try (ParallelTagger parallelTagger = new ParallelTagger(d_tagger, 2)) {
+            Assert.assertTrue(parallelTagger.tag(Collections.<List<String>>emptyList()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testCost() {
+        List<Map<Integer, Double>> emissions = d_tagger.emissions(SENTENCES.get(0));
+        long cost = ParallelTagger.cost(emissions);
+        Assert.assertTrue(cost > 0);
+
+        // More tokens.
+        Assert.assertTrue(ParallelTagger.cost(d_tagger.emissions(SENTENCES.get(1))) > cost);
+
+        // More candidates for a token.
+        List<Map<Integer, Double>> moreCandidates = new ArrayList<>(emissions);
+        Map<Integer, Double> candidates = new HashMap<>(emissions.get(3));
+        for (int tag = 0; candidates.size() < emissions.get(3).size() + 3; ++tag)
+            candidates.put(tag, -1.0);
+        moreCandidates.set(3, candidates);
+        Assert.assertTrue(ParallelTagger.cost(moreCandidates) > cost);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new ParallelTagger(d_tagger, 0);
+    }
+
+    private void assertSequential(List<List<String>> sentences, List<HMMTagger.Sequence> sequences) {
+        Assert.assertEquals(sentences.size(), sequences.size());
+        for (int i = 0; i < sentences.size(); ++i) {
+            HMMTagger.Sequence expected = d_tagger.decode(sentences.get(i));
+            Assert.assertEquals(expected.sequence(), sequences.get(i).sequence());
+            Assert.assertEquals(expected.logProb(), sequences.get(i).logProb(), 1e-9);
+        }
+    }
+}
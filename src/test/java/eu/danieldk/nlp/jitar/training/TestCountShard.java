@@ -0,0 +1,59 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.training;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestCountShard {
+    @Test
+    public void testMergeEqualToInMemory() throws IOException {
+        Model expected = CorpusFixture.model();
+
+        // Count consecutive parts of the corpus separately.
+        String[] lines = CorpusFixture.CORPUS.split("\n");
+        List<File> shards = new ArrayList<>();
+        try {
+            for (int i = 0; i < lines.length; i += 2) {
+                StringBuilder part = new StringBuilder();
+                for (int j = i; j < Math.min(i + 2, lines.length); ++j)
+                    part.append(lines[j]).append('\n');
+
+                FrequenciesCollector shardCollector = new FrequenciesCollector();
+                shardCollector.process(CorpusFixture.newReader(part.toString()));
+
+                File shard = File.createTempFile("jitar-test", ".shard");
+                shards.add(shard);
+                shardCollector.writeShard(shard);
+            }
+
+            Model model = CountShard.merge(shards);
+
+            CorpusFixture.assertModelsEqual(expected, model);
+        } finally {
+            for (File shard : shards)
+                shard.delete();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.training;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class TestExternalFrequenciesCollector {
+    @Test
+    public void testEqualToInMemory() throws IOException {
+        Model expected = CorpusFixture.model();
+
+        // Spill after every sentence, as well as with a budget that is never reached.
+        for (int maxEntries : new int[]{1, 7, 1000}) {
+            try (ExternalFrequenciesCollector externalCollector = new ExternalFrequenciesCollector(null, maxEntries)) {
+                externalCollector.process(CorpusFixture.newReader());
+                CorpusFixture.assertModelsEqual(expected, externalCollector.model());
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import eu.danieldk.nlp.jitar.data.BiGram;
 import eu.danieldk.nlp.jitar.data.Model;
 import eu.danieldk.nlp.jitar.data.TriGram;
 import eu.danieldk.nlp.jitar.data.UniGram;
+import eu.danieldk.nlp.jitar.metrics.TaggerMetrics;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -55,6 +56,10 @@ public class TestKnownWordHandler {
         d_wordHandler = new LexiconWordHandler(wordFreqs, uniFreqs);
         d_wordHandlerWithFallback = new LexiconWordHandler(wordFreqs, uniFreqs,
                 new SuffixWordHandler(model, 2, 5, 5, 10, 5, 5));
+
+        d_metrics = new TaggerMetrics();
+        d_wordHandlerWithMetrics = new LexiconWordHandler(wordFreqs, uniFreqs,
+                new SuffixWordHandler(model, 2, 5, 5, 10, 5, 5), d_metrics);
     }
 
     @Test
@@ -78,6 +83,19 @@ public class TestKnownWordHandler {
                 new HashMap<Integer, Double>(), d_wordHandlerWithFallback.tagProbs("unknown"));
     }
 
+    @Test
+    public void testMetrics() {
+        for (String word : new String[]{"test", "Test", "unknown"})
+            Assert.assertEquals("Metrics should not change the probabilities",
+                    d_wordHandlerWithFallback.tagProbs(word), d_wordHandlerWithMetrics.tagProbs(word));
+
+        Assert.assertEquals(1, d_metrics.getLexiconHits());
+        Assert.assertEquals(1, d_metrics.getLowercaseHits());
+        Assert.assertEquals(1, d_metrics.getSuffixHits());
+    }
+
     WordHandler d_wordHandler;
     WordHandler d_wordHandlerWithFallback;
+    WordHandler d_wordHandlerWithMetrics;
+    TaggerMetrics d_metrics;
 }
@@ -0,0 +1,95 @@
+//
+// Copyright 2008, 2015 Daniël de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+
+
+package eu.danieldk.nlp.jitar.wordhandler;
+
+import eu.danieldk.nlp.jitar.CorpusFixture;
+import eu.danieldk.nlp.jitar.data.Model;
+import eu.danieldk.nlp.jitar.data.UniGramTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestSuffixWordHandler {
+    private static final String[] WORDS = {"dog", "runs", "Dogs", "Cats", "walks", "Zebra", "well-known", "1984"};
+
+    private Model d_model;
+
+    @Before
+    public void setUp() throws IOException {
+        d_model = CorpusFixture.model();
+    }
+
+    /**
+     * The probabilities were computed with the suffix trees that kept their own
+     * copy of the unigram frequencies, before the unigram table was shared.
+     */
+    @Test
+    public void testProbabilities() {
+        SuffixWordHandler handler = new SuffixWordHandler(d_model, 2, 2, 8, 4, 10, 10);
+
+        // Known lowercase word.
+        assertTagProbs(handler.tagProbs("runs"), -9.214192657816088,
+                "n-VBZ", -1.4000874543535216, "n-NNS", -2.0499426677145496, "n-NN", -3.476705014158522);
+
+        // Capitalized words.
+        assertTagProbs(handler.tagProbs("Dogs"), -9.214192657816088, "c-NNS", -0.003192787926229032);
+        assertTagProbs(handler.tagProbs("Cats"), -6.355350109641285, "c-NNS", -0.057202993543542906);
+
+        // Unknown lowercase word with a known suffix.
+        assertTagProbs(handler.tagProbs("walks"), -6.355350109641285,
+                "n-NNS", -1.659309008584833, "n-VBZ", -1.659309008584833, "n-NN", -3.6767908292443314);
+
+        // Dashed, capitalized and cardinal words without training words.
+        for (String word : new String[]{"well-known", "Zebra", "1984"})
+            assertTagProbs(handler.tagProbs(word), -3.4965075614664802);
+    }
+
+    @Test
+    public void testSharedUniGramTable() {
+        SuffixWordHandler expected = new SuffixWordHandler(d_model, 2, 2, 8, 4, 10, 10);
+
+        UniGramTable uniGrams = new UniGramTable(d_model.uniGrams());
+        SuffixWordHandler shared = new SuffixWordHandler(d_model, uniGrams, 2, 2, 8, 4, 10, 10);
+
+        // Another handler on the same table should not affect the first.
+        SuffixWordHandler other = new SuffixWordHandler(d_model, uniGrams, 3, 1, 1, 1, 2, 1);
+
+        for (String word : WORDS) {
+            Assert.assertEquals(word, expected.tagProbs(word), shared.tagProbs(word));
+            Assert.assertTrue(word, other.tagProbs(word).size() <= 2);
+        }
+    }
+
+    private void assertTagProbs(Map<Integer, Double> tagProbs, double floor, Object... tagLogProbs) {
+        Map<String, Double> expected = new HashMap<>();
+        for (int i = 0; i < tagLogProbs.length; i += 2)
+            expected.put((String) tagLogProbs[i], (Double) tagLogProbs[i + 1]);
+
+        // The handlers are constructed with at most 10 tags.
+        Assert.assertEquals(10, tagProbs.size());
+        for (Map.Entry<Integer, Double> entry : tagProbs.entrySet()) {
+            String tag = d_model.numberTags().get(entry.getKey());
+            Double logProb = expected.get(tag);
+            Assert.assertEquals(tag, logProb == null ? floor : logProb, entry.getValue(), 1e-12);
+        }
+    }
+}